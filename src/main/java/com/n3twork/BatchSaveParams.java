@@ -18,6 +18,7 @@ package com.n3twork;
 
 import com.n3twork.dynamap.DynamapRecordBean;
 import com.n3twork.dynamap.DynamoRateLimiter;
+import com.n3twork.dynamap.RetryPolicy;
 
 import java.util.List;
 import java.util.Map;
@@ -30,6 +31,9 @@ public class BatchSaveParams<T extends DynamapRecordBean> {
     private boolean disableOptimisticLocking;
     private Map<Class, DynamoRateLimiter> writeLimiters;
     private String suffix;
+    private RetryPolicy retryPolicy;
+    private int maxConcurrency = 1;
+    private long maxBatchBytes = 16 * 1024 * 1024;
 
     private BatchSaveParams() {
     }
@@ -58,6 +62,46 @@ public class BatchSaveParams<T extends DynamapRecordBean> {
         return this;
     }
 
+    public BatchSaveParams<T> withRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * Beans are saved in batches of up to 25 items. By default the batches are converted and sent one after another
+     * on the calling thread. Setting a value greater than one converts and sends the batches on the Dynamap executor
+     * with at most this many in flight, still acquiring the write limiters before each batch. If a batch fails, no
+     * further batches are sent and a {@link com.n3twork.dynamap.BatchSaveException} reports each failed batch once
+     * the batches in flight have completed.
+     *
+     * @param maxConcurrency the maximum number of batch write requests in flight
+     * @return this object with new state
+     */
+    public BatchSaveParams<T> withMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    /**
+     * Batches hold up to 25 beans. Their items are also packed so that the estimated size of the items of a request,
+     * as DynamoDB counts it, stays within this many bytes, 16MB by default, which is the DynamoDB request limit.
+     * A lower value spreads the write capacity of large items over more requests. Any bean whose item is over the
+     * 400KB DynamoDB item limit fails with an IllegalArgumentException before it is sent.
+     *
+     * @param maxBatchBytes the maximum estimated size of the items of a batch write request
+     * @return this object with new state
+     */
+    public BatchSaveParams<T> withMaxBatchBytes(long maxBatchBytes) {
+        if (maxBatchBytes < 1) {
+            throw new IllegalArgumentException("maxBatchBytes must be at least 1");
+        }
+        this.maxBatchBytes = maxBatchBytes;
+        return this;
+    }
+
     ////////
 
 
@@ -80,4 +124,16 @@ public class BatchSaveParams<T extends DynamapRecordBean> {
     public String getSuffix() {
         return suffix;
     }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public long getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
 }
@@ -0,0 +1,94 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import java.math.BigDecimal;
+
+/**
+ * The count, sum, minimum and maximum of a numeric field over the items returned by a query or scan.
+ */
+public class AggregateResult {
+
+    private long count;
+    private long valueCount;
+    private BigDecimal sum = BigDecimal.ZERO;
+    private BigDecimal min;
+    private BigDecimal max;
+
+    void addCount(int count) {
+        this.count += count;
+    }
+
+    void addValue(BigDecimal value) {
+        valueCount++;
+        sum = sum.add(value);
+        if (min == null || value.compareTo(min) < 0) {
+            min = value;
+        }
+        if (max == null || value.compareTo(max) > 0) {
+            max = value;
+        }
+    }
+
+    AggregateResult combine(AggregateResult other) {
+        count += other.count;
+        valueCount += other.valueCount;
+        sum = sum.add(other.sum);
+        if (other.min != null && (min == null || other.min.compareTo(min) < 0)) {
+            min = other.min;
+        }
+        if (other.max != null && (max == null || other.max.compareTo(max) > 0)) {
+            max = other.max;
+        }
+        return this;
+    }
+
+    /**
+     * @return the number of items returned, including those without a value for the field
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the number of items with a value for the field
+     */
+    public long getValueCount() {
+        return valueCount;
+    }
+
+    /**
+     * @return the sum of the values, zero if there are none
+     */
+    public BigDecimal getSum() {
+        return sum;
+    }
+
+    /**
+     * @return the smallest value, or null if there are none
+     */
+    public BigDecimal getMin() {
+        return min;
+    }
+
+    /**
+     * @return the largest value, or null if there are none
+     */
+    public BigDecimal getMax() {
+        return max;
+    }
+}
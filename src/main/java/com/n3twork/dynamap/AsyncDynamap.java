@@ -0,0 +1,287 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
+import com.amazonaws.services.dynamodbv2.document.DynamoDB;
+import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.ItemUtils;
+import com.amazonaws.services.dynamodbv2.model.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * A non blocking counterpart of {@link Dynamap} backed by an AmazonDynamoDBAsync client. Each operation returns as soon
+ * as its request has been submitted, with a future that is completed by the client's callback thread.
+ * <p>
+ * The requests are built in the same way as those of Dynamap, so an object saved by one can be loaded by the other.
+ * The following differences apply:
+ * <ul>
+ * <li>Rate limiters are not used, because acquiring a permit blocks the calling thread.</li>
+ * <li>A query retrieves all its pages, up to the max result size, before its future is completed.</li>
+ * <li>Objects that are migrated while being loaded, and are written back, are saved with a blocking call on the
+ * thread that completes the future.</li>
+ * </ul>
+ * Callers should avoid blocking in the stages they add to the futures, since these run on the client's threads.
+ */
+public class AsyncDynamap {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncDynamap.class);
+
+    private final AmazonDynamoDBAsync amazonDynamoDBAsync;
+    private final SchemaRegistry schemaRegistry;
+    private final TableCache tableCache;
+    private String prefix;
+    private ObjectMapper objectMapper;
+    private WriteOpFactory writeOpFactory;
+    private ReadOpFactory readOpFactory;
+    private DynamapBeanFactory dynamapBeanFactory;
+    private RetryPolicy retryPolicy = new RetryPolicy();
+
+    public AsyncDynamap(AmazonDynamoDBAsync amazonDynamoDBAsync, SchemaRegistry schemaRegistry) {
+        if (null == amazonDynamoDBAsync) {
+            throw new NullPointerException();
+        }
+        this.amazonDynamoDBAsync = amazonDynamoDBAsync;
+        this.tableCache = new TableCache(new DynamoDB(amazonDynamoDBAsync));
+        this.schemaRegistry = schemaRegistry;
+        this.objectMapper = new ObjectMapper();
+        this.writeOpFactory = new WriteOpFactory(objectMapper, this.prefix, schemaRegistry);
+        this.readOpFactory = new ReadOpFactory(schemaRegistry, this.prefix);
+        this.dynamapBeanFactory = new DynamapBeanFactory(schemaRegistry, this.objectMapper);
+    }
+
+    public AsyncDynamap withObjectMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.writeOpFactory = new WriteOpFactory(objectMapper, this.prefix, schemaRegistry);
+        this.dynamapBeanFactory = new DynamapBeanFactory(schemaRegistry, this.objectMapper);
+        return this;
+    }
+
+    public AsyncDynamap withPrefix(String prefix) {
+        this.prefix = prefix;
+        this.writeOpFactory = new WriteOpFactory(objectMapper, this.prefix, schemaRegistry);
+        this.readOpFactory = new ReadOpFactory(schemaRegistry, this.prefix);
+        return this;
+    }
+
+    /**
+     * Sets the policy for retrying transactions cancelled because of throttling or conflicts. Retries are scheduled
+     * after the backoff delay rather than waiting on a thread.
+     */
+    public AsyncDynamap withRetryPolicy(RetryPolicy retryPolicy) {
+        if (null == retryPolicy) {
+            throw new IllegalArgumentException();
+        }
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public SchemaRegistry getSchemaRegistry() {
+        return schemaRegistry;
+    }
+
+    /**
+     * @return a future completed with the object, or with null if it does not exist
+     */
+    public <T extends DynamapRecordBean> CompletableFuture<T> getObject(GetObjectParams<T> getObjectParams) {
+        GetObjectRequest<T> getObjectRequest = getObjectParams.getGetObjectRequest();
+        CompletableFuture<GetItemResult> result = call(readOpFactory.buildGetItem(getObjectRequest), amazonDynamoDBAsync::getItemAsync);
+        return result.thenApply(getItemResult -> {
+            DynamapLoadService dynamapBeanLoader = new DynamapLoadService(schemaRegistry, dynamapBeanFactory, objectMapper, prefix, tableCache)
+                    .skipMigration(getObjectRequest.getProjection() != null)
+                    .writeBack(getObjectParams.isWriteMigrationChange())
+                    .withMigrationContext(getObjectParams.getMigrationContext())
+                    .withSuffix(getObjectRequest.getSuffix());
+            return dynamapBeanLoader.loadItem(getItemResult.getItem(), getObjectRequest.getResultClass());
+        });
+    }
+
+    public CompletableFuture<Void> save(SaveParams saveParams) {
+        PutItemRequest putItemRequest = writeOpFactory.buildPutItem(saveParams);
+        CompletableFuture<PutItemResult> result = call(putItemRequest, amazonDynamoDBAsync::putItemAsync);
+        return result.thenApply(putItemResult -> null);
+    }
+
+    public <T extends DynamapPersisted<U>, U extends RecordUpdates<T>, R extends UpdateResult<T, U>> CompletableFuture<R> update(UpdateParams<T> updateParams) {
+        UpdateItemRequest updateItemRequest = writeOpFactory.buildUpdateItem(updateParams);
+        logger.debug("About to submit DynamoDB Update: Update expression: {}, Conditional expression: {}, Values {}, Names: {}", updateItemRequest.getUpdateExpression(), updateItemRequest.getConditionExpression(), updateItemRequest.getExpressionAttributeValues(), updateItemRequest.getExpressionAttributeNames());
+        CompletableFuture<UpdateItemResult> result = call(updateItemRequest, amazonDynamoDBAsync::updateItemAsync);
+        return result.thenApply(updateItemResult ->
+                dynamapBeanFactory.asUpdateResult(updateParams.getUpdates(), updateItemResult.getAttributes(), updateParams.getDynamapReturnValue()));
+    }
+
+    public CompletableFuture<Void> delete(DeleteRequest deleteRequest) {
+        CompletableFuture<DeleteItemResult> result = call(writeOpFactory.buildDeleteItem(deleteRequest), amazonDynamoDBAsync::deleteItemAsync);
+        return result.thenApply(deleteItemResult -> null);
+    }
+
+    public <T extends DynamapRecordBean> CompletableFuture<List<T>> query(QueryRequest<T> queryRequest) {
+        return queryResult(queryRequest).thenApply(QueryResult::getResults);
+    }
+
+    /**
+     * Requests the pages of a query one after another. The future is completed once the last page, or the page that
+     * reaches the max result size, has been retrieved. The progress callback is notified after each page.
+     */
+    public <T extends DynamapRecordBean> CompletableFuture<QueryResult<T>> queryResult(QueryRequest<T> queryRequest) {
+        QueryPages pages = new QueryPages();
+        return queryPages(readOpFactory.buildQuery(queryRequest), queryRequest, pages).thenApply(v -> {
+            DynamapLoadService dynamapBeanLoader = new DynamapLoadService(schemaRegistry, dynamapBeanFactory, objectMapper, prefix, tableCache)
+                    .skipMigration(queryRequest.getProjectionExpression() != null)
+                    .writeBack(queryRequest.isWriteMigrationChange())
+                    .withMigrationContext(queryRequest.getMigrationContext())
+                    .withSuffix(queryRequest.getSuffix());
+            ItemIterator<T> itemIterator = new ItemIterator<T>(pages.items.iterator()) {
+
+                @Override
+                public T next() {
+                    return dynamapBeanLoader.loadItem(iterator.next(), queryRequest.getResultClass());
+                }
+
+                @Override
+                public int getCount() {
+                    return pages.count;
+                }
+
+                @Override
+                public int getScannedCount() {
+                    return pages.scannedCount;
+                }
+
+                @Override
+                protected Map<String, AttributeValue> getLowLevelLastEvaluatedKey() {
+                    return pages.lastEvaluatedKey;
+                }
+            };
+            return new QueryResult<>(itemIterator);
+        });
+    }
+
+    private CompletableFuture<Void> queryPages(com.amazonaws.services.dynamodbv2.model.QueryRequest request, QueryRequest<?> queryRequest, QueryPages pages) {
+        Integer maxResultSize = queryRequest.getMaxResultSize();
+        if (maxResultSize != null) {
+            int remaining = maxResultSize - pages.count;
+            request.setLimit(request.getLimit() == null ? remaining : Math.min(request.getLimit(), remaining));
+        }
+        CompletableFuture<com.amazonaws.services.dynamodbv2.model.QueryResult> result = call(request, amazonDynamoDBAsync::queryAsync);
+        return result.thenCompose(queryResult -> {
+            for (Map<String, AttributeValue> item : queryResult.getItems()) {
+                pages.items.add(ItemUtils.toItem(item));
+            }
+            pages.count += queryResult.getCount();
+            pages.scannedCount += queryResult.getScannedCount() == null ? 0 : queryResult.getScannedCount();
+            pages.lastEvaluatedKey = queryResult.getLastEvaluatedKey();
+            if (queryRequest.getProgressCallback() != null) {
+                queryRequest.getProgressCallback().reportProgress(pages.count);
+            }
+            if (pages.lastEvaluatedKey == null || (maxResultSize != null && pages.count >= maxResultSize)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return queryPages(request.clone().withExclusiveStartKey(pages.lastEvaluatedKey), queryRequest, pages);
+        });
+    }
+
+    /**
+     * @return a transaction for use with {@link #exec(WriteTx)}
+     */
+    public WriteTx newWriteTx() {
+        return new WriteTx(amazonDynamoDBAsync, writeOpFactory, new DynamoItemFactory(objectMapper), retryPolicy);
+    }
+
+    /**
+     * Executes a write transaction. A transaction cancelled only because of throttling or a conflicting transaction is
+     * resubmitted after the backoff delay of the retry policy; other cancellations complete the future exceptionally.
+     */
+    public CompletableFuture<TransactWriteItemsResult> exec(WriteTx writeTx) {
+        CompletableFuture<TransactWriteItemsResult> future = new CompletableFuture<>();
+        exec(writeTx.buildRequest(), writeTx.getTableNames(), retryPolicy.newRetryState(), future);
+        return future;
+    }
+
+    private void exec(TransactWriteItemsRequest request, List<String> tableNames, RetryPolicy.RetryState retryState,
+                      CompletableFuture<TransactWriteItemsResult> future) {
+        CompletableFuture<TransactWriteItemsResult> result = call(request, amazonDynamoDBAsync::transactWriteItemsAsync);
+        result.whenComplete((transactWriteItemsResult, error) -> {
+            if (error == null) {
+                future.complete(transactWriteItemsResult);
+                return;
+            }
+            if (error instanceof TransactionCanceledException) {
+                Set<String> retryableTableNames = TxUtil.getRetryableTableNames((TransactionCanceledException) error, tableNames);
+                long delayMillis = retryableTableNames == null ? -1 : retryState.nextDelayMillis(retryableTableNames);
+                if (delayMillis >= 0) {
+                    logger.debug("Retrying write transaction cancelled on tables {}", retryableTableNames);
+                    CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS)
+                            .execute(() -> exec(request, tableNames, retryState, future));
+                    return;
+                }
+            }
+            future.completeExceptionally(error);
+        });
+    }
+
+    /**
+     * Submits a request to the async client and returns a future completed by its callback.
+     */
+    private static <Q extends AmazonWebServiceRequest, S> CompletableFuture<S> call(Q request, BiFunction<Q, AsyncHandler<Q, S>, Future<S>> method) {
+        CompletableFuture<S> future = new CompletableFuture<>();
+        try {
+            method.apply(request, new AsyncHandler<Q, S>() {
+                @Override
+                public void onError(Exception exception) {
+                    future.completeExceptionally(exception);
+                }
+
+                @Override
+                public void onSuccess(Q request, S result) {
+                    future.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * The items and counts of the pages of a query retrieved so far. Pages are requested one at a time, each after
+     * the previous one has completed, so no synchronization is needed.
+     */
+    private static class QueryPages {
+        private final List<Item> items = new ArrayList<>();
+        private int count;
+        private int scannedCount;
+        private Map<String, AttributeValue> lastEvaluatedKey;
+    }
+}
@@ -27,6 +27,7 @@ public class BatchDeleteRequest<T extends DynamapRecordBean> {
 
     private List<DeleteRequest> deleteRequests;
     private Map<Class, DynamoRateLimiter> rateLimiters;
+    private RetryPolicy retryPolicy;
 
     /**
      * Sets the list of invidual item delete requests
@@ -48,6 +49,16 @@ public class BatchDeleteRequest<T extends DynamapRecordBean> {
         return this;
     }
 
+    /**
+     * Sets the policy used to retry unprocessed deletes, overriding the one set on Dynamap
+     * @param retryPolicy Retry policy
+     * @return this object with new state
+     */
+    public BatchDeleteRequest withRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
     /**
      * @return list of the individual delete requests
      */
@@ -61,5 +72,11 @@ public class BatchDeleteRequest<T extends DynamapRecordBean> {
     public Map<Class, DynamoRateLimiter> getRateLimiters() {
         return rateLimiters;
     }
-}
 
+    /**
+     * @return the policy used to retry unprocessed deletes, or null to use the one set on Dynamap
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+}
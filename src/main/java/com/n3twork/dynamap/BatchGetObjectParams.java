@@ -28,6 +28,8 @@ public class BatchGetObjectParams<T extends DynamapRecordBean> {
     private Object migrationContext;
     private ProgressCallback progressCallback;
     private boolean writeMigrationChange = true;
+    private int maxConcurrency = 1;
+    private RetryPolicy retryPolicy;
 
     public BatchGetObjectParams<T> withGetObjectRequests(Collection getObjectRequests) {
         this.getObjectRequests = getObjectRequests;
@@ -59,6 +61,32 @@ public class BatchGetObjectParams<T extends DynamapRecordBean> {
         return this;
     }
 
+    /**
+     * Requests are sent to DynamoDB in batches of up to 100 keys. By default the batches are sent one after another.
+     * Setting a value greater than one sends the batches on the Dynamap executor with at most this many in flight.
+     * Results, progress reporting and rate limiting are the same as for sequential requests, however when a
+     * progress callback is used it may be called from the executor threads.
+     *
+     * @param maxConcurrency the maximum number of batch get requests in flight
+     * @return this object with new state
+     */
+    public BatchGetObjectParams<T> withMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    /**
+     * @param retryPolicy the policy used to retry unprocessed keys, overriding the one set on Dynamap
+     * @return this object with new state
+     */
+    public BatchGetObjectParams<T> withRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
     public Collection<GetObjectRequest<T>> getGetObjectRequests() {
         return getObjectRequests;
     }
@@ -82,4 +110,12 @@ public class BatchGetObjectParams<T extends DynamapRecordBean> {
     public boolean isWriteMigrationChange() {
         return writeMigrationChange;
     }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
 }
@@ -0,0 +1,87 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown by a concurrent batch save when one or more of its batches could not be written. Batches that were in flight
+ * when the first failure happened are allowed to complete and no further batches are sent, so the beans that were not
+ * saved are those of the failed batches and those of the batches that were never sent.
+ */
+public class BatchSaveException extends RuntimeException {
+
+    private final List<BatchFailure> failures;
+    private final List<DynamapRecordBean> unsentBeans;
+
+    BatchSaveException(List<BatchFailure> failures, List<DynamapRecordBean> unsentBeans) {
+        super(failures.size() + " batches failed to save, " + unsentBeans.size() + " beans were not sent", failures.get(0).getCause());
+        this.failures = Collections.unmodifiableList(failures);
+        this.unsentBeans = Collections.unmodifiableList(unsentBeans);
+        for (int i = 1; i < failures.size(); i++) {
+            addSuppressed(failures.get(i).getCause());
+        }
+    }
+
+    /**
+     * @return the failed batches, in the order they were sent
+     */
+    public List<BatchFailure> getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return the beans of the batches that were not sent because an earlier batch failed
+     */
+    public List<DynamapRecordBean> getUnsentBeans() {
+        return unsentBeans;
+    }
+
+    public static class BatchFailure {
+        private final int batchIndex;
+        private final List<DynamapRecordBean> beans;
+        private final RuntimeException cause;
+
+        BatchFailure(int batchIndex, List<DynamapRecordBean> beans, RuntimeException cause) {
+            this.batchIndex = batchIndex;
+            this.beans = Collections.unmodifiableList(beans);
+            this.cause = cause;
+        }
+
+        /**
+         * @return the position of the batch among the batches of up to 25 beans of the request
+         */
+        public int getBatchIndex() {
+            return batchIndex;
+        }
+
+        /**
+         * @return the beans of the batch, some of which may have been saved if the batch was sent as several requests because of the size of its items
+         */
+        public List<DynamapRecordBean> getBeans() {
+            return beans;
+        }
+
+        /**
+         * @return the reason the batch failed, such as a {@link RetriesExhaustedException} holding the items DynamoDB did not process
+         */
+        public RuntimeException getCause() {
+            return cause;
+        }
+    }
+}
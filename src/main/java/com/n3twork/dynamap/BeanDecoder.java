@@ -0,0 +1,39 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Map;
+
+/**
+ * Builds beans directly from the attributes of an item. A decoder is generated for each type of a schema, and is used
+ * instead of converting the item with the ObjectMapper.
+ *
+ * @param <T> the generated bean class
+ */
+public interface BeanDecoder<T> {
+
+    Class<T> getBeanClass();
+
+    /**
+     * @param attributes the attributes of the item, either low level AttributeValues or the values of an Item
+     * @param objectMapper used for custom types and compressed collections
+     * @return the bean, or null if the attributes are null
+     */
+    T decode(Map<String, ?> attributes, ObjectMapper objectMapper);
+}
@@ -0,0 +1,41 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Map;
+
+/**
+ * Writes the persisted fields of beans directly into low level attribute values. An encoder is generated for each type
+ * of a schema, and is used instead of converting the bean with the ObjectMapper.
+ *
+ * @param <T> the generated type
+ */
+public interface BeanEncoder<T> {
+
+    Class<? extends T> getBeanClass();
+
+    /**
+     * @param bean              the bean to encode
+     * @param incrementRevision whether to write the incremented revision of a table with optimistic locking
+     * @param objectMapper      used for custom types and compressed collections
+     * @return the attributes of the item, or null if the bean is null
+     */
+    Map<String, AttributeValue> encode(T bean, boolean incrementRevision, ObjectMapper objectMapper);
+}
@@ -0,0 +1,109 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Submits tasks to an executor while keeping at most a fixed number of them in flight.
+ * The submitting thread blocks until a slot is free, which provides back pressure to the caller.
+ * Not thread safe: a single thread submits the tasks and then waits for them.
+ */
+class BoundedExecutor<R> {
+
+    private final ExecutorService executorService;
+    private final Semaphore permits;
+    private final List<Future<R>> futures = new ArrayList<>();
+
+    BoundedExecutor(ExecutorService executorService, int maxInFlight) {
+        if (null == executorService) {
+            throw new IllegalArgumentException();
+        }
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        }
+        this.executorService = executorService;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    public void submit(Callable<R> task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelAll();
+            throw new RuntimeException("Interrupted while waiting to submit task", e);
+        }
+        try {
+            futures.add(executorService.submit(() -> {
+                try {
+                    return task.call();
+                } finally {
+                    permits.release();
+                }
+            }));
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for all submitted tasks to complete.
+     *
+     * @return the results in the order the tasks were submitted
+     * @throws RuntimeException the first failure, after cancelling the tasks that have not yet run
+     */
+    public List<R> awaitAll() {
+        List<R> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelAll();
+            throw new RuntimeException("Interrupted while waiting for tasks", e);
+        } catch (ExecutionException e) {
+            cancelAll();
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (CancellationException e) {
+            cancelAll();
+            throw e;
+        }
+        return results;
+    }
+
+    public void cancelAll() {
+        for (Future<R> future : futures) {
+            future.cancel(true);
+        }
+    }
+}
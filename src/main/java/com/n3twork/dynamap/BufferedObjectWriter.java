@@ -0,0 +1,352 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Buffers saves and deletes and writes them with batch writes of up to 25 items.
+ * <p>
+ * A batch is sent as soon as it holds the maximum batch size of distinct keys, when its oldest write reaches the
+ * maximum age, or when {@link #flush()} is called. A write to a key that is already waiting in the buffer replaces the
+ * earlier write, so only the last save or delete of a key is sent and the futures of both writes complete together.
+ * <p>
+ * Batch writes have no conditions, so saves cannot disable overwrites or have condition expressions, deletes cannot
+ * have condition expressions, and optimistic locking is not checked. The number of writes that are buffered or being
+ * sent is bounded, and callers block while the bound is reached.
+ * <p>
+ * A writer is thread safe and is usually created once and shared. It must be closed when no longer needed, which
+ * writes everything still buffered.
+ */
+public class BufferedObjectWriter implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BufferedObjectWriter.class);
+
+    private static final int MAX_BATCH_WRITE_SIZE = 25;
+
+    private final Dynamap dynamap;
+    private final ScheduledExecutorService scheduler;
+    private long maxAgeMillis = 1000;
+    private int maxBatchSize = MAX_BATCH_WRITE_SIZE;
+    private int maxBufferedWrites = 1000;
+    private Map<Class, DynamoRateLimiter> writeLimiters;
+    private Map<String, DynamoRateLimiter> writeLimitersByTable;
+
+    private final Object lock = new Object();
+    private Map<WriteKey, PendingWrite> pending = new LinkedHashMap<>();
+    private final Set<CompletableFuture<Void>> inFlight = new HashSet<>();
+    private final Map<WriteKey, Batch> inFlightKeys = new HashMap<>();
+    private int bufferedWrites;
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean closed;
+
+    public BufferedObjectWriter(Dynamap dynamap) {
+        if (null == dynamap) {
+            throw new NullPointerException();
+        }
+        this.dynamap = dynamap;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("dynamap-writer-%d").setDaemon(true).build());
+    }
+
+    /**
+     * @param maxAgeMillis how long a write can wait in the buffer before its batch is sent
+     * @return this object with new state
+     */
+    public BufferedObjectWriter withMaxAgeMillis(long maxAgeMillis) {
+        if (maxAgeMillis < 0) {
+            throw new IllegalArgumentException("maxAgeMillis cannot be negative");
+        }
+        this.maxAgeMillis = maxAgeMillis;
+        return this;
+    }
+
+    /**
+     * @param maxBatchSize the number of distinct keys that causes a batch to be sent straight away, at most 25
+     * @return this object with new state
+     */
+    public BufferedObjectWriter withMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1 || maxBatchSize > MAX_BATCH_WRITE_SIZE) {
+            throw new IllegalArgumentException("maxBatchSize must be between 1 and " + MAX_BATCH_WRITE_SIZE);
+        }
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /**
+     * @param maxBufferedWrites the number of writes that can be buffered or being sent before callers block
+     * @return this object with new state
+     */
+    public BufferedObjectWriter withMaxBufferedWrites(int maxBufferedWrites) {
+        if (maxBufferedWrites < 1) {
+            throw new IllegalArgumentException("maxBufferedWrites must be at least 1");
+        }
+        this.maxBufferedWrites = maxBufferedWrites;
+        return this;
+    }
+
+    /**
+     * @param writeLimiters the rate limiters acquired before each batch write, for each type
+     * @return this object with new state
+     */
+    public BufferedObjectWriter withWriteLimiters(Map<Class, DynamoRateLimiter> writeLimiters) {
+        this.writeLimiters = writeLimiters;
+        return this;
+    }
+
+    /**
+     * Adds a save to the buffer. Only the bean and suffix of the parameters are used. The bean is converted to the
+     * item to put before this method returns, so later changes to the bean are not written.
+     *
+     * @return a future completed when the save, or a later write of the same key that replaced it, has been written
+     */
+    public CompletableFuture<Void> save(SaveParams<?> saveParams) {
+        if (saveParams.isDisableOverwrite() || (saveParams.getConditionExpressions() != null && !saveParams.getConditionExpressions().isEmpty())) {
+            throw new IllegalArgumentException("Buffered saves cannot have conditions");
+        }
+        DynamapRecordBean bean = saveParams.getDynamapRecordBean();
+        return add(new WriteKey(dynamap.getSchemaRegistry().getTableDefinition(bean.getClass()).getTableName(null, saveParams.getSuffix()),
+                bean.getHashKeyValue(), bean.getRangeKeyValue()), dynamap.preparePut(saveParams));
+    }
+
+    /**
+     * Adds a delete to the buffer.
+     *
+     * @return a future completed when the delete, or a later write of the same key that replaced it, has been written
+     */
+    public CompletableFuture<Void> delete(DeleteRequest<?> deleteRequest) {
+        if (deleteRequest.getConditionExpression() != null) {
+            throw new IllegalArgumentException("Buffered deletes cannot have conditions");
+        }
+        return add(new WriteKey(dynamap.getSchemaRegistry().getTableDefinition(deleteRequest.getResultClass()).getTableName(null, deleteRequest.getSuffix()),
+                deleteRequest.getHashKeyValue(), deleteRequest.getRangeKeyValue()), deleteRequest);
+    }
+
+    /**
+     * Sends the writes in the buffer and waits until every write added before the call has been sent.
+     * Failures are reported through the futures of the writes.
+     */
+    public void flush() {
+        List<CompletableFuture<Void>> batches;
+        Batch batch;
+        synchronized (lock) {
+            batch = takePending();
+            batches = new ArrayList<>(inFlight);
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+        for (CompletableFuture<Void> future : batches) {
+            future.join();
+        }
+    }
+
+    /**
+     * Stops accepting writes, sends the writes in the buffer and waits for them to be written.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        flush();
+        scheduler.shutdown();
+    }
+
+    private CompletableFuture<Void> add(WriteKey key, Object request) {
+        Batch batch = null;
+        CompletableFuture<Void> future;
+        synchronized (lock) {
+            PendingWrite pendingWrite = pending.get(key);
+            if (pendingWrite == null) {
+                while (bufferedWrites >= maxBufferedWrites && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException("Interrupted while waiting for buffer space", e);
+                    }
+                }
+            }
+            if (closed) {
+                throw new IllegalStateException("Writer is closed");
+            }
+            // the buffer may have been sent while waiting
+            pendingWrite = pending.get(key);
+            if (pendingWrite != null) {
+                pendingWrite.request = request;
+                return pendingWrite.future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(key, new PendingWrite(request, future));
+            bufferedWrites++;
+            if (pending.size() >= maxBatchSize) {
+                batch = takePending();
+            } else if (pending.size() == 1) {
+                scheduledFlush = scheduler.schedule(this::sendPending, maxAgeMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+        return future;
+    }
+
+    private void sendPending() {
+        Batch batch;
+        synchronized (lock) {
+            batch = takePending();
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+    }
+
+    // the batch is in flight from the moment it leaves the buffer, so that a flush waits for it
+    private Batch takePending() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (pending.isEmpty()) {
+            return null;
+        }
+        Batch batch = new Batch(pending);
+        pending = new LinkedHashMap<>();
+        inFlight.add(batch.written);
+        for (WriteKey key : batch.writes.keySet()) {
+            Batch previous = inFlightKeys.put(key, batch);
+            if (previous != null) {
+                batch.previousBatches.add(previous.written);
+            }
+        }
+        return batch;
+    }
+
+    // a batch that writes a key of a batch still in flight is sent after it, so that the last write of the key wins
+    private void dispatch(Batch batch) {
+        try {
+            if (batch.previousBatches.isEmpty()) {
+                dynamap.getExecutorService().execute(() -> writeBatch(batch));
+            } else {
+                CompletableFuture.allOf(batch.previousBatches.toArray(new CompletableFuture[0]))
+                        .thenRunAsync(() -> writeBatch(batch), dynamap.getExecutorService());
+            }
+        } catch (RejectedExecutionException e) {
+            batch.writes.values().forEach(w -> w.future.completeExceptionally(e));
+            completeBatch(batch);
+        }
+    }
+
+    private void writeBatch(Batch batch) {
+        try {
+            List<Dynamap.PreparedPut> puts = new ArrayList<>();
+            List<DeleteRequest<?>> deletes = new ArrayList<>();
+            for (PendingWrite pendingWrite : batch.writes.values()) {
+                if (pendingWrite.request instanceof Dynamap.PreparedPut) {
+                    puts.add((Dynamap.PreparedPut) pendingWrite.request);
+                } else {
+                    deletes.add((DeleteRequest<?>) pendingWrite.request);
+                }
+            }
+            dynamap.batchWrite(puts, deletes, getWriteLimitersByTable());
+            batch.writes.values().forEach(w -> w.future.complete(null));
+        } catch (RuntimeException | Error e) {
+            logger.warn("Failed to write batch of size: {}", batch.writes.size(), e);
+            batch.writes.values().forEach(w -> w.future.completeExceptionally(e));
+        } finally {
+            completeBatch(batch);
+        }
+    }
+
+    // the futures of the writes hold the outcome, the batch future only signals that the batch is no longer in flight
+    private void completeBatch(Batch batch) {
+        synchronized (lock) {
+            inFlight.remove(batch.written);
+            for (WriteKey key : batch.writes.keySet()) {
+                inFlightKeys.remove(key, batch);
+            }
+            bufferedWrites -= batch.writes.size();
+            lock.notifyAll();
+        }
+        batch.written.complete(null);
+    }
+
+    private synchronized Map<String, DynamoRateLimiter> getWriteLimitersByTable() {
+        if (writeLimitersByTable == null && writeLimiters != null) {
+            writeLimitersByTable = dynamap.getWriteLimitersByTable(writeLimiters);
+        }
+        return writeLimitersByTable;
+    }
+
+    private static class Batch {
+        private final Map<WriteKey, PendingWrite> writes;
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+        private final Set<CompletableFuture<Void>> previousBatches = new HashSet<>();
+
+        Batch(Map<WriteKey, PendingWrite> writes) {
+            this.writes = writes;
+        }
+    }
+
+    private static class PendingWrite {
+        private Object request;
+        private final CompletableFuture<Void> future;
+
+        PendingWrite(Object request, CompletableFuture<Void> future) {
+            this.request = request;
+            this.future = future;
+        }
+    }
+
+    private static class WriteKey {
+        private final String tableName;
+        private final String hashKeyValue;
+        private final String rangeKeyValue;
+
+        WriteKey(String tableName, String hashKeyValue, Object rangeKeyValue) {
+            this.tableName = tableName;
+            this.hashKeyValue = hashKeyValue;
+            // range keys are compared as strings so that, for example, an Integer matches a Long
+            this.rangeKeyValue = rangeKeyValue == null ? null : rangeKeyValue.toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            WriteKey writeKey = (WriteKey) o;
+            return Objects.equals(tableName, writeKey.tableName) &&
+                    Objects.equals(hashKeyValue, writeKey.hashKeyValue) &&
+                    Objects.equals(rangeKeyValue, writeKey.rangeKeyValue);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tableName, hashKeyValue, rangeKeyValue);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import java.util.Collection;
+
+/**
+ * Contains the parameters of a bulk update, which applies many updates with individual update requests.
+ */
+public class BulkUpdateParams {
+
+    private Collection<UpdateParams> updateParams;
+    private DynamoRateLimiter writeLimiter;
+    private int maxConcurrency = 1;
+
+    public BulkUpdateParams(Collection<UpdateParams> updateParams) {
+        this.updateParams = updateParams;
+    }
+
+    /**
+     * @param writeLimiter the rate limiter shared by all the updates that do not have their own write limiter
+     * @return this object with new state
+     */
+    public BulkUpdateParams withWriteLimiter(DynamoRateLimiter writeLimiter) {
+        this.writeLimiter = writeLimiter;
+        return this;
+    }
+
+    /**
+     * By default the updates are sent one after another on the calling thread. Setting a value greater than one sends
+     * them on the Dynamap executor with at most this many in flight.
+     *
+     * @param maxConcurrency the maximum number of update requests in flight
+     * @return this object with new state
+     */
+    public BulkUpdateParams withMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    public Collection<UpdateParams> getUpdateParams() {
+        return updateParams;
+    }
+
+    public DynamoRateLimiter getWriteLimiter() {
+        return writeLimiter;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a bulk update: the result of each update that succeeded and the exception of each one that failed.
+ */
+public class BulkUpdateResult {
+
+    private final List<Success> successes;
+    private final List<Failure> failures;
+
+    BulkUpdateResult(List<Success> successes, List<Failure> failures) {
+        this.successes = Collections.unmodifiableList(successes);
+        this.failures = Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * @return the updates that succeeded, in the order of the requests
+     */
+    public List<Success> getSuccesses() {
+        return successes;
+    }
+
+    /**
+     * @return the updates that failed, in the order of the requests
+     */
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    public static class Success {
+        private final int index;
+        private final UpdateParams updateParams;
+        private final UpdateResult updateResult;
+
+        Success(int index, UpdateParams updateParams, UpdateResult updateResult) {
+            this.index = index;
+            this.updateParams = updateParams;
+            this.updateResult = updateResult;
+        }
+
+        /**
+         * @return the position of the update in the request
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public UpdateParams getUpdateParams() {
+            return updateParams;
+        }
+
+        public <R extends UpdateResult> R getUpdateResult() {
+            return (R) updateResult;
+        }
+    }
+
+    public static class Failure {
+        private final int index;
+        private final UpdateParams updateParams;
+        private final RuntimeException exception;
+
+        Failure(int index, UpdateParams updateParams, RuntimeException exception) {
+            this.index = index;
+            this.updateParams = updateParams;
+            this.exception = exception;
+        }
+
+        /**
+         * @return the position of the update in the request
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public UpdateParams getUpdateParams() {
+            return updateParams;
+        }
+
+        public RuntimeException getException() {
+            return exception;
+        }
+
+        /**
+         * @return true if the update was not applied because its condition, such as its optimistic locking revision, did not match
+         */
+        public boolean isConditionalCheckFailure() {
+            return exception instanceof ConditionalCheckFailedException;
+        }
+    }
+}
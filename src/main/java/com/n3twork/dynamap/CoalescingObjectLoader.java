@@ -0,0 +1,264 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Combines the single object loads made by many threads into batch gets.
+ * <p>
+ * Keys requested within a short window are collected and loaded with one call to
+ * {@link Dynamap#batchGetObject(BatchGetObjectParams)}. A batch is sent as soon as it reaches the maximum batch size,
+ * without waiting for the window to end. Identical requests made while a batch is being collected are only loaded
+ * once and their futures complete with the same object, so callers must not modify the objects returned.
+ * <p>
+ * A loader is thread safe and is usually created once and shared. It must be closed when no longer needed.
+ */
+public class CoalescingObjectLoader implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingObjectLoader.class);
+
+    private static final int MAX_BATCH_GET_SIZE = 100;
+
+    private final Dynamap dynamap;
+    private final ScheduledExecutorService scheduler;
+    private long windowMillis = 5;
+    private int maxBatchSize = MAX_BATCH_GET_SIZE;
+    private Map<Class, ReadWriteRateLimiterPair> rateLimiters;
+
+    private final Object lock = new Object();
+    private Map<LoadKey, CompletableFuture<DynamapRecordBean>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean closed;
+
+    public CoalescingObjectLoader(Dynamap dynamap) {
+        if (null == dynamap) {
+            throw new NullPointerException();
+        }
+        this.dynamap = dynamap;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("dynamap-loader-%d").setDaemon(true).build());
+    }
+
+    /**
+     * @param windowMillis how long to collect keys, starting from the first key of a batch
+     * @return this object with new state
+     */
+    public CoalescingObjectLoader withWindowMillis(long windowMillis) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("windowMillis cannot be negative");
+        }
+        this.windowMillis = windowMillis;
+        return this;
+    }
+
+    /**
+     * @param maxBatchSize the number of distinct keys that causes a batch to be sent straight away, at most 100
+     * @return this object with new state
+     */
+    public CoalescingObjectLoader withMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1 || maxBatchSize > MAX_BATCH_GET_SIZE) {
+            throw new IllegalArgumentException("maxBatchSize must be between 1 and " + MAX_BATCH_GET_SIZE);
+        }
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /**
+     * @param rateLimiters the rate limiters used by the batch gets for each type
+     * @return this object with new state
+     */
+    public CoalescingObjectLoader withRateLimiters(Map<Class, ReadWriteRateLimiterPair> rateLimiters) {
+        this.rateLimiters = rateLimiters;
+        return this;
+    }
+
+    /**
+     * Adds a request to the current batch.
+     *
+     * @return a future completed with the object, or with null if it does not exist
+     */
+    public <T extends DynamapRecordBean> CompletableFuture<T> load(GetObjectRequest<T> getObjectRequest) {
+        LoadKey key = new LoadKey(getObjectRequest);
+        Map<LoadKey, CompletableFuture<DynamapRecordBean>> batch = null;
+        CompletableFuture<DynamapRecordBean> future;
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Loader is closed");
+            }
+            future = pending.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                pending.put(key, future);
+                if (pending.size() >= maxBatchSize) {
+                    batch = takePending();
+                } else if (pending.size() == 1) {
+                    scheduledFlush = scheduler.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+        return (CompletableFuture<T>) future;
+    }
+
+    /**
+     * Loads an object, waiting for the batch it is part of.
+     *
+     * @return the object, or null if it does not exist
+     */
+    public <T extends DynamapRecordBean> T getObject(GetObjectRequest<T> getObjectRequest) {
+        try {
+            return load(getObjectRequest).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Sends the batch being collected without waiting for the end of the window.
+     */
+    public void flush() {
+        Map<LoadKey, CompletableFuture<DynamapRecordBean>> batch;
+        synchronized (lock) {
+            batch = takePending();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    /**
+     * Sends the batch being collected and stops accepting requests.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+        }
+        flush();
+        scheduler.shutdown();
+    }
+
+    private Map<LoadKey, CompletableFuture<DynamapRecordBean>> takePending() {
+        Map<LoadKey, CompletableFuture<DynamapRecordBean>> batch = pending;
+        pending = new LinkedHashMap<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(Map<LoadKey, CompletableFuture<DynamapRecordBean>> batch) {
+        try {
+            dynamap.getExecutorService().execute(() -> loadBatch(batch));
+        } catch (RejectedExecutionException e) {
+            batch.values().forEach(f -> f.completeExceptionally(e));
+        }
+    }
+
+    private void loadBatch(Map<LoadKey, CompletableFuture<DynamapRecordBean>> batch) {
+        // a batch get uses a single suffix, read consistency and projection for each type, so requests that differ are loaded separately
+        Map<List<Object>, List<LoadKey>> groups = new LinkedHashMap<>();
+        for (LoadKey key : batch.keySet()) {
+            groups.computeIfAbsent(Arrays.asList(key.suffix, key.consistentRead, key.projection), g -> new ArrayList<>()).add(key);
+        }
+        for (List<LoadKey> keys : groups.values()) {
+            try {
+                List<GetObjectRequest> getObjectRequests = new ArrayList<>(keys.size());
+                for (LoadKey key : keys) {
+                    getObjectRequests.add(key.getObjectRequest);
+                }
+                logger.debug("Loading coalesced batch of size: {}", getObjectRequests.size());
+                Map<Class, List<Object>> results = dynamap.batchGetObject(new BatchGetObjectParams()
+                        .withGetObjectRequests(getObjectRequests)
+                        .withRateLimiters(rateLimiters));
+
+                Map<List<Object>, DynamapRecordBean> resultsByKey = new HashMap<>();
+                for (Map.Entry<Class, List<Object>> entry : results.entrySet()) {
+                    for (Object result : entry.getValue()) {
+                        DynamapRecordBean bean = (DynamapRecordBean) result;
+                        resultsByKey.put(Arrays.asList(entry.getKey(), bean.getHashKeyValue(), rangeKey(bean.getRangeKeyValue())), bean);
+                    }
+                }
+                for (LoadKey key : keys) {
+                    batch.get(key).complete(resultsByKey.get(Arrays.asList(key.resultClass, key.hashKeyValue, key.rangeKeyValue)));
+                }
+            } catch (RuntimeException | Error e) {
+                for (LoadKey key : keys) {
+                    batch.get(key).completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    // range keys are compared as strings so that, for example, an Integer request matches a Long result
+    private static String rangeKey(Object rangeKeyValue) {
+        return rangeKeyValue == null ? null : rangeKeyValue.toString();
+    }
+
+    private static class LoadKey {
+        private final GetObjectRequest getObjectRequest;
+        private final Class resultClass;
+        private final String suffix;
+        private final boolean consistentRead;
+        private final String hashKeyValue;
+        private final String rangeKeyValue;
+        private final List<String> projection;
+
+        LoadKey(GetObjectRequest getObjectRequest) {
+            this.getObjectRequest = getObjectRequest;
+            this.resultClass = getObjectRequest.getResultClass();
+            this.suffix = getObjectRequest.getSuffix();
+            this.consistentRead = getObjectRequest.isConsistentRead();
+            this.hashKeyValue = getObjectRequest.getHashKeyValue();
+            this.rangeKeyValue = rangeKey(getObjectRequest.getRangeKeyValue());
+            this.projection = getObjectRequest.getProjection();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            LoadKey loadKey = (LoadKey) o;
+            return consistentRead == loadKey.consistentRead &&
+                    Objects.equals(resultClass, loadKey.resultClass) &&
+                    Objects.equals(suffix, loadKey.suffix) &&
+                    Objects.equals(hashKeyValue, loadKey.hashKeyValue) &&
+                    Objects.equals(rangeKeyValue, loadKey.rangeKeyValue) &&
+                    Objects.equals(projection, loadKey.projection);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(resultClass, suffix, consistentRead, hashKeyValue, rangeKeyValue, projection);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Combines the updates of the same item made by many threads into single UpdateItem requests.
+ * <p>
+ * Updates of an item made within a short window are combined using {@link DynamoExpressionBuilder#coalesce} and sent
+ * as one update, and the futures of all of them complete with its result. Updates of different items are sent
+ * separately. Updates are only combined if they use the same suffix and return value, and updates that cannot be
+ * combined, such as two updates that replace the same list, are sent one after the other. Updates of an item are
+ * always sent in the order they were made.
+ * <p>
+ * The conditions of combined updates are all evaluated against the item as it was before the combined update, and if
+ * any condition fails the update fails for every caller. Two updates that both check the revision for optimistic
+ * locking are never combined, so the later one fails its revision check as it would if it were sent on its own.
+ * Updates with optimistic locking disabled can be combined with each other and with one optimistically locked update. As the result is that of the combined update, {@link DynamapReturnValue#ALL_NEW} is usually the most useful
+ * return value.
+ * <p>
+ * An updater is thread safe and is usually created once and shared. It must be closed when no longer needed.
+ */
+public class CoalescingUpdater implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingUpdater.class);
+
+    private final Dynamap dynamap;
+    private final ScheduledExecutorService scheduler;
+    private long windowMillis = 5;
+    private int maxUpdatesPerItem = 25;
+
+    private final Object lock = new Object();
+    private Map<UpdateKey, Group> pending = new LinkedHashMap<>();
+    private final Map<UpdateKey, Group> inFlight = new HashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean closed;
+
+    public CoalescingUpdater(Dynamap dynamap) {
+        if (null == dynamap) {
+            throw new NullPointerException();
+        }
+        this.dynamap = dynamap;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("dynamap-updater-%d").setDaemon(true).build());
+    }
+
+    /**
+     * @param windowMillis how long to collect updates, starting from the first update after the previous flush
+     * @return this object with new state
+     */
+    public CoalescingUpdater withWindowMillis(long windowMillis) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("windowMillis cannot be negative");
+        }
+        this.windowMillis = windowMillis;
+        return this;
+    }
+
+    /**
+     * @param maxUpdatesPerItem the number of updates of one item that causes them to be sent straight away
+     * @return this object with new state
+     */
+    public CoalescingUpdater withMaxUpdatesPerItem(int maxUpdatesPerItem) {
+        if (maxUpdatesPerItem < 1) {
+            throw new IllegalArgumentException("maxUpdatesPerItem must be positive");
+        }
+        this.maxUpdatesPerItem = maxUpdatesPerItem;
+        return this;
+    }
+
+    /**
+     * Adds an update to those being collected for its item. The write limiter of the first update of a combined
+     * update is used.
+     *
+     * @return a future completed with the result of the combined update
+     */
+    public <T extends DynamapPersisted<? extends RecordUpdates<T>>, R extends UpdateResult> CompletableFuture<R> update(UpdateParams<T> updateParams) {
+        UpdateKey key = new UpdateKey(updateParams);
+        PendingUpdate pendingUpdate = new PendingUpdate(updateParams);
+        Group group = null;
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Updater is closed");
+            }
+            List<PendingUpdate> updates = pending.computeIfAbsent(key, k -> new Group(key)).updates;
+            updates.add(pendingUpdate);
+            if (updates.size() >= maxUpdatesPerItem) {
+                group = take(key);
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (group != null) {
+            dispatch(group);
+        }
+        return (CompletableFuture<R>) pendingUpdate.future;
+    }
+
+    /**
+     * Sends the updates being collected without waiting for the end of the window.
+     */
+    public void flush() {
+        List<Group> groups = new ArrayList<>();
+        synchronized (lock) {
+            for (UpdateKey key : new ArrayList<>(pending.keySet())) {
+                groups.add(take(key));
+            }
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+        }
+        groups.forEach(this::dispatch);
+    }
+
+    /**
+     * Sends the updates being collected and stops accepting updates.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+        }
+        flush();
+        scheduler.shutdown();
+    }
+
+    private Group take(UpdateKey key) {
+        Group group = pending.remove(key);
+        Group previous = inFlight.put(key, group);
+        if (previous != null) {
+            group.previous = previous.sent;
+        }
+        return group;
+    }
+
+    // updates of an item still in flight are sent after it, so that the updates of an item are applied in order
+    private void dispatch(Group group) {
+        try {
+            if (group.previous == null) {
+                dynamap.getExecutorService().execute(() -> send(group));
+            } else {
+                group.previous.thenRunAsync(() -> send(group), dynamap.getExecutorService());
+            }
+        } catch (RejectedExecutionException e) {
+            group.updates.forEach(u -> u.future.completeExceptionally(e));
+            complete(group);
+        }
+    }
+
+    private void send(Group group) {
+        try {
+            List<PendingUpdate> combined = new ArrayList<>();
+            DynamoExpressionBuilder expressionBuilder = null;
+            for (PendingUpdate pendingUpdate : group.updates) {
+                DynamoExpressionBuilder updateExpressionBuilder;
+                try {
+                    updateExpressionBuilder = dynamap.processUpdateExpression(pendingUpdate.updateParams.getUpdates());
+                } catch (RuntimeException | Error e) {
+                    pendingUpdate.future.completeExceptionally(e);
+                    continue;
+                }
+                if (expressionBuilder != null && !expressionBuilder.coalesce(updateExpressionBuilder)) {
+                    sendCombined(combined, expressionBuilder);
+                    combined.clear();
+                    expressionBuilder = null;
+                }
+                if (expressionBuilder == null) {
+                    expressionBuilder = updateExpressionBuilder;
+                }
+                combined.add(pendingUpdate);
+            }
+            if (!combined.isEmpty()) {
+                sendCombined(combined, expressionBuilder);
+            }
+        } finally {
+            complete(group);
+        }
+    }
+
+    private void sendCombined(List<PendingUpdate> combined, DynamoExpressionBuilder expressionBuilder) {
+        try {
+            logger.debug("Sending {} coalesced updates", combined.size());
+            UpdateParams first = combined.get(0).updateParams;
+            UpdateParams last = combined.get(combined.size() - 1).updateParams;
+            UpdateResult updateResult = dynamap.updateItem(last, first.getWriteLimiter(), expressionBuilder);
+            combined.forEach(u -> u.future.complete(updateResult));
+        } catch (RuntimeException | Error e) {
+            combined.forEach(u -> u.future.completeExceptionally(e));
+        }
+    }
+
+    // the futures of the updates hold the outcome, the group future only signals that the group is no longer in flight
+    private void complete(Group group) {
+        synchronized (lock) {
+            inFlight.remove(group.key, group);
+        }
+        group.sent.complete(null);
+    }
+
+    private static class PendingUpdate {
+        private final UpdateParams updateParams;
+        private final CompletableFuture<UpdateResult> future = new CompletableFuture<>();
+
+        PendingUpdate(UpdateParams updateParams) {
+            this.updateParams = updateParams;
+        }
+    }
+
+    private static class Group {
+        private final UpdateKey key;
+        private final List<PendingUpdate> updates = new ArrayList<>();
+        private final CompletableFuture<Void> sent = new CompletableFuture<>();
+        private CompletableFuture<Void> previous;
+
+        Group(UpdateKey key) {
+            this.key = key;
+        }
+    }
+
+    private static class UpdateKey {
+        private final String tableName;
+        private final String suffix;
+        private final String hashKeyValue;
+        private final String rangeKeyValue;
+        private final DynamapReturnValue returnValue;
+
+        UpdateKey(UpdateParams updateParams) {
+            RecordUpdates updates = updateParams.getUpdates();
+            this.tableName = updates.getTableName();
+            this.suffix = updateParams.getSuffix();
+            this.hashKeyValue = updates.getHashKeyValue();
+            this.rangeKeyValue = updates.getRangeKeyValue() == null ? null : updates.getRangeKeyValue().toString();
+            this.returnValue = updateParams.getDynamapReturnValue();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            UpdateKey updateKey = (UpdateKey) o;
+            return Objects.equals(tableName, updateKey.tableName) &&
+                    Objects.equals(suffix, updateKey.suffix) &&
+                    Objects.equals(hashKeyValue, updateKey.hashKeyValue) &&
+                    Objects.equals(rangeKeyValue, updateKey.rangeKeyValue) &&
+                    returnValue == updateKey.returnValue;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tableName, suffix, hashKeyValue, rangeKeyValue, returnValue);
+        }
+    }
+}
@@ -93,6 +93,8 @@ public class CodeGenerator {
         Template updateResultInterfaceTemplate = cfg.getTemplate("updateResultInterface.ftl");
         Template updateResultBeanTemplate = cfg.getTemplate("updateResultBean.ftl");
         Template updatesUpdateResultTemplate = cfg.getTemplate("updatesUpdateResult.ftl");
+        Template decoderTemplate = cfg.getTemplate("decoder.ftl");
+        Template encoderTemplate = cfg.getTemplate("encoder.ftl");
         Optional<Type> tableTypeOptional = tableDefinition.getTypes().stream().filter(t -> t.getName().equals(tableDefinition.getType())).findFirst();
         if (!tableTypeOptional.isPresent()) {
             throw new RuntimeException("Cannot find type definition for " + tableDefinition.getType());
@@ -129,6 +131,8 @@ public class CodeGenerator {
             String updateResultName = type.getName() + "UpdateResult";
             String updateResultBeanName = type.getName() + "UpdateResultBean";
             String updatesUpdateResultName = updatesName + "UpdateResult";
+            String decoderName = type.getName() + "Decoder";
+            String encoderName = type.getName() + "Encoder";
             typeSequence++;
             model.put("typeSequence", typeSequence);
             model.put("tableDefinition", tableDefinition);
@@ -138,6 +142,8 @@ public class CodeGenerator {
             model.put("type", type);
             model.put("beanName", beanName);
             model.put("updatesName", updatesName);
+            model.put("decoderName", decoderName);
+            model.put("encoderName", encoderName);
             model.put("tableName", tableDefinition.getTableName());
             model.put("rootType", tableDefinition.getType());
             model.put("currentState", "current" + type.getName());
@@ -179,6 +185,12 @@ public class CodeGenerator {
             try (Writer writer = new OutputStreamWriter(new FileOutputStream(outputPath + "/" + packageDir + "/" + updatesUpdateResultName + ".java"))) {
                 updatesUpdateResultTemplate.process(model, writer);
             }
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(outputPath + "/" + packageDir + "/" + decoderName + ".java"))) {
+                decoderTemplate.process(model, writer);
+            }
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(outputPath + "/" + packageDir + "/" + encoderName + ".java"))) {
+                encoderTemplate.process(model, writer);
+            }
 
         }
     }
@@ -0,0 +1,43 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import java.util.function.Function;
+
+/**
+ * The stored value of a compressed collection field of a generated bean, decoded when the collection is first read.
+ * Until then a bean that is saved again writes the stored value back as it is.
+ */
+public final class CompressedCollection<T> {
+
+    private final byte[] bytes;
+    private final Function<byte[], T> decoder;
+
+    public CompressedCollection(byte[] bytes, Function<byte[], T> decoder) {
+        this.bytes = bytes;
+        this.decoder = decoder;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public T decode() {
+        return decoder.apply(bytes);
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A compression method for the collections of fields using compressCollection. The compressed data starts with the
+ * tag of the codec, which is used to find the codec that reads it, so that the codec of a field can be changed
+ * without rewriting existing items.
+ * <p>
+ * Codecs other than those of {@link CompressionCodecs} are registered with {@link CompressionCodecs#register} and must
+ * be thread safe.
+ */
+public interface CompressionCodec {
+
+    /**
+     * @return the first byte of the data written by this codec
+     */
+    byte getTag();
+
+    /**
+     * Writes the tag to a stream and returns a stream compressing what is written to it. Closing the returned stream
+     * finishes the compressed data.
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+
+    /**
+     * @param in the compressed data, starting with the tag
+     * @return a stream reading the decompressed data
+     */
+    InputStream decompress(InputStream in) throws IOException;
+
+}
@@ -0,0 +1,282 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.*;
+
+/**
+ * The compression codecs that can be named in the compressCollection attribute of a field, and the serialization of
+ * collections with them.
+ * <p>
+ * The built in codecs are {@code gzip}, raw deflate at the default level ({@code deflate}) or at a given level
+ * ({@code deflate:<level>}, for example {@code deflate:9}). Other codecs, such as deflate with a preset dictionary,
+ * are registered under a name before any item using them is read or written:
+ * <pre>
+ * CompressionCodecs.register("inventory", CompressionCodecs.deflate(Deflater.BEST_COMPRESSION, dictionary));
+ * </pre>
+ * The gzip codec writes the same data as previous versions of Dynamap, whose first byte, the gzip magic, is its tag.
+ */
+public class CompressionCodecs {
+
+    public static final CompressionCodec GZIP = new GzipCodec();
+
+    private static final String DEFLATE = "deflate";
+    private static final byte DEFLATE_TAG = 1;
+    private static final byte DICTIONARY_TAG = 2;
+
+    private static final Map<String, CompressionCodec> codecsByName = new ConcurrentHashMap<>();
+    private static final Map<Byte, CompressionCodec> codecsByTag = new ConcurrentHashMap<>();
+    private static final Map<Integer, byte[]> dictionaries = new ConcurrentHashMap<>();
+
+    static {
+        register("gzip", GZIP);
+        register(DEFLATE, deflate(Deflater.DEFAULT_COMPRESSION));
+    }
+
+    private CompressionCodecs() {
+    }
+
+    /**
+     * @param level the Deflater compression level, from 0 to 9, or -1 for the default
+     * @return a codec writing raw deflate data
+     */
+    public static CompressionCodec deflate(int level) {
+        return new DeflateCodec(checkLevel(level));
+    }
+
+    /**
+     * Creates a codec writing raw deflate data with a preset dictionary, which improves the compression of small
+     * collections made of the same keys and values as the dictionary. The data refers to the dictionary by its
+     * Adler-32 checksum, so the dictionary must not change once items are written with it, and creating the codec
+     * makes the dictionary available to reads.
+     *
+     * @param level      the Deflater compression level, from 0 to 9, or -1 for the default
+     * @param dictionary the dictionary, usually the JSON of typical collections with the most common strings last
+     */
+    public static CompressionCodec deflate(int level, byte[] dictionary) {
+        DictionaryCodec codec = new DictionaryCodec(checkLevel(level), dictionary.clone());
+        byte[] existing = dictionaries.putIfAbsent(codec.dictionaryId, codec.dictionary);
+        if (existing != null && !Arrays.equals(existing, codec.dictionary)) {
+            throw new IllegalArgumentException("Another dictionary has the same id " + codec.dictionaryId);
+        }
+        codecsByTag.putIfAbsent(DICTIONARY_TAG, codec);
+        return codec;
+    }
+
+    /**
+     * Registers a codec under the name used in the compressCollection attribute of fields.
+     *
+     * @throws IllegalArgumentException if the tag of the codec is used by a codec of another class
+     */
+    public static void register(String name, CompressionCodec codec) {
+        CompressionCodec existing = codecsByTag.putIfAbsent(codec.getTag(), codec);
+        if (existing != null && existing.getClass() != codec.getClass()) {
+            throw new IllegalArgumentException("The tag " + codec.getTag() + " of codec " + name + " is already used by " + existing.getClass().getName());
+        }
+        codecsByName.put(name, codec);
+    }
+
+    /**
+     * @return the codec with a name used in the compressCollection attribute of a field
+     * @throws IllegalArgumentException if no such codec is registered
+     */
+    public static CompressionCodec forName(String name) {
+        CompressionCodec codec = codecsByName.get(name);
+        if (codec == null && name.startsWith(DEFLATE + ":")) {
+            int level;
+            try {
+                level = Integer.parseInt(name.substring(DEFLATE.length() + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid deflate level in " + name);
+            }
+            codec = codecsByName.computeIfAbsent(name, n -> deflate(level));
+        }
+        if (codec == null) {
+            throw new IllegalArgumentException("Unknown compression codec " + name);
+        }
+        return codec;
+    }
+
+    /**
+     * Writes the JSON of an object straight into a codec.
+     */
+    public static byte[] serialize(Object data, ObjectMapper objectMapper, CompressionCodec codec) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (OutputStream os = codec.compress(baos)) {
+            objectMapper.writeValue(os, data);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Reads the JSON of an object straight from the codec identified by the tag of the data.
+     */
+    public static <T> T deserialize(byte[] data, ObjectMapper objectMapper, Class<T> resultClass) {
+        if (data.length == 0) {
+            throw new IllegalArgumentException("Compressed data is empty");
+        }
+        CompressionCodec codec = codecsByTag.get(data[0]);
+        if (codec == null) {
+            throw new IllegalArgumentException("No compression codec has the tag " + data[0]);
+        }
+        try (InputStream is = codec.decompress(new ByteArrayInputStream(data))) {
+            return objectMapper.readValue(is, resultClass);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static int checkLevel(int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid deflate level " + level);
+        }
+        return level;
+    }
+
+    private static OutputStream deflaterStream(OutputStream out, int level, byte[] dictionary) {
+        Deflater deflater = new Deflater(level, true);
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary);
+        }
+        return new DeflaterOutputStream(out, deflater) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    private static InputStream inflaterStream(InputStream in, byte[] dictionary) {
+        Inflater inflater = new Inflater(true);
+        if (dictionary != null) {
+            inflater.setDictionary(dictionary);
+        }
+        return new InflaterInputStream(in, inflater) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    private static void readTag(InputStream in, byte tag) throws IOException {
+        if (in.read() != tag) {
+            throw new IOException("Compressed data does not start with tag " + tag);
+        }
+    }
+
+    private static class GzipCodec implements CompressionCodec {
+
+        @Override
+        public byte getTag() {
+            return (byte) GZIPInputStream.GZIP_MAGIC;
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out);
+        }
+
+        @Override
+        public InputStream decompress(InputStream in) throws IOException {
+            return new GZIPInputStream(in);
+        }
+    }
+
+    private static class DeflateCodec implements CompressionCodec {
+
+        private final int level;
+
+        DeflateCodec(int level) {
+            this.level = level;
+        }
+
+        @Override
+        public byte getTag() {
+            return DEFLATE_TAG;
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out) throws IOException {
+            out.write(DEFLATE_TAG);
+            return deflaterStream(out, level, null);
+        }
+
+        @Override
+        public InputStream decompress(InputStream in) throws IOException {
+            readTag(in, DEFLATE_TAG);
+            return inflaterStream(in, null);
+        }
+    }
+
+    // the tag is followed by the id of the dictionary, which reads use to find the dictionary the data was written with
+    private static class DictionaryCodec implements CompressionCodec {
+
+        private final int level;
+        private final byte[] dictionary;
+        private final int dictionaryId;
+
+        DictionaryCodec(int level, byte[] dictionary) {
+            this.level = level;
+            this.dictionary = dictionary;
+            Adler32 adler32 = new Adler32();
+            adler32.update(dictionary);
+            this.dictionaryId = (int) adler32.getValue();
+        }
+
+        @Override
+        public byte getTag() {
+            return DICTIONARY_TAG;
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out) throws IOException {
+            DataOutputStream dataOut = new DataOutputStream(out);
+            dataOut.writeByte(DICTIONARY_TAG);
+            dataOut.writeInt(dictionaryId);
+            return deflaterStream(out, level, dictionary);
+        }
+
+        @Override
+        public InputStream decompress(InputStream in) throws IOException {
+            readTag(in, DICTIONARY_TAG);
+            int id = new DataInputStream(in).readInt();
+            byte[] dictionary = dictionaries.get(id);
+            if (dictionary == null) {
+                throw new IOException("No dictionary with id " + id + " has been registered");
+            }
+            return inflaterStream(in, dictionary);
+        }
+    }
+
+}
@@ -0,0 +1,203 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.amazonaws.services.dynamodbv2.document.ItemUtils;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Converts attribute values for the generated {@link BeanDecoder}s. Each method accepts either a low level
+ * AttributeValue or a value of an Item, and returns null for a missing or null value.
+ */
+public class DecodeUtil {
+
+    private DecodeUtil() {
+    }
+
+    public static String asString(Object value) {
+        if (value instanceof AttributeValue) {
+            AttributeValue attributeValue = (AttributeValue) value;
+            return attributeValue.getS() != null ? attributeValue.getS() : attributeValue.getN();
+        }
+        return value == null ? null : value.toString();
+    }
+
+    public static BigDecimal asNumber(Object value) {
+        if (value instanceof AttributeValue) {
+            String number = ((AttributeValue) value).getN();
+            return number == null ? null : new BigDecimal(number);
+        }
+        if (value == null || value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        return new BigDecimal(value.toString());
+    }
+
+    public static Integer asInteger(Object value) {
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        BigDecimal number = asNumber(value);
+        return number == null ? null : number.intValue();
+    }
+
+    public static Long asLong(Object value) {
+        if (value instanceof Long) {
+            return (Long) value;
+        }
+        BigDecimal number = asNumber(value);
+        return number == null ? null : number.longValue();
+    }
+
+    public static Float asFloat(Object value) {
+        BigDecimal number = asNumber(value);
+        return number == null ? null : number.floatValue();
+    }
+
+    public static Double asDouble(Object value) {
+        BigDecimal number = asNumber(value);
+        return number == null ? null : number.doubleValue();
+    }
+
+    public static Boolean asBoolean(Object value) {
+        if (value instanceof AttributeValue) {
+            return ((AttributeValue) value).getBOOL();
+        }
+        return (Boolean) value;
+    }
+
+    public static byte[] asBytes(Object value) {
+        if (value instanceof AttributeValue) {
+            value = ((AttributeValue) value).getB();
+        }
+        if (value instanceof ByteBuffer) {
+            ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        }
+        return (byte[]) value;
+    }
+
+    public static Map<String, ?> asMap(Object value) {
+        if (value instanceof AttributeValue) {
+            return ((AttributeValue) value).getM();
+        }
+        return (Map<String, ?>) value;
+    }
+
+    public static <E> List<E> toList(Object value, Function<Object, E> elementDecoder) {
+        Collection<?> elements = asCollection(value);
+        if (elements == null) {
+            return null;
+        }
+        List<E> list = new ArrayList<>(elements.size());
+        for (Object element : elements) {
+            list.add(elementDecoder.apply(element));
+        }
+        return list;
+    }
+
+    public static <E> Set<E> toSet(Object value, Function<Object, E> elementDecoder) {
+        Collection<?> elements = asCollection(value);
+        if (elements == null) {
+            return null;
+        }
+        Set<E> set = new HashSet<>();
+        for (Object element : elements) {
+            set.add(elementDecoder.apply(element));
+        }
+        return set;
+    }
+
+    public static <E> Map<String, E> toMap(Object value, Function<Object, E> elementDecoder) {
+        Map<String, ?> values = asMap(value);
+        if (values == null) {
+            return null;
+        }
+        Map<String, E> map = new LinkedHashMap<>();
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            map.put(entry.getKey(), elementDecoder.apply(entry.getValue()));
+        }
+        return map;
+    }
+
+    /**
+     * Converts a collection persisted as a list back to a map keyed by the given attribute of its elements.
+     */
+    public static <E> Map<String, E> toMapFromList(Object value, String idKey, Function<Object, E> elementDecoder) {
+        Collection<?> elements = asCollection(value);
+        if (elements == null) {
+            return null;
+        }
+        Map<String, E> map = new LinkedHashMap<>();
+        for (Object element : elements) {
+            map.put(asString(asMap(element).get(idKey)), elementDecoder.apply(element));
+        }
+        return map;
+    }
+
+    /**
+     * @return the stored value of a compressed collection, decoded later with the given decoder
+     */
+    public static <T> CompressedCollection<T> compressed(Object value, Function<byte[], T> decoder) {
+        byte[] bytes = asBytes(value);
+        return bytes == null ? null : new CompressedCollection<>(bytes, decoder);
+    }
+
+    /**
+     * @return the value of a collection compressed with any codec, with the maps, lists and scalars read from its JSON
+     */
+    public static Object decompress(Object value, ObjectMapper objectMapper) {
+        byte[] bytes = asBytes(value);
+        return bytes == null ? null : CompressionCodecs.deserialize(bytes, objectMapper, Object.class);
+    }
+
+    /**
+     * Converts a value with the ObjectMapper, used for custom types.
+     */
+    public static <E> E convert(Object value, ObjectMapper objectMapper, TypeReference<E> type) {
+        if (value instanceof AttributeValue) {
+            value = ItemUtils.toSimpleValue((AttributeValue) value);
+        }
+        return value == null ? null : objectMapper.convertValue(value, type);
+    }
+
+    private static Collection<?> asCollection(Object value) {
+        if (value instanceof AttributeValue) {
+            AttributeValue attributeValue = (AttributeValue) value;
+            if (attributeValue.getL() != null) {
+                return attributeValue.getL();
+            }
+            if (attributeValue.getSS() != null) {
+                return attributeValue.getSS();
+            }
+            if (attributeValue.getNS() != null) {
+                return attributeValue.getNS();
+            }
+            return attributeValue.getBS();
+        }
+        return (Collection<?>) value;
+    }
+}
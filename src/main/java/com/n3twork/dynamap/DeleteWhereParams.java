@@ -0,0 +1,73 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+/**
+ * Contains the parameters of a delete by query or scan.
+ */
+public class DeleteWhereParams {
+
+    private DynamoRateLimiter writeLimiter;
+    private int maxConcurrency = 1;
+    private RetryPolicy retryPolicy;
+
+    /**
+     * @param writeLimiter the rate limiter used by the batch writes that delete the items
+     * @return this object with new state
+     */
+    public DeleteWhereParams withWriteLimiter(DynamoRateLimiter writeLimiter) {
+        this.writeLimiter = writeLimiter;
+        return this;
+    }
+
+    /**
+     * By default the batches are deleted one after another on the calling thread, between reading pages. Setting a
+     * value greater than one sends them on the Dynamap executor with at most this many in flight while the following
+     * keys are read.
+     *
+     * @param maxConcurrency the maximum number of batch writes in flight
+     * @return this object with new state
+     */
+    public DeleteWhereParams withMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    /**
+     * @param retryPolicy the policy for retrying unprocessed items, instead of the one of Dynamap
+     * @return this object with new state
+     */
+    public DeleteWhereParams withRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    public DynamoRateLimiter getWriteLimiter() {
+        return writeLimiter;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+}
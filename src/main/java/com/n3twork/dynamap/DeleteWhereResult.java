@@ -0,0 +1,45 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+/**
+ * The number of items deleted by a delete by query or scan.
+ */
+public class DeleteWhereResult {
+
+    private final long deletedCount;
+    private final int batchCount;
+
+    DeleteWhereResult(long deletedCount, int batchCount) {
+        this.deletedCount = deletedCount;
+        this.batchCount = batchCount;
+    }
+
+    /**
+     * @return the number of items deleted, which are all the items returned by the query or scan
+     */
+    public long getDeletedCount() {
+        return deletedCount;
+    }
+
+    /**
+     * @return the number of batch writes used to delete the items, not counting retries of unprocessed items
+     */
+    public int getBatchCount() {
+        return batchCount;
+    }
+}
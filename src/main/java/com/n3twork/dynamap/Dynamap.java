@@ -26,16 +26,23 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.n3twork.BatchSaveParams;
 import com.n3twork.dynamap.model.Field;
 import com.n3twork.dynamap.model.TableDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class Dynamap {
@@ -52,9 +59,18 @@ public class Dynamap {
     private WriteOpFactory writeOpFactory;
     private ReadOpFactory readOpFactory;
     private DynamapBeanFactory dynamapBeanFactory;
+    private ExecutorService executorService;
+    private RetryPolicy retryPolicy = new RetryPolicy();
+    private LowLevelEngine lowLevelEngine;
 
     private static final int MAX_BATCH_SIZE = 25;
     private static final int MAX_BATCH_GET_SIZE = 100;
+    private static final long MAX_BATCH_WRITE_BYTES = 16 * 1024 * 1024;
+    private static final int PARALLEL_SCAN_BUFFER_SIZE = 1000;
+    private static final String AGGREGATE_ATTRIBUTE_NAME = "#aggregate";
+    private static final String DELETE_HASH_KEY_NAME = "#deleteHash";
+    private static final String DELETE_RANGE_KEY_NAME = "#deleteRange";
+    private static final Pattern NAME_ALIAS_PATTERN = Pattern.compile("#[A-Za-z0-9_]+");
 
     public Dynamap(AmazonDynamoDB amazonDynamoDB, SchemaRegistry schemaRegistry) {
         this.amazonDynamoDB = amazonDynamoDB;
@@ -69,7 +85,9 @@ public class Dynamap {
 
     public Dynamap withObjectMapper(ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
+        this.writeOpFactory = new WriteOpFactory(objectMapper, this.prefix, schemaRegistry);
         this.dynamapBeanFactory = new DynamapBeanFactory(schemaRegistry, this.objectMapper);
+        initLowLevelEngine();
         return this;
     }
 
@@ -77,9 +95,84 @@ public class Dynamap {
         this.prefix = prefix;
         this.writeOpFactory = new WriteOpFactory(objectMapper, this.prefix, schemaRegistry);
         this.readOpFactory = new ReadOpFactory(schemaRegistry, this.prefix);
+        initLowLevelEngine();
+        return this;
+    }
+
+    /**
+     * Sends the gets, saves, updates, deletes and queries directly with the low level client, using AttributeValue maps
+     * and the generated encoders and decoders, instead of the document API and its Items. This saves a conversion of
+     * each item on every call. Objects that must be migrated are still converted to Items for the migrations.
+     * <p>
+     * Queries that prefetch pages, scans and batch operations use the document API in either case.
+     */
+    public Dynamap withLowLevelApi(boolean lowLevelApi) {
+        this.lowLevelEngine = lowLevelApi ? newLowLevelEngine() : null;
+        return this;
+    }
+
+    private void initLowLevelEngine() {
+        if (lowLevelEngine != null) {
+            lowLevelEngine = newLowLevelEngine();
+        }
+    }
+
+    private LowLevelEngine newLowLevelEngine() {
+        return new LowLevelEngine(amazonDynamoDB, schemaRegistry, tableCache, objectMapper, prefix, readOpFactory, writeOpFactory, dynamapBeanFactory);
+    }
+
+    /**
+     * Sets the executor used for operations that send concurrent requests to DynamoDB, such as batch gets with a
+     * max concurrency greater than one. If not set, a cached pool of daemon threads is created when first needed.
+     * The executor must be able to run at least as many tasks concurrently as the largest max concurrency used.
+     */
+    public Dynamap withExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
         return this;
     }
 
+    synchronized ExecutorService getExecutorService() {
+        if (executorService == null) {
+            executorService = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("dynamap-%d").setDaemon(true).build());
+        }
+        return executorService;
+    }
+
+    /**
+     * Sets the default policy for retrying unprocessed batch keys and items and throttled transactions.
+     * Batch requests can override it.
+     */
+    public Dynamap withRetryPolicy(RetryPolicy retryPolicy) {
+        if (null == retryPolicy) {
+            throw new IllegalArgumentException();
+        }
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * Describes the tables in use again every interval, in a background daemon thread, so that rate limiters already
+     * initialized follow changes of the provisioned throughput of their tables and indexes. An interval of zero stops
+     * the refresh.
+     */
+    public Dynamap withTableDescriptionRefresh(long interval, TimeUnit unit) {
+        tableCache.setRefreshInterval(interval, unit);
+        return this;
+    }
+
+    /**
+     * Sets how long the description of a table is shared by the rate limiters initialized for it, one minute by
+     * default. A rate limiter initialized after that describes the table again and sees its current capacity.
+     */
+    public Dynamap withTableDescriptionMaxAge(long maxAge, TimeUnit unit) {
+        tableCache.setMaxAge(maxAge, unit);
+        return this;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
     public SchemaRegistry getSchemaRegistry() {
         return schemaRegistry;
     }
@@ -298,6 +391,9 @@ public class Dynamap {
     }
 
     public <T extends DynamapRecordBean> T getObject(GetObjectParams<T> getObjectParams) {
+        if (lowLevelEngine != null) {
+            return lowLevelEngine.getObject(getObjectParams);
+        }
         BatchGetObjectParams<T> batchGetObjectParams = new BatchGetObjectParams<T>()
                 .withGetObjectRequests(Arrays.asList(getObjectParams.getGetObjectRequest()))
                 .withMigrationContext(getObjectParams.getMigrationContext())
@@ -314,6 +410,57 @@ public class Dynamap {
     }
 
     public Map<Class, List<Object>> batchGetObject(BatchGetObjectParams batchGetObjectParams) {
+        Map<String, ReadWriteRateLimiterPair> rateLimitersByTable = getRateLimitersByTable(batchGetObjectParams);
+        List<List<GetObjectRequest>> partitions = Lists.partition(new ArrayList<>(batchGetObjectParams.getGetObjectRequests()), MAX_BATCH_GET_SIZE);
+        Map<Class, List<Object>> results = new HashMap<>();
+        SharedProgress progress = new SharedProgress(batchGetObjectParams.getProgressCallback());
+        if (batchGetObjectParams.getMaxConcurrency() > 1 && partitions.size() > 1) {
+            BoundedExecutor<Map<Class, List<Object>>> executor = new BoundedExecutor<>(getExecutorService(), batchGetObjectParams.getMaxConcurrency());
+            for (List<GetObjectRequest> getObjectRequestBatch : partitions) {
+                if (progress.isCancelled()) {
+                    break;
+                }
+                executor.submit(() -> progress.isCancelled() ? Collections.emptyMap()
+                        : getObjectBatch(getObjectRequestBatch, batchGetObjectParams, rateLimitersByTable, progress));
+            }
+            // merge in partition order so that results are the same as for a sequential request
+            for (Map<Class, List<Object>> batchResults : executor.awaitAll()) {
+                mergeBatchResults(results, batchResults);
+            }
+        } else {
+            for (List<GetObjectRequest> getObjectRequestBatch : partitions) {
+                if (progress.isCancelled()) {
+                    break;
+                }
+                mergeBatchResults(results, getObjectBatch(getObjectRequestBatch, batchGetObjectParams, rateLimitersByTable, progress));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Streams the results of a batch get. Unlike {@link #batchGetObject(BatchGetObjectParams)} the results are not all
+     * held in memory: each batch of up to 100 keys is requested as the iterator reaches it, with up to
+     * max concurrency batches requested ahead of the caller.
+     * The results of each batch are returned in the order of the result types, and the batches in the order of the requests.
+     */
+    public <T extends DynamapRecordBean> Iterator<T> batchGetObjectIterator(BatchGetObjectParams<T> batchGetObjectParams) {
+        Map<String, ReadWriteRateLimiterPair> rateLimitersByTable = getRateLimitersByTable(batchGetObjectParams);
+        List<List<GetObjectRequest>> partitions = Lists.partition(new ArrayList<>(batchGetObjectParams.getGetObjectRequests()), MAX_BATCH_GET_SIZE);
+        return new BatchGetIterator<>(partitions.iterator(), batchGetObjectParams, rateLimitersByTable);
+    }
+
+    /**
+     * Calls the consumer with each result of a batch get as its batch is received, without holding all the results in memory.
+     * The consumer is called from the calling thread.
+     *
+     * @see #batchGetObjectIterator(BatchGetObjectParams)
+     */
+    public <T extends DynamapRecordBean> void batchGetObject(BatchGetObjectParams<T> batchGetObjectParams, Consumer<T> consumer) {
+        batchGetObjectIterator(batchGetObjectParams).forEachRemaining(consumer);
+    }
+
+    private Map<String, ReadWriteRateLimiterPair> getRateLimitersByTable(BatchGetObjectParams batchGetObjectParams) {
         Map<String, ReadWriteRateLimiterPair> rateLimitersByTable = new HashMap<>();
         Map<Class, ReadWriteRateLimiterPair> rateLimiters = batchGetObjectParams.getRateLimiters();
         if (batchGetObjectParams.getRateLimiters() != null) {
@@ -325,70 +472,91 @@ public class Dynamap {
                 rateLimitersByTable.put(schemaRegistry.getTableDefinition(resultClass).getTableName(prefix), rateLimiterPair);
             }
         }
+        return rateLimitersByTable;
+    }
 
-        List<List<GetObjectRequest>> partitions = Lists.partition(new ArrayList<>(batchGetObjectParams.getGetObjectRequests()), MAX_BATCH_GET_SIZE);
-        Map<Class, List<Object>> results = new HashMap<>();
-        int totalProgress = 0;
-        for (List<GetObjectRequest> getObjectRequestBatch : partitions) {
+    private Map<Class, List<Object>> getObjectBatch(List<GetObjectRequest> getObjectRequestBatch, BatchGetObjectParams batchGetObjectParams,
+                                                    Map<String, ReadWriteRateLimiterPair> rateLimitersByTable, SharedProgress progress) {
+        Map<Class, ReadWriteRateLimiterPair> rateLimiters = batchGetObjectParams.getRateLimiters();
+        Map<String, GetItemInfo> queryInfos = new HashMap<>();
+
+        for (GetObjectRequest getObjectRequest : getObjectRequestBatch) {
+            TableDefinition tableDefinition = schemaRegistry.getTableDefinition(getObjectRequest.getResultClass());
+            String tableName = tableDefinition.getTableName(prefix, getObjectRequest.getSuffix());
+            TableKeysAndAttributes keysAndAttributes;
+            if (queryInfos.get(tableName) != null) {
+                keysAndAttributes = queryInfos.get(tableName).keysAndAttributes;
+            } else {
+                keysAndAttributes = new TableKeysAndAttributes(tableName)
+                        .withConsistentRead(getObjectRequest.isConsistentRead());
+            }
 
-            Map<String, GetItemInfo> queryInfos = new HashMap<>();
+            String hashKeyFieldName = tableDefinition.getHashKeyDynamoName();
+            if (getObjectRequest.getRangeKeyValue() != null) {
+                String rangeKeyFieldName = tableDefinition.getRangeKeyDynamoName();
+                keysAndAttributes.addHashAndRangePrimaryKey(hashKeyFieldName, getObjectRequest.getHashKeyValue(), rangeKeyFieldName, getObjectRequest.getRangeKeyValue());
+            } else {
+                keysAndAttributes.addHashOnlyPrimaryKey(hashKeyFieldName, getObjectRequest.getHashKeyValue());
+            }
+            GetItemInfo previous = queryInfos.get(tableName);
+            GetItemInfo getItemInfo = new GetItemInfo();
+            getItemInfo.keysAndAttributes = keysAndAttributes;
+            getItemInfo.tableDefinition = tableDefinition;
+            getItemInfo.getObjectRequest = getObjectRequest;
+            // all the keys of a table share one projection, so it is the union of the requested fields,
+            // or the whole item if any request is not projected
+            if (getObjectRequest.getProjection() != null && (previous == null || previous.projection != null)) {
+                getItemInfo.projection = previous == null ? new LinkedHashSet<>() : previous.projection;
+                getItemInfo.projection.addAll(getObjectRequest.getProjection());
+            }
+            queryInfos.put(tableName, getItemInfo);
+            getItemInfo.table = tableCache.getTable(tableName);
+        }
+        for (GetItemInfo getItemInfo : queryInfos.values()) {
+            if (getItemInfo.projection != null) {
+                Map<String, String> nameMap = new HashMap<>();
+                getItemInfo.keysAndAttributes.withProjectionExpression(ProjectionUtil.buildProjectionExpression(getItemInfo.tableDefinition, getItemInfo.projection, nameMap))
+                        .withNameMap(nameMap);
+            }
+        }
 
-            for (GetObjectRequest getObjectRequest : getObjectRequestBatch) {
-                TableDefinition tableDefinition = schemaRegistry.getTableDefinition(getObjectRequest.getResultClass());
-                String tableName = tableDefinition.getTableName(prefix, getObjectRequest.getSuffix());
-                TableKeysAndAttributes keysAndAttributes;
-                if (queryInfos.get(tableName) != null) {
-                    keysAndAttributes = queryInfos.get(tableName).keysAndAttributes;
-                } else {
-                    keysAndAttributes = new TableKeysAndAttributes(tableName)
-                            .withConsistentRead(getObjectRequest.isConsistentRead());
-                }
+        RetryPolicy batchRetryPolicy = batchGetObjectParams.getRetryPolicy() != null ? batchGetObjectParams.getRetryPolicy() : retryPolicy;
+        Multimap<String, Item> allItems = doBatchGetItem(queryInfos, rateLimitersByTable, progress, batchRetryPolicy);
+        Map<Class, List<Object>> results = new HashMap<>();
+        for (GetItemInfo getItemInfo : queryInfos.values()) {
 
-                String hashKeyFieldName = tableDefinition.getField(tableDefinition.getHashKey()).getDynamoName();
-                if (getObjectRequest.getRangeKeyValue() != null) {
-                    String rangeKeyFieldName = tableDefinition.getField(tableDefinition.getRangeKey()).getDynamoName();
-                    keysAndAttributes.addHashAndRangePrimaryKey(hashKeyFieldName, getObjectRequest.getHashKeyValue(), rangeKeyFieldName, getObjectRequest.getRangeKeyValue());
-                } else {
-                    keysAndAttributes.addHashOnlyPrimaryKey(hashKeyFieldName, getObjectRequest.getHashKeyValue());
-                }
-                GetItemInfo getItemInfo = new GetItemInfo();
-                getItemInfo.keysAndAttributes = keysAndAttributes;
-                getItemInfo.tableDefinition = tableDefinition;
-                getItemInfo.getObjectRequest = getObjectRequest;
-                queryInfos.put(tableName, getItemInfo);
-                getItemInfo.table = tableCache.getTable(tableName);
-            }
-
-            Multimap<String, Item> allItems = doBatchGetItem(queryInfos, rateLimitersByTable, totalProgress, batchGetObjectParams.getProgressCallback());
-            totalProgress += allItems.values().size();
-            for (GetItemInfo getItemInfo : queryInfos.values()) {
-
-                Collection<Item> items = allItems.get(getItemInfo.tableDefinition.getTableName(prefix, getItemInfo.getObjectRequest.getSuffix()));
-                List<Object> resultsForClass = results.get(getItemInfo.getObjectRequest.getResultClass());
-                if (resultsForClass == null) {
-                    resultsForClass = new ArrayList<>();
-                    results.put(getItemInfo.getObjectRequest.getResultClass(), resultsForClass);
-                }
-                for (Item item : items) {
-                    DynamoRateLimiter writeLimiter = null;
-                    if (rateLimiters != null) {
-                        ReadWriteRateLimiterPair pair = rateLimiters.get(getItemInfo.getObjectRequest.getResultClass());
-                        if (pair != null) {
-                            writeLimiter = pair.getWriteLimiter();
-                        }
+            Collection<Item> items = allItems.get(getItemInfo.tableDefinition.getTableName(prefix, getItemInfo.getObjectRequest.getSuffix()));
+            List<Object> resultsForClass = results.get(getItemInfo.getObjectRequest.getResultClass());
+            if (resultsForClass == null) {
+                resultsForClass = new ArrayList<>();
+                results.put(getItemInfo.getObjectRequest.getResultClass(), resultsForClass);
+            }
+            for (Item item : items) {
+                DynamoRateLimiter writeLimiter = null;
+                if (rateLimiters != null) {
+                    ReadWriteRateLimiterPair pair = rateLimiters.get(getItemInfo.getObjectRequest.getResultClass());
+                    if (pair != null) {
+                        writeLimiter = pair.getWriteLimiter();
                     }
-                    DynamapLoadService dynamapBeanLoader = new DynamapLoadService(schemaRegistry, dynamapBeanFactory, objectMapper, prefix, tableCache)
-                            .withWriteLimiter(writeLimiter)
-                            .writeBack(batchGetObjectParams.isWriteMigrationChange())
-                            .withMigrationContext(batchGetObjectParams.getMigrationContext())
-                            .withSuffix(getItemInfo.getObjectRequest.getSuffix());
-                    resultsForClass.add(dynamapBeanLoader.loadItem(item, getItemInfo.getObjectRequest.getResultClass()));
                 }
+                DynamapLoadService dynamapBeanLoader = new DynamapLoadService(schemaRegistry, dynamapBeanFactory, objectMapper, prefix, tableCache)
+                        .withWriteLimiter(writeLimiter)
+                        .skipMigration(getItemInfo.projection != null)
+                        .writeBack(batchGetObjectParams.isWriteMigrationChange())
+                        .withMigrationContext(batchGetObjectParams.getMigrationContext())
+                        .withSuffix(getItemInfo.getObjectRequest.getSuffix());
+                resultsForClass.add(dynamapBeanLoader.loadItem(item, getItemInfo.getObjectRequest.getResultClass()));
             }
         }
         return results;
     }
 
+    private void mergeBatchResults(Map<Class, List<Object>> results, Map<Class, List<Object>> batchResults) {
+        for (Map.Entry<Class, List<Object>> entry : batchResults.entrySet()) {
+            results.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).addAll(entry.getValue());
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public <T extends DynamapRecordBean> List<T> batchGetObjectSingleCollection(BatchGetObjectParams<T> batchGetObjectParams) {
         Collection<GetObjectRequest<T>> getObjectRequests = batchGetObjectParams.getGetObjectRequests();
@@ -413,6 +581,13 @@ public class Dynamap {
     }
 
     public <T extends DynamapRecordBean> QueryResult<T> queryResult(QueryRequest<T> queryRequest) {
+        if (lowLevelEngine != null && queryRequest.getPrefetchPages() == 0) {
+            return lowLevelEngine.queryResult(queryRequest);
+        }
+        return documentQueryResult(queryRequest);
+    }
+
+    private <T extends DynamapRecordBean> QueryResult<T> documentQueryResult(QueryRequest<T> queryRequest) {
         TableDefinition tableDefinition = schemaRegistry.getTableDefinition(queryRequest.getResultClass());
         Table table = tableCache.getTable(tableDefinition.getTableName(prefix, queryRequest.getSuffix()));
         QuerySpec querySpec = new QuerySpec()
@@ -428,7 +603,7 @@ public class Dynamap {
                 .withExclusiveStartKey(queryRequest.getExclusiveStartKeys());
 
         if (queryRequest.getKeyConditionExpression() == null) {
-            querySpec.withHashKey(tableDefinition.getField(tableDefinition.getHashKey()).getDynamoName(), queryRequest.getHashKeyValue())
+            querySpec.withHashKey(tableDefinition.getHashKeyDynamoName(), queryRequest.getHashKeyValue())
                     .withRangeKeyCondition(queryRequest.getRangeKeyCondition());
         }
 
@@ -455,10 +630,10 @@ public class Dynamap {
             if (queryRequest.getKeyConditionExpression() == null) {
                 querySpec.withHashKey(tableDefinition.getField(indexDef.getHashKey()).getDynamoName(), queryRequest.getHashKeyValue());
             }
-            initRateLimiter(queryRequest.getReadRateLimiter(), table, indexName);
+            initRateLimiter(queryRequest.getReadRateLimiter(), table.getTableName(), indexName);
             items = index.query(querySpec);
         } else {
-            initRateLimiter(queryRequest.getReadRateLimiter(), table, null);
+            initRateLimiter(queryRequest.getReadRateLimiter(), table.getTableName(), null);
             items = table.query(querySpec);
         }
 
@@ -480,16 +655,14 @@ public class Dynamap {
             }
         });
 
-        ItemIterator<T> itemIterator = new ItemIterator<T>(items) {
+        PagePrefetcher<QueryOutcome> prefetcher = queryRequest.getPrefetchPages() == 0 ? null
+                : new PagePrefetcher<>(items, queryRequest.getPrefetchPages(), getExecutorService(),
+                outcome -> outcome.getQueryResult().getLastEvaluatedKey(), outcome -> outcome.getQueryResult().getScannedCount());
+        ItemIterator<T> itemIterator = new ItemIterator<T>(items, prefetcher) {
 
             @Override
             public T next() {
-                DynamapLoadService dynamapBeanLoader = new DynamapLoadService(schemaRegistry, dynamapBeanFactory, objectMapper, prefix, tableCache)
-                        .skipMigration(queryRequest.getProjectionExpression() != null)
-                        .writeBack(queryRequest.isWriteMigrationChange())
-                        .withMigrationContext(queryRequest.getMigrationContext())
-                        .withSuffix(queryRequest.getSuffix());
-                return dynamapBeanLoader.loadItem(iterator.next(), queryRequest.getResultClass());
+                return getQueryLoadService(queryRequest).loadItem(iterator.next(), queryRequest.getResultClass());
             }
 
             @Override
@@ -502,6 +675,54 @@ public class Dynamap {
         return new QueryResult<>(itemIterator);
     }
 
+    /**
+     * Queries a table or index for each of several hash key values and merges the results by range key, in the order
+     * given by scanIndexForward. Use it, for example, to read the latest entries of many partitions as a single feed.
+     * <p>
+     * The queries run concurrently on the Dynamap executor, each fetching its pages ahead of the merge by the prefetch
+     * depth of the request, which is at least one page. The max result size of the request limits the merged results,
+     * so no query returns more than that many items and the merge stops reading once the limit is reached. The
+     * progress callback is notified of the total number of items retrieved by all the queries.
+     * <p>
+     * The request must not have a key condition expression or exclusive start keys, and the hash key value it may
+     * have is ignored. Any projection must include the range key.
+     */
+    public <T extends DynamapRecordBean> Iterator<T> multiQuery(QueryRequest<T> queryRequest, Collection<String> hashKeyValues) {
+        if (queryRequest.getKeyConditionExpression() != null) {
+            throw new IllegalArgumentException("multiQuery cannot be used with a key condition expression");
+        }
+        if (queryRequest.getExclusiveStartKeys() != null) {
+            throw new IllegalArgumentException("multiQuery cannot be used with exclusive start keys");
+        }
+        TableDefinition tableDefinition = schemaRegistry.getTableDefinition(queryRequest.getResultClass());
+        String rangeKey = queryRequest.getIndex() == null ? tableDefinition.getRangeKey()
+                : ReadOpFactory.findIndex(tableDefinition, queryRequest.getIndex().getName()).getRangeKey();
+        if (rangeKey == null) {
+            throw new IllegalArgumentException("multiQuery requires a range key to merge the results");
+        }
+
+        SharedProgress progress = new SharedProgress(queryRequest.getProgressCallback());
+        List<Iterator<Item>> partitions = new ArrayList<>();
+        for (String hashKeyValue : new LinkedHashSet<>(hashKeyValues)) {
+            QueryRequest<T> partitionRequest = queryRequest.copy()
+                    .withHashKeyValue(hashKeyValue)
+                    .withPrefetchPages(Math.max(1, queryRequest.getPrefetchPages()))
+                    .withProgressCallback(segmentProgressCallback(progress));
+            partitions.add(((ItemIterator<T>) documentQueryResult(partitionRequest).getResultIterator()).getItemIterator());
+        }
+        DynamapLoadService dynamapBeanLoader = getQueryLoadService(queryRequest);
+        return new MultiQueryIterator<>(partitions, tableDefinition.getField(rangeKey).getDynamoName(), queryRequest.isScanIndexForward(),
+                queryRequest.getMaxResultSize(), item -> dynamapBeanLoader.loadItem(item, queryRequest.getResultClass()));
+    }
+
+    private DynamapLoadService getQueryLoadService(QueryRequest<?> queryRequest) {
+        return new DynamapLoadService(schemaRegistry, dynamapBeanFactory, objectMapper, prefix, tableCache)
+                .skipMigration(queryRequest.getProjectionExpression() != null)
+                .writeBack(queryRequest.isWriteMigrationChange())
+                .withMigrationContext(queryRequest.getMigrationContext())
+                .withSuffix(queryRequest.getSuffix());
+    }
+
 
     public <T extends DynamapRecordBean> ScanResult<T> scan(ScanRequest<T> scanRequest) {
         TableDefinition tableDefinition = schemaRegistry.getTableDefinition(scanRequest.getResultClass());
@@ -541,7 +762,7 @@ public class Dynamap {
 
         if (scanRequest.getReadRateLimiter() != null) {
             if (scanRequest.getReadRateLimiter() != null) {
-                scanRequest.getReadRateLimiter().init(table, scanRequest.getIndex() == null ? null : scanRequest.getIndex().getName());
+                scanRequest.getReadRateLimiter().init(tableCache, table.getTableName(), scanRequest.getIndex() == null ? null : scanRequest.getIndex().getName());
                 scanRequest.getReadRateLimiter().acquire();
             }
         }
@@ -573,7 +794,10 @@ public class Dynamap {
         });
 
 
-        ItemIterator<T> itemIterator = new ItemIterator<T>(scanItems) {
+        PagePrefetcher<ScanOutcome> prefetcher = scanRequest.getPrefetchPages() == 0 ? null
+                : new PagePrefetcher<>(scanItems, scanRequest.getPrefetchPages(), getExecutorService(),
+                outcome -> outcome.getScanResult().getLastEvaluatedKey(), outcome -> outcome.getScanResult().getScannedCount());
+        ItemIterator<T> itemIterator = new ItemIterator<T>(scanItems, prefetcher) {
             @Override
             public T next() {
                 DynamapLoadService dynamapBeanLoader = new DynamapLoadService(schemaRegistry, dynamapBeanFactory, objectMapper, prefix, tableCache)
@@ -593,7 +817,331 @@ public class Dynamap {
         return new ScanResult<>(itemIterator);
     }
 
+    /**
+     * Scans a table with the given number of segments running concurrently on the Dynamap executor. The segment and
+     * total segments of the request are ignored. The max result size applies to each segment, and the exclusive start
+     * keys are not used, as the start key of one segment is not valid for the others.
+     * <p>
+     * The segments share the read rate limiter of the request, so together they consume no more than its target capacity.
+     * The progress callback receives the number of items read by all the segments and can return false to stop the scan.
+     * Results are returned in no particular order through a bounded buffer: segments wait while the buffer is full.
+     * The iterator must be closed if it is not read to the end.
+     */
+    public <T extends DynamapRecordBean> ParallelScanIterator<T> parallelScan(ScanRequest<T> scanRequest, int totalSegments) {
+        if (totalSegments < 1) {
+            throw new IllegalArgumentException("totalSegments must be at least 1");
+        }
+        SharedProgress progress = new SharedProgress(scanRequest.getProgressCallback());
+        ParallelScanIterator<T> iterator = new ParallelScanIterator<>(getExecutorService(), PARALLEL_SCAN_BUFFER_SIZE, progress::isCancelled);
+        for (int segment = 0; segment < totalSegments; segment++) {
+            ScanRequest<T> segmentRequest = scanRequest.copy()
+                    .withExclusiveStartKeys((KeyAttribute[]) null)
+                    .withSegment(segment)
+                    .withTotalSegments(totalSegments)
+                    .withProgressCallback(segmentProgressCallback(progress));
+            iterator.submit(() -> scan(segmentRequest));
+        }
+        return iterator;
+    }
+
+    /**
+     * Scans a table with concurrent segments, calling the consumer from the calling thread with each result.
+     *
+     * @see #parallelScan(ScanRequest, int)
+     */
+    public <T extends DynamapRecordBean> void parallelScan(ScanRequest<T> scanRequest, int totalSegments, Consumer<T> consumer) {
+        try (ParallelScanIterator<T> iterator = parallelScan(scanRequest, totalSegments)) {
+            iterator.forEachRemaining(consumer);
+        }
+    }
+
+    /**
+     * Counts the items matching a query. Only the counts of the result pages are retrieved, so no items are read or
+     * converted to beans. The max page size, max result size, rate limiter and progress callback of the request are used.
+     */
+    public <T extends DynamapRecordBean> long count(QueryRequest<T> queryRequest) {
+        return aggregateQuery(queryRequest, null).getCount();
+    }
+
+    /**
+     * Counts the items matching a scan without reading them.
+     *
+     * @see #count(ScanRequest, int)
+     */
+    public <T extends DynamapRecordBean> long count(ScanRequest<T> scanRequest) {
+        return aggregateScan(scanRequest, null, 1).getCount();
+    }
+
+    /**
+     * Counts the items matching a scan with several segments running concurrently on the Dynamap executor. With more
+     * than one segment, the max result size applies to each segment and the exclusive start keys are not used. The
+     * segments share the rate limiter of the request and stop if the progress callback returns false.
+     */
+    public <T extends DynamapRecordBean> long count(ScanRequest<T> scanRequest, int totalSegments) {
+        return aggregateScan(scanRequest, null, totalSegments).getCount();
+    }
+
+    /**
+     * Computes the sum, minimum and maximum of a numeric top level field over the items matching a query. Only that
+     * field is retrieved, and it is read from the low level results without converting the items to beans.
+     *
+     * @param field the DynamoDB attribute name or schema field name
+     */
+    public <T extends DynamapRecordBean> AggregateResult aggregate(QueryRequest<T> queryRequest, String field) {
+        return aggregateQuery(queryRequest, field);
+    }
+
+    /**
+     * Computes the sum, minimum and maximum of a numeric top level field over the items matching a scan.
+     *
+     * @param field the DynamoDB attribute name or schema field name
+     * @see #count(ScanRequest, int)
+     */
+    public <T extends DynamapRecordBean> AggregateResult aggregate(ScanRequest<T> scanRequest, String field, int totalSegments) {
+        return aggregateScan(scanRequest, field, totalSegments);
+    }
+
+    /**
+     * Deletes the items matching a query with the default parameters.
+     *
+     * @see #deleteWhere(QueryRequest, DeleteWhereParams)
+     */
+    public <T extends DynamapRecordBean> DeleteWhereResult deleteWhere(QueryRequest<T> queryRequest) {
+        return deleteWhere(queryRequest, new DeleteWhereParams());
+    }
+
+    /**
+     * Deletes the items matching a query. Only the key attributes of the items are retrieved, and they are deleted with
+     * batch writes as the pages are read, without converting the items to beans. The max page size, max result size,
+     * read rate limiter and progress callback of the request are used, and the progress callback, which receives the
+     * number of items read, can return false to stop reading more.
+     */
+    public <T extends DynamapRecordBean> DeleteWhereResult deleteWhere(QueryRequest<T> queryRequest, DeleteWhereParams deleteWhereParams) {
+        TableDefinition tableDefinition = schemaRegistry.getTableDefinition(queryRequest.getResultClass());
+        com.amazonaws.services.dynamodbv2.model.QueryRequest request = readOpFactory.buildQuery(queryRequest);
+        request.withSelect(Select.SPECIFIC_ATTRIBUTES)
+                .withProjectionExpression(deleteKeyProjection(tableDefinition))
+                .withExpressionAttributeNames(deleteKeyNames(tableDefinition, usedNames(request.getExpressionAttributeNames(), request.getKeyConditionExpression(), request.getFilterExpression())));
+        DynamoRateLimiter readRateLimiter = queryRequest.getReadRateLimiter();
+        if (readRateLimiter != null) {
+            initRateLimiter(readRateLimiter, request.getTableName(), request.getIndexName());
+            request.withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        }
+        return keyDeleter((startKey, limit) -> {
+            com.amazonaws.services.dynamodbv2.model.QueryResult result = amazonDynamoDB.query(request.clone().withExclusiveStartKey(startKey).withLimit(limit));
+            return new PageAggregator.Page(result.getCount(), result.getScannedCount(), result.getItems(), result.getLastEvaluatedKey(), result.getConsumedCapacity());
+        }, request.getTableName(), deleteWhereParams)
+                .withReadRateLimiter(readRateLimiter)
+                .withProgressCallback(queryRequest.getProgressCallback())
+                .delete(request.getExclusiveStartKey(), queryRequest.getMaxPageSize(), queryRequest.getMaxResultSize());
+    }
+
+    /**
+     * Deletes the items matching a scan with the default parameters.
+     *
+     * @see #deleteWhere(ScanRequest, DeleteWhereParams)
+     */
+    public <T extends DynamapRecordBean> DeleteWhereResult deleteWhere(ScanRequest<T> scanRequest) {
+        return deleteWhere(scanRequest, new DeleteWhereParams());
+    }
+
+    /**
+     * Deletes the items matching a scan, or a segment of it if the request has one.
+     *
+     * @see #deleteWhere(QueryRequest, DeleteWhereParams)
+     */
+    public <T extends DynamapRecordBean> DeleteWhereResult deleteWhere(ScanRequest<T> scanRequest, DeleteWhereParams deleteWhereParams) {
+        TableDefinition tableDefinition = schemaRegistry.getTableDefinition(scanRequest.getResultClass());
+        com.amazonaws.services.dynamodbv2.model.ScanRequest request = readOpFactory.buildScan(scanRequest);
+        request.withSelect(Select.SPECIFIC_ATTRIBUTES)
+                .withProjectionExpression(deleteKeyProjection(tableDefinition))
+                .withExpressionAttributeNames(deleteKeyNames(tableDefinition, usedNames(request.getExpressionAttributeNames(), request.getFilterExpression())));
+        DynamoRateLimiter readRateLimiter = scanRequest.getReadRateLimiter();
+        if (readRateLimiter != null) {
+            initRateLimiter(readRateLimiter, request.getTableName(), request.getIndexName());
+            request.withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        }
+        return keyDeleter((startKey, limit) -> {
+            com.amazonaws.services.dynamodbv2.model.ScanResult result = amazonDynamoDB.scan(request.clone().withExclusiveStartKey(startKey).withLimit(limit));
+            return new PageAggregator.Page(result.getCount(), result.getScannedCount(), result.getItems(), result.getLastEvaluatedKey(), result.getConsumedCapacity());
+        }, request.getTableName(), deleteWhereParams)
+                .withReadRateLimiter(readRateLimiter)
+                .withProgressCallback(scanRequest.getProgressCallback())
+                .delete(request.getExclusiveStartKey(), scanRequest.getMaxPageSize(), scanRequest.getMaxResultSize());
+    }
+
+    private <T extends DynamapRecordBean> AggregateResult aggregateQuery(QueryRequest<T> queryRequest, String field) {
+        TableDefinition tableDefinition = schemaRegistry.getTableDefinition(queryRequest.getResultClass());
+        com.amazonaws.services.dynamodbv2.model.QueryRequest request = readOpFactory.buildQuery(queryRequest);
+        String attributeName = null;
+        if (field == null) {
+            request.withSelect(Select.COUNT).withProjectionExpression(null)
+                    .withExpressionAttributeNames(usedNames(request.getExpressionAttributeNames(), request.getKeyConditionExpression(), request.getFilterExpression()));
+        } else {
+            attributeName = ProjectionUtil.getDynamoName(tableDefinition, field);
+            request.withSelect(Select.SPECIFIC_ATTRIBUTES)
+                    .withProjectionExpression(AGGREGATE_ATTRIBUTE_NAME)
+                    .withExpressionAttributeNames(aggregateNames(usedNames(request.getExpressionAttributeNames(), request.getKeyConditionExpression(), request.getFilterExpression()), attributeName));
+        }
+        DynamoRateLimiter readRateLimiter = queryRequest.getReadRateLimiter();
+        if (readRateLimiter != null) {
+            initRateLimiter(readRateLimiter, request.getTableName(), request.getIndexName());
+            request.withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        }
+        return new PageAggregator((startKey, limit) -> {
+            com.amazonaws.services.dynamodbv2.model.QueryResult result = amazonDynamoDB.query(request.clone().withExclusiveStartKey(startKey).withLimit(limit));
+            return new PageAggregator.Page(result.getCount(), result.getScannedCount(), result.getItems(), result.getLastEvaluatedKey(), result.getConsumedCapacity());
+        }, attributeName)
+                .withReadRateLimiter(readRateLimiter)
+                .withProgressCallback(queryRequest.getProgressCallback())
+                .aggregate(request.getExclusiveStartKey(), queryRequest.getMaxPageSize(), queryRequest.getMaxResultSize());
+    }
+
+    private <T extends DynamapRecordBean> AggregateResult aggregateScan(ScanRequest<T> scanRequest, String field, int totalSegments) {
+        if (totalSegments < 1) {
+            throw new IllegalArgumentException("totalSegments must be at least 1");
+        }
+        TableDefinition tableDefinition = schemaRegistry.getTableDefinition(scanRequest.getResultClass());
+        com.amazonaws.services.dynamodbv2.model.ScanRequest request = readOpFactory.buildScan(scanRequest);
+        String attributeName = null;
+        if (field == null) {
+            request.withSelect(Select.COUNT).withProjectionExpression(null)
+                    .withExpressionAttributeNames(usedNames(request.getExpressionAttributeNames(), request.getFilterExpression()));
+        } else {
+            attributeName = ProjectionUtil.getDynamoName(tableDefinition, field);
+            request.withSelect(Select.SPECIFIC_ATTRIBUTES)
+                    .withProjectionExpression(AGGREGATE_ATTRIBUTE_NAME)
+                    .withExpressionAttributeNames(aggregateNames(usedNames(request.getExpressionAttributeNames(), request.getFilterExpression()), attributeName));
+        }
+        DynamoRateLimiter readRateLimiter = scanRequest.getReadRateLimiter();
+        if (readRateLimiter != null) {
+            initRateLimiter(readRateLimiter, request.getTableName(), request.getIndexName());
+            request.withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        }
+
+        if (totalSegments == 1) {
+            return scanAggregator(request, attributeName, readRateLimiter)
+                    .withProgressCallback(scanRequest.getProgressCallback())
+                    .aggregate(request.getExclusiveStartKey(), scanRequest.getMaxPageSize(), scanRequest.getMaxResultSize());
+        }
+        SharedProgress progress = new SharedProgress(scanRequest.getProgressCallback());
+        List<Future<AggregateResult>> segments = new ArrayList<>(totalSegments);
+        for (int segment = 0; segment < totalSegments; segment++) {
+            PageAggregator aggregator = scanAggregator(request.clone().withSegment(segment).withTotalSegments(totalSegments), attributeName, readRateLimiter)
+                    .withProgressCallback(segmentProgressCallback(progress))
+                    .withCancelled(progress::isCancelled);
+            segments.add(getExecutorService().submit(() -> aggregator.aggregate(null, scanRequest.getMaxPageSize(), scanRequest.getMaxResultSize())));
+        }
+        AggregateResult result = new AggregateResult();
+        try {
+            for (Future<AggregateResult> segment : segments) {
+                result.combine(segment.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            segments.forEach(segment -> segment.cancel(true));
+            throw new RuntimeException("Interrupted while waiting for scan segments", e);
+        } catch (ExecutionException e) {
+            segments.forEach(segment -> segment.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+        return result;
+    }
+
+    private PageAggregator scanAggregator(com.amazonaws.services.dynamodbv2.model.ScanRequest request, String attributeName, DynamoRateLimiter readRateLimiter) {
+        return new PageAggregator((startKey, limit) -> {
+            com.amazonaws.services.dynamodbv2.model.ScanResult result = amazonDynamoDB.scan(request.clone().withExclusiveStartKey(startKey).withLimit(limit));
+            return new PageAggregator.Page(result.getCount(), result.getScannedCount(), result.getItems(), result.getLastEvaluatedKey(), result.getConsumedCapacity());
+        }, attributeName).withReadRateLimiter(readRateLimiter);
+    }
+
+    private KeyDeleter keyDeleter(PageAggregator.PageFetcher pageFetcher, String tableName, DeleteWhereParams deleteWhereParams) {
+        Map<String, DynamoRateLimiter> writeLimiterMap = deleteWhereParams.getWriteLimiter() == null ? null
+                : Collections.singletonMap(tableName, deleteWhereParams.getWriteLimiter());
+        RetryPolicy deleteRetryPolicy = deleteWhereParams.getRetryPolicy() != null ? deleteWhereParams.getRetryPolicy() : retryPolicy;
+        return new KeyDeleter(pageFetcher, keys -> {
+            logger.debug("Sending batch to delete of size: {}", keys.size());
+            TableWriteItems tableWriteItems = new TableWriteItems(tableName);
+            for (Map<String, AttributeValue> key : keys) {
+                PrimaryKey primaryKey = new PrimaryKey();
+                for (Map.Entry<String, AttributeValue> component : key.entrySet()) {
+                    primaryKey.addComponent(component.getKey(), ItemUtils.toSimpleValue(component.getValue()));
+                }
+                tableWriteItems.addPrimaryKeyToDelete(primaryKey);
+            }
+            acquireWriteLimiters(writeLimiterMap);
+            doBatchWriteItem(writeLimiterMap, Collections.singletonMap(tableName, tableWriteItems), deleteRetryPolicy);
+        }).withConcurrency(getExecutorService(), deleteWhereParams.getMaxConcurrency());
+    }
+
+    private static String deleteKeyProjection(TableDefinition tableDefinition) {
+        return tableDefinition.getRangeKey() == null ? DELETE_HASH_KEY_NAME : DELETE_HASH_KEY_NAME + "," + DELETE_RANGE_KEY_NAME;
+    }
+
+    private static Map<String, String> deleteKeyNames(TableDefinition tableDefinition, Map<String, String> names) {
+        Map<String, String> keyNames = names == null ? new HashMap<>() : new HashMap<>(names);
+        keyNames.put(DELETE_HASH_KEY_NAME, tableDefinition.getHashKeyDynamoName());
+        if (tableDefinition.getRangeKey() != null) {
+            keyNames.put(DELETE_RANGE_KEY_NAME, tableDefinition.getRangeKeyDynamoName());
+        }
+        return keyNames;
+    }
+
+    /**
+     * @return the names whose aliases are used by the expressions, or null if there are none, as DynamoDB rejects names
+     * that are not used once the projection they were given for has been replaced
+     */
+    private static Map<String, String> usedNames(Map<String, String> names, String... expressions) {
+        if (names == null) {
+            return null;
+        }
+        Set<String> aliases = new HashSet<>();
+        for (String expression : expressions) {
+            if (expression != null) {
+                Matcher matcher = NAME_ALIAS_PATTERN.matcher(expression);
+                while (matcher.find()) {
+                    aliases.add(matcher.group());
+                }
+            }
+        }
+        Map<String, String> usedNames = new HashMap<>(names);
+        usedNames.keySet().retainAll(aliases);
+        return usedNames.isEmpty() ? null : usedNames;
+    }
+
+    private static Map<String, String> aggregateNames(Map<String, String> names, String attributeName) {
+        Map<String, String> aggregateNames = names == null ? new HashMap<>() : new HashMap<>(names);
+        aggregateNames.put(AGGREGATE_ATTRIBUTE_NAME, attributeName);
+        return aggregateNames;
+    }
+
+    /**
+     * Adapts the cumulative progress reported by one of several concurrent requests to the shared progress.
+     */
+    private ProgressCallback segmentProgressCallback(SharedProgress progress) {
+        return new ProgressCallback() {
+            private int segmentProgress;
+
+            @Override
+            public boolean reportProgress(int progressCount) {
+                int count = progressCount - segmentProgress;
+                segmentProgress = progressCount;
+                return progress.addProgress(count);
+            }
+        };
+    }
+
     public void save(SaveParams saveParams) {
+        if (lowLevelEngine != null) {
+            lowLevelEngine.save(saveParams);
+            return;
+        }
         TableDefinition tableDefinition = schemaRegistry.getTableDefinition(saveParams.getDynamapRecordBean().getClass());
         new DynamapSaveService(objectMapper, prefix, tableCache)
                 .saveBean(saveParams.getDynamapRecordBean(),
@@ -609,54 +1157,102 @@ public class Dynamap {
     }
 
     public <T extends DynamapPersisted<U>, U extends RecordUpdates<T>, R extends UpdateResult<T, U>> R update(UpdateParams<T> updateParams) {
+        return update(updateParams, updateParams.getWriteLimiter());
+    }
+
+    /**
+     * Applies many updates, each with its own update request since DynamoDB has no batch update. Unlike calling
+     * {@link #update(UpdateParams)} for each of them, an update that fails, for example because its condition did not
+     * match, does not stop the others: its exception is collected in the result.
+     *
+     * @see BulkUpdateParams#withMaxConcurrency(int)
+     */
+    public BulkUpdateResult bulkUpdate(BulkUpdateParams bulkUpdateParams) {
+        List<UpdateParams> updateParamsList = new ArrayList<>(bulkUpdateParams.getUpdateParams());
+        List<BulkUpdateResult.Success> successes = new ArrayList<>();
+        List<BulkUpdateResult.Failure> failures = new ArrayList<>();
+        if (bulkUpdateParams.getMaxConcurrency() > 1 && updateParamsList.size() > 1) {
+            BoundedExecutor<Object> executor = new BoundedExecutor<>(getExecutorService(), bulkUpdateParams.getMaxConcurrency());
+            for (int i = 0; i < updateParamsList.size(); i++) {
+                int index = i;
+                executor.submit(() -> bulkUpdateItem(index, updateParamsList.get(index), bulkUpdateParams.getWriteLimiter()));
+            }
+            for (Object outcome : executor.awaitAll()) {
+                addBulkUpdateOutcome(outcome, successes, failures);
+            }
+        } else {
+            for (int i = 0; i < updateParamsList.size(); i++) {
+                addBulkUpdateOutcome(bulkUpdateItem(i, updateParamsList.get(i), bulkUpdateParams.getWriteLimiter()), successes, failures);
+            }
+        }
+        return new BulkUpdateResult(successes, failures);
+    }
+
+    public BulkUpdateResult bulkUpdate(Collection<UpdateParams> updateParams) {
+        return bulkUpdate(new BulkUpdateParams(updateParams));
+    }
+
+    private Object bulkUpdateItem(int index, UpdateParams updateParams, DynamoRateLimiter sharedWriteLimiter) {
+        try {
+            UpdateResult updateResult = update(updateParams, updateParams.getWriteLimiter() != null ? updateParams.getWriteLimiter() : sharedWriteLimiter);
+            return new BulkUpdateResult.Success(index, updateParams, updateResult);
+        } catch (RuntimeException e) {
+            return new BulkUpdateResult.Failure(index, updateParams, e);
+        }
+    }
+
+    private static void addBulkUpdateOutcome(Object outcome, List<BulkUpdateResult.Success> successes, List<BulkUpdateResult.Failure> failures) {
+        if (outcome instanceof BulkUpdateResult.Success) {
+            successes.add((BulkUpdateResult.Success) outcome);
+        } else {
+            failures.add((BulkUpdateResult.Failure) outcome);
+        }
+    }
+
+    private <T extends DynamapPersisted<U>, U extends RecordUpdates<T>, R extends UpdateResult<T, U>> R update(UpdateParams<T> updateParams, DynamoRateLimiter writeLimiter) {
+        return (R) updateItem(updateParams, writeLimiter, processUpdateExpression(updateParams.getUpdates()));
+    }
+
+    DynamoExpressionBuilder processUpdateExpression(RecordUpdates updates) {
+        DynamoExpressionBuilder expressionBuilder = updates.getExpressionBuilder();
+        expressionBuilder.setObjectMapper(objectMapper);
+        updates.processUpdateExpression();
+        return expressionBuilder;
+    }
+
+    /**
+     * Sends an UpdateItem for the key of the given updates using an expression builder that has already been processed,
+     * which may hold the expressions of other updates of the same item.
+     */
+    <T extends DynamapPersisted<U>, U extends RecordUpdates<T>> UpdateResult<T, U> updateItem(UpdateParams<T> updateParams, DynamoRateLimiter writeLimiter, DynamoExpressionBuilder expressionBuilder) {
+        if (lowLevelEngine != null) {
+            return lowLevelEngine.updateItem(updateParams, writeLimiter, expressionBuilder);
+        }
         RecordUpdates<T> updates = updateParams.getUpdates();
-        DynamoRateLimiter writeLimiter = updateParams.getWriteLimiter();
         String suffix = updateParams.getSuffix();
 
         TableDefinition tableDefinition = schemaRegistry.getTableDefinition(updates.getTableName());
-        UpdateItemSpec updateItemSpec = getUpdateItemSpec(updates, tableDefinition, updateParams.getDynamapReturnValue());
+        UpdateItemSpec updateItemSpec = getUpdateItemSpec(updates, expressionBuilder, tableDefinition, updateParams.getDynamapReturnValue());
         Table table = tableCache.getTable(tableDefinition.getTableName(prefix, suffix));
 
         logger.debug("About to submit DynamoDB Update: Update expression: {}, Conditional expression: {}, Values {}, Names: {}", updateItemSpec.getUpdateExpression(), updateItemSpec.getConditionExpression(), updateItemSpec.getValueMap(), updateItemSpec.getNameMap());
         try {
             if (writeLimiter != null) {
-                writeLimiter.init(table);
+                writeLimiter.init(tableCache, table.getTableName(), null);
                 writeLimiter.acquire();
                 updateItemSpec.withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
             }
 
             UpdateItemOutcome updateItemOutcome = table.updateItem(updateItemSpec);
 
-            Class updateResultClass = Class.forName(tableDefinition.getPackageName() + "." + tableDefinition.getType() + "UpdateResultBean");
-            Constructor<R> constructor = updateResultClass.getConstructors()[0];
-
-            if (updateParams.getDynamapReturnValue() == DynamapReturnValue.UPDATED_NEW && updateItemOutcome.getItem() == null) {
-                // nothing changed
-                return constructor.newInstance(updates, null);
-            }
-
-            if (logger.isDebugEnabled()) {
+            if (logger.isDebugEnabled() && updateItemOutcome.getItem() != null) {
                 logger.debug("UpdateItemOutcome: " + updateItemOutcome.getItem().toJSONPretty());
             }
             if (writeLimiter != null) {
                 writeLimiter.setConsumedCapacity(updateItemOutcome.getUpdateItemResult().getConsumedCapacity());
             }
 
-            if (updateParams.getDynamapReturnValue() == DynamapReturnValue.NONE) {
-                return null;
-            }
-
-            Class beanClass = Class.forName(tableDefinition.getPackageName() + "." + tableDefinition.getType() + "Bean");
-            T bean = (T) dynamapBeanFactory.asDynamapBean(updateItemOutcome.getItem(), beanClass);
-            return constructor.newInstance(updates, bean);
-
-
-        } catch (ClassNotFoundException e) {
-            logger.error("Cannot find bean class " + tableDefinition.getPackageName() + "." + tableDefinition.getType() + "Bean");
-            throw new RuntimeException(e);
-        } catch (InvocationTargetException | IllegalAccessException | InstantiationException e) {
-            logger.error("Cannot instantiate " + tableDefinition.getPackageName() + "." + tableDefinition.getType() + "UpdateResult");
-            throw new RuntimeException(e);
+            return dynamapBeanFactory.asUpdateResult(updates, updateItemOutcome.getItem(), updateParams.getDynamapReturnValue());
         } catch (Exception e) {
             String keyComponents = updateItemSpec.getKeyComponents().stream().map(Object::toString).collect(Collectors.joining(","));
             logger.debug("Error updating item: Key: " + keyComponents + " Update expression:" + updateItemSpec.getUpdateExpression() + " Conditional expression: " + updateItemSpec.getConditionExpression() + " Values: " + updateItemSpec.getValueMap() + " Names: " + updateItemSpec.getNameMap());
@@ -664,14 +1260,130 @@ public class Dynamap {
         }
     }
 
+    /**
+     * Requests the batches of a batch get as they are needed. With a max concurrency greater than one, that many batches
+     * are kept in flight on the executor so that later batches are being retrieved while earlier results are processed.
+     */
+    private class BatchGetIterator<T> implements Iterator<T> {
+        private final Iterator<List<GetObjectRequest>> partitions;
+        private final BatchGetObjectParams batchGetObjectParams;
+        private final Map<String, ReadWriteRateLimiterPair> rateLimitersByTable;
+        private final SharedProgress progress;
+        private final Deque<Future<Map<Class, List<Object>>>> inFlight = new ArrayDeque<>();
+        private Iterator<Object> current = Collections.emptyIterator();
+
+        BatchGetIterator(Iterator<List<GetObjectRequest>> partitions, BatchGetObjectParams batchGetObjectParams, Map<String, ReadWriteRateLimiterPair> rateLimitersByTable) {
+            this.partitions = partitions;
+            this.batchGetObjectParams = batchGetObjectParams;
+            this.rateLimitersByTable = rateLimitersByTable;
+            this.progress = new SharedProgress(batchGetObjectParams.getProgressCallback());
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                Map<Class, List<Object>> batchResults = nextBatch();
+                if (batchResults == null) {
+                    return false;
+                }
+                current = batchResults.values().stream().flatMap(List::stream).iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return (T) current.next();
+        }
+
+        private Map<Class, List<Object>> nextBatch() {
+            if (batchGetObjectParams.getMaxConcurrency() == 1) {
+                if (!partitions.hasNext() || progress.isCancelled()) {
+                    return null;
+                }
+                return getObjectBatch(partitions.next(), batchGetObjectParams, rateLimitersByTable, progress);
+            }
+            submitBatches();
+            Future<Map<Class, List<Object>>> future = inFlight.poll();
+            if (future == null) {
+                return null;
+            }
+            Map<Class, List<Object>> batchResults;
+            try {
+                batchResults = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelBatches();
+                throw new RuntimeException("Interrupted while waiting for batch", e);
+            } catch (ExecutionException e) {
+                cancelBatches();
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new RuntimeException(e.getCause());
+            }
+            submitBatches();
+            return batchResults;
+        }
+
+        private void submitBatches() {
+            while (inFlight.size() < batchGetObjectParams.getMaxConcurrency() && partitions.hasNext() && !progress.isCancelled()) {
+                List<GetObjectRequest> getObjectRequestBatch = partitions.next();
+                inFlight.add(getExecutorService().submit(() -> progress.isCancelled() ? Collections.emptyMap()
+                        : getObjectBatch(getObjectRequestBatch, batchGetObjectParams, rateLimitersByTable, progress)));
+            }
+        }
+
+        private void cancelBatches() {
+            for (Future<Map<Class, List<Object>>> future : inFlight) {
+                future.cancel(true);
+            }
+            inFlight.clear();
+        }
+    }
+
     private static class GetItemInfo {
         public TableKeysAndAttributes keysAndAttributes;
         public TableDefinition tableDefinition;
         public GetObjectRequest getObjectRequest;
         public Table table;
+        public Set<String> projection;
+    }
+
+    /**
+     * Tracks the number of items retrieved by requests that may run concurrently, such as the batches of a batch get
+     * or the segments of a parallel scan.
+     */
+    private static class SharedProgress {
+        private final ProgressCallback progressCallback;
+        private int totalProgress;
+        private volatile boolean cancelled;
+
+        SharedProgress(ProgressCallback progressCallback) {
+            this.progressCallback = progressCallback;
+        }
+
+        synchronized boolean addProgress(int count) {
+            totalProgress += count;
+            if (progressCallback != null && !cancelled && !progressCallback.reportProgress(totalProgress)) {
+                cancelled = true;
+            }
+            return !cancelled;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
     }
 
-    private Multimap<String, Item> doBatchGetItem(Map<String, GetItemInfo> queryInfos, Map<String, ReadWriteRateLimiterPair> rateLimiters, int totalProgress, ProgressCallback progressCallback) {
+    private Multimap<String, Item> doBatchGetItem(Map<String, GetItemInfo> queryInfos, Map<String, ReadWriteRateLimiterPair> rateLimiters, SharedProgress progress,
+                                                  RetryPolicy retryPolicy) {
         Multimap<String, Item> results = ArrayListMultimap.create();
         TableKeysAndAttributes[] tableKeysAndAttributes = new TableKeysAndAttributes[queryInfos.size()];
         int index = 0;
@@ -682,8 +1394,8 @@ public class Dynamap {
         initRateLimiterAndAcquire(rateLimiters, false);
         BatchGetItemOutcome outcome = dynamoDB.batchGetItem(ReturnConsumedCapacity.TOTAL, tableKeysAndAttributes);
 
+        RetryPolicy.RetryState retryState = retryPolicy.newRetryState();
         int unprocessedKeyCount;
-        //todo: need to add exponential backoff for unprocessed items and a termination condition
         do {
 
             if (outcome.getBatchGetItemResult().getConsumedCapacity() != null) {
@@ -693,9 +1405,10 @@ public class Dynamap {
             }
 
             Map<String, List<Item>> tableItems = outcome.getTableItems();
+            int itemCount = 0;
             for (String tableName : tableItems.keySet()) {
                 List<Item> items = tableItems.get(tableName);
-                totalProgress += items.size();
+                itemCount += items.size();
                 results.putAll(tableName, items);
             }
             // Check for unprocessed keys which could happen if it exceeds provisioned
@@ -703,7 +1416,17 @@ public class Dynamap {
             Map<String, KeysAndAttributes> unprocessedKeys = outcome.getUnprocessedKeys();
 
             unprocessedKeyCount = unprocessedKeys.size();
+
+            if (!progress.addProgress(itemCount)) {
+                return results;
+            }
+
             if (unprocessedKeyCount != 0) {
+                if (!retryState.backoff(unprocessedKeys.keySet())) {
+                    throw new RetriesExhaustedException("Batch get still has unprocessed keys for tables " + unprocessedKeys.keySet()
+                            + " after " + retryState.getAttempts() + " attempts", unprocessedKeys, null, retryState.getAttempts());
+                }
+                logger.debug("Retrying unprocessed keys for tables {}, attempt {}", unprocessedKeys.keySet(), retryState.getAttempts());
                 initRateLimiterAndAcquire(rateLimiters, false);
                 if (rateLimiters != null) {
                     outcome = dynamoDB.batchGetItemUnprocessed(ReturnConsumedCapacity.TOTAL, unprocessedKeys);
@@ -712,12 +1435,6 @@ public class Dynamap {
                 }
             }
 
-            if (progressCallback != null) {
-                if (!progressCallback.reportProgress(totalProgress)) {
-                    return results;
-                }
-            }
-
         } while (unprocessedKeyCount > 0);
 
         return results;
@@ -741,11 +1458,10 @@ public class Dynamap {
     private void initRateLimiterAndAcquire(Map<String, ReadWriteRateLimiterPair> rateLimiters, boolean write) {
         if (rateLimiters != null) {
             for (String tableName : rateLimiters.keySet()) {
-                Table table = tableCache.getTable(tableName);
                 for (ReadWriteRateLimiterPair dynamoRateLimiters : rateLimiters.values()) {
                     DynamoRateLimiter rateLimiter = write ? dynamoRateLimiters.getWriteLimiter() : dynamoRateLimiters.getReadLimiter();
                     if (rateLimiter != null) {
-                        rateLimiter.init(table);
+                        rateLimiter.init(tableCache, tableName, null);
                         rateLimiter.acquire();
                     }
                 }
@@ -753,9 +1469,9 @@ public class Dynamap {
         }
     }
 
-    private void initRateLimiter(DynamoRateLimiter readRateLimiter, Table table, String indexName) {
+    private void initRateLimiter(DynamoRateLimiter readRateLimiter, String tableName, String indexName) {
         if (readRateLimiter != null) {
-            readRateLimiter.init(table, indexName);
+            readRateLimiter.init(tableCache, tableName, indexName);
         }
     }
 
@@ -764,11 +1480,7 @@ public class Dynamap {
         return attributeDefinitions.stream().anyMatch(d -> d.getAttributeName().equals(name));
     }
 
-    private UpdateItemSpec getUpdateItemSpec(RecordUpdates updates, TableDefinition tableDefinition, DynamapReturnValue returnValue) {
-        DynamoExpressionBuilder expressionBuilder = updates.getExpressionBuilder();
-        expressionBuilder.setObjectMapper(objectMapper);
-        updates.processUpdateExpression();
-
+    private UpdateItemSpec getUpdateItemSpec(RecordUpdates updates, DynamoExpressionBuilder expressionBuilder, TableDefinition tableDefinition, DynamapReturnValue returnValue) {
         UpdateItemSpec updateItemSpec = new UpdateItemSpec().withReturnValues(ReturnValue.fromValue(returnValue.toString()));
         Field hashField = tableDefinition.getField(tableDefinition.getHashKey());
         if (updates.getRangeKeyValue() != null) {
@@ -797,6 +1509,10 @@ public class Dynamap {
 
 
     public void delete(DeleteRequest deleteRequest) {
+        if (lowLevelEngine != null) {
+            lowLevelEngine.delete(deleteRequest);
+            return;
+        }
         TableDefinition tableDefinition = schemaRegistry.getTableDefinition(deleteRequest.getResultClass());
         Table table = tableCache.getTable(tableDefinition.getTableName(prefix, deleteRequest.getSuffix()));
 
@@ -827,72 +1543,213 @@ public class Dynamap {
 
             Map<String, TableWriteItems> tableWriteItems = new HashMap<>();
             for (DeleteRequest deleteRequest : deleteRequests) {
-                TableDefinition tableDefinition = schemaRegistry.getTableDefinition(deleteRequest.getResultClass());
-                Field hashField = tableDefinition.getField(tableDefinition.getHashKey());
-
-                String tableName = tableDefinition.getTableName(prefix, deleteRequest.getSuffix());
-                TableWriteItems writeItems = tableWriteItems.get(tableName);
-                if (writeItems == null) {
-                    writeItems = new TableWriteItems(tableName);
-                    tableWriteItems.put(tableName, writeItems);
-                }
-
-                if (tableDefinition.getRangeKey() != null) {
-                    Field rangeField = tableDefinition.getField(tableDefinition.getRangeKey());
-                    writeItems.addHashAndRangePrimaryKeysToDelete(hashField.getDynamoName(), rangeField.getDynamoName(),
-                            deleteRequest.getHashKeyValue(), deleteRequest.getRangeKeyValue());
-                } else {
-                    writeItems.addHashOnlyPrimaryKeysToDelete(hashField.getDynamoName(), deleteRequest.getHashKeyValue());
-                }
+                addKeyToDelete(tableWriteItems, deleteRequest);
             }
-            doBatchWriteItem(batchDeleteRequest.getRateLimiters(), tableWriteItems);
+            doBatchWriteItem(batchDeleteRequest.getRateLimiters(), tableWriteItems,
+                    batchDeleteRequest.getRetryPolicy() != null ? batchDeleteRequest.getRetryPolicy() : retryPolicy);
         }
     }
 
     public <T extends DynamapRecordBean> void batchSave(BatchSaveParams<T> batchSaveParams) {
         final List<List<T>> objectsBatch = Lists.partition(batchSaveParams.getDynamapRecordBeans(), MAX_BATCH_SIZE);
 
-        Map<String, DynamoRateLimiter> writeLimiterMapByTable = null;
-        if (batchSaveParams.getWriteLimiters() != null) {
-            writeLimiterMapByTable = new HashMap<>();
-            for (Map.Entry<Class, DynamoRateLimiter> entry : batchSaveParams.getWriteLimiters().entrySet()) {
-                String tableName = schemaRegistry.getTableDefinition(entry.getKey()).getTableName(prefix);
-                DynamoRateLimiter rateLimiter = entry.getValue();
-                writeLimiterMapByTable.put(tableName, rateLimiter);
-                rateLimiter.init(tableCache.getTable(tableName));
-                rateLimiter.acquire();
+        Map<String, DynamoRateLimiter> writeLimiterMapByTable = getWriteLimitersByTable(batchSaveParams.getWriteLimiters());
+        if (writeLimiterMapByTable != null) {
+            writeLimiterMapByTable.values().forEach(DynamoRateLimiter::acquire);
+        }
+
+        RetryPolicy batchRetryPolicy = batchSaveParams.getRetryPolicy() != null ? batchSaveParams.getRetryPolicy() : retryPolicy;
+        if (batchSaveParams.getMaxConcurrency() > 1 && objectsBatch.size() > 1) {
+            batchSaveConcurrently(objectsBatch, batchSaveParams, writeLimiterMapByTable, batchRetryPolicy);
+        } else {
+            for (List<T> batch : objectsBatch) {
+                saveBatch(batch, batchSaveParams, writeLimiterMapByTable, batchRetryPolicy);
             }
         }
+    }
 
-        for (List<T> batch : objectsBatch) {
-            logger.debug("Sending batch to save of size: {}", batch.size());
-            Map<String, TableWriteItems> tableWriteItems = new HashMap<>();
+    private <T extends DynamapRecordBean> void batchSaveConcurrently(List<List<T>> objectsBatch, BatchSaveParams<T> batchSaveParams,
+                                                                    Map<String, DynamoRateLimiter> writeLimiterMapByTable, RetryPolicy batchRetryPolicy) {
+        BoundedExecutor<BatchSaveException.BatchFailure> executor = new BoundedExecutor<>(getExecutorService(), batchSaveParams.getMaxConcurrency());
+        AtomicBoolean failed = new AtomicBoolean();
+        int sent = 0;
+        while (sent < objectsBatch.size() && !failed.get()) {
+            int batchIndex = sent++;
+            List<T> batch = objectsBatch.get(batchIndex);
+            executor.submit(() -> {
+                try {
+                    saveBatch(batch, batchSaveParams, writeLimiterMapByTable, batchRetryPolicy);
+                    return null;
+                } catch (RuntimeException e) {
+                    failed.set(true);
+                    logger.debug("Batch {} failed to save", batchIndex, e);
+                    return new BatchSaveException.BatchFailure(batchIndex, new ArrayList<>(batch), e);
+                }
+            });
+        }
+        List<BatchSaveException.BatchFailure> failures = new ArrayList<>();
+        for (BatchSaveException.BatchFailure failure : executor.awaitAll()) {
+            if (failure != null) {
+                failures.add(failure);
+            }
+        }
+        if (!failures.isEmpty()) {
+            List<DynamapRecordBean> unsentBeans = new ArrayList<>();
+            for (List<T> batch : objectsBatch.subList(sent, objectsBatch.size())) {
+                unsentBeans.addAll(batch);
+            }
+            throw new BatchSaveException(failures, unsentBeans);
+        }
+    }
+
+    private <T extends DynamapRecordBean> void saveBatch(List<T> batch, BatchSaveParams<T> batchSaveParams, Map<String, DynamoRateLimiter> writeLimiterMapByTable, RetryPolicy batchRetryPolicy) {
+        logger.debug("Sending batch to save of size: {}", batch.size());
+        BatchWriteBuilder batchWriteBuilder = new BatchWriteBuilder(batchSaveParams.getMaxBatchBytes(), writeLimiterMapByTable, batchRetryPolicy);
+        for (DynamapRecordBean object : batch) {
+            batchWriteBuilder.addItemToPut(object, batchSaveParams.getSuffix());
+        }
+        batchWriteBuilder.send();
+    }
+
+    /**
+     * Converts the bean of a save to the item that is put, so that the bean can be changed before the put is sent.
+     * Only the bean and suffix of the save are used, as a batch write has no conditions.
+     */
+    PreparedPut preparePut(SaveParams<?> saveParams) {
+        DynamapRecordBean object = saveParams.getDynamapRecordBean();
+        TableDefinition tableDefinition = schemaRegistry.getTableDefinition(object.getClass());
+        return new PreparedPut(tableDefinition.getTableName(prefix, saveParams.getSuffix()), new DynamoItemFactory(objectMapper).asDynamoItem(object, tableDefinition),
+                object.getHashKeyValue(), object.getRangeKeyValue());
+    }
+
+    /**
+     * Sends puts and deletes, which may be for several tables, with a single batch write, or more if their items are
+     * larger than a request allows. There must be at most 25 of them in total, each for a different key.
+     */
+    void batchWrite(Collection<PreparedPut> puts, Collection<DeleteRequest<?>> deletes, Map<String, DynamoRateLimiter> writeLimiterMapByTable) {
+        logger.debug("Sending batch write of {} puts and {} deletes", puts.size(), deletes.size());
+        BatchWriteBuilder batchWriteBuilder = new BatchWriteBuilder(MAX_BATCH_WRITE_BYTES, writeLimiterMapByTable, retryPolicy);
+        for (PreparedPut put : puts) {
+            batchWriteBuilder.addItemToPut(put.tableName, put.item, put.hashKeyValue, put.rangeKeyValue);
+        }
+        for (DeleteRequest<?> deleteRequest : deletes) {
+            addKeyToDelete(batchWriteBuilder.tableWriteItems, deleteRequest);
+        }
+        batchWriteBuilder.send();
+    }
 
-            for (DynamapRecordBean object : batch) {
-                TableDefinition tableDefinition = schemaRegistry.getTableDefinition(object.getClass());
-                Item item = new DynamoItemFactory(objectMapper).asDynamoItem(object, tableDefinition);
+    /**
+     * Collects the items of a batch write. Each item is converted and its size estimated as it is added, so that an
+     * item over the DynamoDB limit fails before any request is made, and a request is sent early when the next item
+     * would take it over the maximum number of bytes.
+     */
+    private class BatchWriteBuilder {
+        private final long maxBatchBytes;
+        private final Map<String, DynamoRateLimiter> writeLimiterMapByTable;
+        private final RetryPolicy batchRetryPolicy;
+        private final DynamoItemFactory dynamoItemFactory = new DynamoItemFactory(objectMapper);
+        private Map<String, TableWriteItems> tableWriteItems = new HashMap<>();
+        private long batchBytes;
+
+        BatchWriteBuilder(long maxBatchBytes, Map<String, DynamoRateLimiter> writeLimiterMapByTable, RetryPolicy batchRetryPolicy) {
+            this.maxBatchBytes = maxBatchBytes;
+            this.writeLimiterMapByTable = writeLimiterMapByTable;
+            this.batchRetryPolicy = batchRetryPolicy;
+        }
 
-                String tableName = tableDefinition.getTableName(prefix, batchSaveParams.getSuffix());
-                TableWriteItems writeItems = tableWriteItems.getOrDefault(tableName, new TableWriteItems(tableName));
-                tableWriteItems.put(tableName, writeItems.addItemToPut(item));
+        void addItemToPut(DynamapRecordBean object, String suffix) {
+            TableDefinition tableDefinition = schemaRegistry.getTableDefinition(object.getClass());
+            Item item = dynamoItemFactory.asDynamoItem(object, tableDefinition);
+            addItemToPut(tableDefinition.getTableName(prefix, suffix), item, object.getHashKeyValue(), object.getRangeKeyValue());
+        }
+
+        void addItemToPut(String tableName, Item item, Object hashKeyValue, Object rangeKeyValue) {
+            int itemBytes = ItemSizeEstimator.estimateSize(item);
+            if (itemBytes > ItemSizeEstimator.MAX_ITEM_SIZE) {
+                throw new IllegalArgumentException(String.format("Item with hash key %s and range key %s for table %s is about %d bytes, more than the DynamoDB limit of %d bytes",
+                        hashKeyValue, rangeKeyValue, tableName, itemBytes, ItemSizeEstimator.MAX_ITEM_SIZE));
+            }
+            if (batchBytes + itemBytes > maxBatchBytes && !tableWriteItems.isEmpty()) {
+                send();
             }
+            batchBytes += itemBytes;
+            tableWriteItems.computeIfAbsent(tableName, TableWriteItems::new).addItemToPut(item);
+        }
 
-            if (writeLimiterMapByTable != null) {
-                for (Map.Entry<String, DynamoRateLimiter> entry : writeLimiterMapByTable.entrySet()) {
-                    DynamoRateLimiter rateLimiter = entry.getValue();
-                    logger.debug("rateLimiter: about to acquire: {} for table: {}", entry.getValue().getPermitsToConsume(), entry.getKey());
-                    rateLimiter.init(tableCache.getTable(entry.getKey()));
-                    rateLimiter.acquire();
-                }
+        void send() {
+            if (!tableWriteItems.isEmpty()) {
+                acquireWriteLimiters(writeLimiterMapByTable);
+                doBatchWriteItem(writeLimiterMapByTable, tableWriteItems, batchRetryPolicy);
+                tableWriteItems = new HashMap<>();
+                batchBytes = 0;
             }
-            doBatchWriteItem(writeLimiterMapByTable, tableWriteItems);
         }
     }
 
-    private void doBatchWriteItem(Map<String, DynamoRateLimiter> writeLimiterMap, Map<String, TableWriteItems> tableWriteItems) {
+    /**
+     * An item converted from a bean, waiting to be put with a batch write.
+     */
+    static class PreparedPut {
+        private final String tableName;
+        private final Item item;
+        private final Object hashKeyValue;
+        private final Object rangeKeyValue;
+
+        PreparedPut(String tableName, Item item, Object hashKeyValue, Object rangeKeyValue) {
+            this.tableName = tableName;
+            this.item = item;
+            this.hashKeyValue = hashKeyValue;
+            this.rangeKeyValue = rangeKeyValue;
+        }
+    }
+
+    /**
+     * @return the write limiters by the name of their table, without a suffix, initialized, or null if there are none
+     */
+    Map<String, DynamoRateLimiter> getWriteLimitersByTable(Map<Class, DynamoRateLimiter> writeLimiters) {
+        if (writeLimiters == null) {
+            return null;
+        }
+        Map<String, DynamoRateLimiter> writeLimiterMapByTable = new HashMap<>();
+        for (Map.Entry<Class, DynamoRateLimiter> entry : writeLimiters.entrySet()) {
+            String tableName = schemaRegistry.getTableDefinition(entry.getKey()).getTableName(prefix);
+            DynamoRateLimiter rateLimiter = entry.getValue();
+            writeLimiterMapByTable.put(tableName, rateLimiter);
+            rateLimiter.init(tableCache, tableName, null);
+        }
+        return writeLimiterMapByTable;
+    }
+
+    private void acquireWriteLimiters(Map<String, DynamoRateLimiter> writeLimiterMapByTable) {
+        if (writeLimiterMapByTable != null) {
+            for (Map.Entry<String, DynamoRateLimiter> entry : writeLimiterMapByTable.entrySet()) {
+                DynamoRateLimiter rateLimiter = entry.getValue();
+                logger.debug("rateLimiter: about to acquire: {} for table: {}", entry.getValue().getPermitsToConsume(), entry.getKey());
+                rateLimiter.init(tableCache, entry.getKey(), null);
+                rateLimiter.acquire();
+            }
+        }
+    }
+
+    private void addKeyToDelete(Map<String, TableWriteItems> tableWriteItems, DeleteRequest<?> deleteRequest) {
+        TableDefinition tableDefinition = schemaRegistry.getTableDefinition(deleteRequest.getResultClass());
+        Field hashField = tableDefinition.getField(tableDefinition.getHashKey());
+
+        String tableName = tableDefinition.getTableName(prefix, deleteRequest.getSuffix());
+        TableWriteItems writeItems = tableWriteItems.computeIfAbsent(tableName, TableWriteItems::new);
+        if (tableDefinition.getRangeKey() != null) {
+            Field rangeField = tableDefinition.getField(tableDefinition.getRangeKey());
+            writeItems.addHashAndRangePrimaryKeysToDelete(hashField.getDynamoName(), rangeField.getDynamoName(),
+                    deleteRequest.getHashKeyValue(), deleteRequest.getRangeKeyValue());
+        } else {
+            writeItems.addHashOnlyPrimaryKeysToDelete(hashField.getDynamoName(), deleteRequest.getHashKeyValue());
+        }
+    }
+
+    private void doBatchWriteItem(Map<String, DynamoRateLimiter> writeLimiterMap, Map<String, TableWriteItems> tableWriteItems, RetryPolicy retryPolicy) {
         BatchWriteItemSpec batchWriteItemSpec = new BatchWriteItemSpec()
                 .withTableWriteItems(tableWriteItems.values().toArray(new TableWriteItems[0]));
-
+        RetryPolicy.RetryState retryState = retryPolicy.newRetryState();
 
         int unprocessedItemsCount;
         do {
@@ -913,12 +1770,16 @@ public class Dynamap {
             Map<String, List<WriteRequest>> unprocessedItems = outcome.getUnprocessedItems();
             unprocessedItemsCount = unprocessedItems.size();
             if (unprocessedItemsCount > 0) {
-                logger.debug("Retrieving unprocessed items, size: {}", unprocessedItems.size());
+                if (!retryState.backoff(unprocessedItems.keySet())) {
+                    throw new RetriesExhaustedException("Batch write still has unprocessed items for tables " + unprocessedItems.keySet()
+                            + " after " + retryState.getAttempts() + " attempts", null, unprocessedItems, retryState.getAttempts());
+                }
+                logger.debug("Retrying unprocessed items, size: {}, attempt {}", unprocessedItems.size(), retryState.getAttempts());
                 batchWriteItemSpec = new BatchWriteItemSpec().withUnprocessedItems(unprocessedItems);
                 if (writeLimiterMap != null) {
                     for (Map.Entry<String, DynamoRateLimiter> entry : writeLimiterMap.entrySet()) {
                         DynamoRateLimiter rateLimiter = entry.getValue();
-                        rateLimiter.init(tableCache.getTable(entry.getKey()));
+                        rateLimiter.init(tableCache, entry.getKey(), null);
                         rateLimiter.acquire();
                     }
                 }
@@ -929,10 +1790,10 @@ public class Dynamap {
     }
 
     public WriteTx newWriteTx() {
-        return new WriteTx(amazonDynamoDB, writeOpFactory, new DynamoItemFactory(objectMapper));
+        return new WriteTx(amazonDynamoDB, writeOpFactory, new DynamoItemFactory(objectMapper), retryPolicy);
     }
 
     public ReadTx newReadTx() {
-        return new ReadTx(amazonDynamoDB, readOpFactory, new DynamapLoadService(schemaRegistry, dynamapBeanFactory, objectMapper, prefix, tableCache));
+        return new ReadTx(amazonDynamoDB, readOpFactory, new DynamapLoadService(schemaRegistry, dynamapBeanFactory, objectMapper, prefix, tableCache), retryPolicy);
     }
 }
@@ -1,19 +1,35 @@
 package com.n3twork.dynamap;
 
 import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.ItemUtils;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.n3twork.dynamap.model.TableDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 
 /**
  * Builds DynamapRecordBean instances from DynamoDB Items.
  */
 class DynamapBeanFactory {
+    private static final Logger logger = LoggerFactory.getLogger(DynamapBeanFactory.class);
     private final SchemaRegistry schemaRegistry;
     private final ObjectMapper objectMapper;
+    // held by each class rather than in a map, so that caching a decoder does not keep its class loader in memory
+    private static final ClassValue<Optional<BeanDecoder<?>>> decoders = new ClassValue<Optional<BeanDecoder<?>>>() {
+        @Override
+        protected Optional<BeanDecoder<?>> computeValue(Class<?> beanClass) {
+            return Optional.ofNullable(findDecoder(beanClass));
+        }
+    };
 
     public DynamapBeanFactory(SchemaRegistry schemaRegistry, ObjectMapper objectMapper) {
         if (null == schemaRegistry) {
@@ -26,13 +42,103 @@ class DynamapBeanFactory {
         this.objectMapper = objectMapper;
     }
 
+    /**
+     * Builds the bean with its generated decoder, or by converting the item with the ObjectMapper if the bean was
+     * generated without a decoder.
+     */
     public <T extends DynamapRecordBean> T asDynamapBean(Item item, Class<T> resultClass) {
+        BeanDecoder<T> decoder = getDecoder(resultClass);
+        if (decoder != null) {
+            return decoder.decode(item.asMap(), objectMapper);
+        }
+        return convertItem(item, resultClass);
+    }
+
+    public <T extends DynamapRecordBean> T asDynamapBean(Map<String, AttributeValue> attributes, Class<T> resultClass) {
+        BeanDecoder<T> decoder = getDecoder(resultClass);
+        if (decoder != null) {
+            return decoder.decode(attributes, objectMapper);
+        }
+        return convertItem(ItemUtils.toItem(attributes), resultClass);
+    }
+
+    private <T extends DynamapRecordBean> T convertItem(Item item, Class<T> resultClass) {
         TableDefinition tableDefinition = schemaRegistry.getTableDefinition(resultClass);
         Map<String, Object> itemMap = item.asMap();
         processDeserializationConversions(tableDefinition, itemMap);
         return objectMapper.convertValue(itemMap, resultClass);
     }
 
+    /**
+     * Builds the generated UpdateResult of the updated type from the item returned by an update.
+     *
+     * @param item the returned attributes, null if nothing was returned
+     * @return the update result, or null if no values were requested
+     */
+    public <T extends DynamapPersisted<U>, U extends RecordUpdates<T>, R extends UpdateResult<T, U>> R asUpdateResult(RecordUpdates<T> updates, Item item, DynamapReturnValue returnValue) {
+        return newUpdateResult(updates, item == null, returnValue, beanClass -> asDynamapBean(item, beanClass));
+    }
+
+    /**
+     * Builds the generated UpdateResult of the updated type from the low level attributes returned by an update.
+     *
+     * @param attributes the returned attributes, null if nothing was returned
+     * @return the update result, or null if no values were requested
+     */
+    public <T extends DynamapPersisted<U>, U extends RecordUpdates<T>, R extends UpdateResult<T, U>> R asUpdateResult(RecordUpdates<T> updates, Map<String, AttributeValue> attributes, DynamapReturnValue returnValue) {
+        return newUpdateResult(updates, attributes == null, returnValue, beanClass -> asDynamapBean(attributes, beanClass));
+    }
+
+    private <T extends DynamapPersisted<U>, U extends RecordUpdates<T>, R extends UpdateResult<T, U>> R newUpdateResult(RecordUpdates<T> updates, boolean nothingReturned, DynamapReturnValue returnValue,
+                                                                                                                        Function<Class, Object> beanBuilder) {
+        TableDefinition tableDefinition = schemaRegistry.getTableDefinition(updates.getTableName());
+        String typeName = tableDefinition.getPackageName() + "." + tableDefinition.getType();
+        try {
+            Class updateResultClass = Class.forName(typeName + "UpdateResultBean");
+            Constructor<R> constructor = updateResultClass.getConstructors()[0];
+
+            if (returnValue == DynamapReturnValue.UPDATED_NEW && nothingReturned) {
+                // nothing changed
+                return constructor.newInstance(updates, null);
+            }
+            if (returnValue == DynamapReturnValue.NONE) {
+                return null;
+            }
+
+            Class beanClass = Class.forName(typeName + "Bean");
+            T bean = (T) beanBuilder.apply(beanClass);
+            return constructor.newInstance(updates, bean);
+        } catch (ClassNotFoundException e) {
+            logger.error("Cannot find bean class " + typeName + "Bean");
+            throw new RuntimeException(e);
+        } catch (InvocationTargetException | IllegalAccessException | InstantiationException e) {
+            logger.error("Cannot instantiate " + typeName + "UpdateResult");
+            throw new RuntimeException(e);
+        }
+    }
+
+    private <T> BeanDecoder<T> getDecoder(Class<T> beanClass) {
+        return (BeanDecoder<T>) decoders.get(beanClass).orElse(null);
+    }
+
+    // the decoder of a generated bean Foo is FooDecoder, in the same package
+    private static BeanDecoder<?> findDecoder(Class<?> beanClass) {
+        String beanName = beanClass.getName();
+        if (!beanName.endsWith("Bean")) {
+            return null;
+        }
+        try {
+            Class<?> decoderClass = Class.forName(beanName.substring(0, beanName.length() - "Bean".length()) + "Decoder", true, beanClass.getClassLoader());
+            BeanDecoder<?> decoder = (BeanDecoder<?>) decoderClass.getField("INSTANCE").get(null);
+            return decoder.getBeanClass() == beanClass ? decoder : null;
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            logger.warn("Cannot use the decoder of " + beanName, e);
+            return null;
+        }
+    }
+
     private void processDeserializationConversions(TableDefinition tableDefinition, Map<String, Object> map) {
         // decompress gzip byte arrays
         for (TableDefinition.CompressCollectionItem compressCollectionItem : tableDefinition.getCompressCollectionItems()) {
@@ -46,7 +152,7 @@ class DynamapBeanFactory {
                 bytes = (byte[]) map.get(compressCollectionItem.itemKey);
             }
             if (bytes != null) {
-                Object object = GZipUtil.deSerialize(bytes, objectMapper, Object.class);
+                Object object = CompressionCodecs.deserialize(bytes, objectMapper, Object.class);
                 if (compressCollectionItem.parentKey != null) {
                     ((Map) map.get(compressCollectionItem.parentKey)).put(compressCollectionItem.itemKey, object);
                 } else {
@@ -1,6 +1,8 @@
 package com.n3twork.dynamap;
 
 import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.ItemUtils;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.n3twork.dynamap.model.Field;
 import com.n3twork.dynamap.model.TableDefinition;
@@ -8,6 +10,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * All the logic for loading a raw DynamoDB Item including:
@@ -103,6 +106,29 @@ class DynamapLoadService {
         }
     }
 
+    /**
+     * Take the low level attributes of an item and convert them to a Dynamap bean. The attributes are only converted to
+     * an Item, as expected by the migrations, when the item must be migrated.
+     */
+    public <T extends DynamapRecordBean> T loadItem(Map<String, AttributeValue> attributes, Class<T> resultClass) {
+        if (null == attributes) {
+            return null;
+        }
+        if (skipMigration || !needsMigration(attributes, resultClass)) {
+            return dynamapBeanFactory.asDynamapBean(attributes, resultClass);
+        }
+        return loadItem(ItemUtils.toItem(attributes), resultClass);
+    }
+
+    private <T extends DynamapRecordBean> boolean needsMigration(Map<String, AttributeValue> attributes, Class<T> resultClass) {
+        TableDefinition tableDefinition = schemaRegistry.getTableDefinition(resultClass);
+        if (!tableDefinition.isEnableMigrations()) {
+            return false;
+        }
+        AttributeValue schemaVersion = attributes.get(tableDefinition.getSchemaVersionField());
+        return schemaVersion == null || schemaVersion.getN() == null || Integer.parseInt(schemaVersion.getN()) != tableDefinition.getVersion();
+    }
+
     private static class MigrationResult {
         private final boolean wasMigrated;
         private final Item item;
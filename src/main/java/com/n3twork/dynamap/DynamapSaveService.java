@@ -46,7 +46,7 @@ class DynamapSaveService {
         PutItemSpec putItemSpec = new PutItemSpec()
                 .withItem(item)
                 .withReturnValues(ReturnValue.NONE);
-        String hashKeyFieldName = tableDefinition.getField(tableDefinition.getHashKey()).getDynamoName();
+        String hashKeyFieldName = tableDefinition.getHashKeyDynamoName();
         ValueMap valueMap = new ValueMap();
         NameMap nameMap = new NameMap();
         List<String> conditionalExpressions = new ArrayList<>();
@@ -90,7 +90,7 @@ class DynamapSaveService {
         Table table = tableCache.getTable(tableDefinition.getTableName(tableNamePrefix, suffix));
         try {
             if (writeLimiter != null) {
-                writeLimiter.init(table);
+                writeLimiter.init(tableCache, table.getTableName(), null);
                 writeLimiter.acquire();
             }
             PutItemOutcome outcome = table.putItem(putItemSpec);
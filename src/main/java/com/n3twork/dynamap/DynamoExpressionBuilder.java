@@ -22,14 +22,18 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Joiner;
+import com.n3twork.dynamap.model.Schema;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class DynamoExpressionBuilder {
 
     private ObjectMapper objectMapper;
 
+    private static final Pattern ALIAS_PATTERN = Pattern.compile("[#:][A-Za-z0-9_]+");
     private static final Set<Class<?>> SUPPORTED_JAVA_TYPES = Set.of(Integer.class, Long.class, Float.class, Double.class, Number.class, BigDecimal.class, String.class, byte[].class);
 
     private final List<String> addSection = new ArrayList<>();
@@ -72,11 +76,114 @@ public class DynamoExpressionBuilder {
         this.addSection.addAll(dynamoExpressionBuilder.addSection);
         this.setSection.addAll(dynamoExpressionBuilder.setSection);
         this.removeSection.addAll(dynamoExpressionBuilder.removeSection);
+        this.deleteSection.addAll(dynamoExpressionBuilder.deleteSection);
         this.conditions.addAll(dynamoExpressionBuilder.conditions);
         nameMap.putAll(dynamoExpressionBuilder.nameMap);
         valueMap.putAll(dynamoExpressionBuilder.valueMap);
     }
 
+    /**
+     * Adds the update and condition expressions of another builder to this one, renaming its aliases, so that two
+     * updates of the same item, which use the same aliases, can be sent as one. Numbers added to the same attribute are
+     * summed and sets added to or deleted from the same attribute are combined, and where both builders set the same
+     * attribute to a value the other builder's value is used. If the builders update overlapping attributes in any
+     * other way, which DynamoDB rejects, this builder is left unchanged and false is returned.
+     * <p>
+     * Builders that both have the revision condition of optimistic locking are not combined, and neither are builders
+     * that set the same attribute if either has it, as sent one after the other the second update would fail its
+     * revision check rather than being applied.
+     *
+     * @return true if the expressions were combined
+     */
+    public boolean coalesce(DynamoExpressionBuilder other) {
+        if (hasRevisionCondition() && other.hasRevisionCondition()) {
+            return false;
+        }
+        Map<String, String> renames = new HashMap<>();
+        Map<String, String> addedNames = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : other.nameMap.entrySet()) {
+            String alias = nameAliasToName.get(entry.getValue());
+            if (alias == null) {
+                alias = addedNames.computeIfAbsent(entry.getValue(), name -> names.next());
+            }
+            renames.put(entry.getKey(), alias);
+        }
+        Map<String, Object> addedValues = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : other.valueMap.entrySet()) {
+            String alias = entry.getKey().contains("condVal") ? condVals.next() : vals.next();
+            renames.put(entry.getKey(), alias);
+            addedValues.put(alias, entry.getValue());
+        }
+
+        List<String> newSetSection = new ArrayList<>(setSection);
+        List<String> newAddSection = new ArrayList<>(addSection);
+        List<String> newRemoveSection = new ArrayList<>(removeSection);
+        List<String> newDeleteSection = new ArrayList<>(deleteSection);
+        Map<String, Object> combinedValues = new HashMap<>();
+        Set<String> unusedValues = new HashSet<>();
+        List<String> paths = new ArrayList<>();
+        for (String set : setSection) {
+            paths.add(set.substring(0, set.indexOf('=')));
+        }
+        for (String action : addSection) {
+            paths.add(action.substring(0, action.lastIndexOf(' ')));
+        }
+        paths.addAll(removeSection);
+        for (String action : deleteSection) {
+            paths.add(action.substring(0, action.lastIndexOf(' ')));
+        }
+
+        boolean optimisticLocking = hasRevisionCondition() || other.hasRevisionCondition();
+        for (String set : renameAliases(other.setSection, renames)) {
+            String path = set.substring(0, set.indexOf('='));
+            String value = set.substring(set.indexOf('=') + 1);
+            int existing = findPath(newSetSection, path, '=');
+            if (existing >= 0) {
+                String existingValue = newSetSection.get(existing).substring(path.length() + 1);
+                if (optimisticLocking || !isValueAlias(value) || !isValueAlias(existingValue)) {
+                    return false;
+                }
+                newSetSection.set(existing, set);
+                unusedValues.add(existingValue);
+            } else if (overlaps(paths, path)) {
+                return false;
+            } else {
+                newSetSection.add(set);
+            }
+        }
+        if (!combineActions(renameAliases(other.addSection, renames), newAddSection, paths, addedValues, combinedValues)
+                || !combineActions(renameAliases(other.deleteSection, renames), newDeleteSection, paths, addedValues, combinedValues)) {
+            return false;
+        }
+        for (String remove : renameAliases(other.removeSection, renames)) {
+            if (!newRemoveSection.contains(remove)) {
+                if (overlaps(paths, remove)) {
+                    return false;
+                }
+                newRemoveSection.add(remove);
+            }
+        }
+
+        for (Map.Entry<String, String> entry : addedNames.entrySet()) {
+            nameMap.put(entry.getValue(), entry.getKey());
+            nameAliasToName.put(entry.getKey(), entry.getValue());
+        }
+        valueMap.keySet().removeAll(unusedValues);
+        valueMap.putAll(combinedValues);
+        valueMap.putAll(addedValues);
+        replace(setSection, newSetSection);
+        replace(addSection, newAddSection);
+        replace(removeSection, newRemoveSection);
+        replace(deleteSection, newDeleteSection);
+        conditions.addAll(renameAliases(other.conditions, renames));
+        return true;
+    }
+
+    private boolean hasRevisionCondition() {
+        String alias = nameAliasToName.get(Schema.REVISION_FIELD);
+        return alias != null && conditions.stream().anyMatch(condition -> condition.startsWith(alias + " "));
+    }
+
     public void setObjectMapper(ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
     }
@@ -366,6 +473,84 @@ public class DynamoExpressionBuilder {
         return Joiner.on(".").join(fields);
     }
 
+    // combines ADD or DELETE actions "path :value" on the same path, whose values are numbers or sets
+    private boolean combineActions(List<String> actions, List<String> section, List<String> paths, Map<String, Object> addedValues, Map<String, Object> combinedValues) {
+        for (String action : actions) {
+            String path = action.substring(0, action.lastIndexOf(' '));
+            String value = action.substring(action.lastIndexOf(' ') + 1);
+            int existing = findPath(section, path, ' ');
+            if (existing >= 0) {
+                String existingValue = section.get(existing).substring(path.length() + 1);
+                Object combined = combineValues(combinedValues.containsKey(existingValue) ? combinedValues.get(existingValue) : valueMap.get(existingValue),
+                        addedValues.get(value));
+                if (combined == null) {
+                    return false;
+                }
+                combinedValues.put(existingValue, combined);
+                addedValues.remove(value);
+            } else if (overlaps(paths, path)) {
+                return false;
+            } else {
+                section.add(action);
+            }
+        }
+        return true;
+    }
+
+    private static Object combineValues(Object value1, Object value2) {
+        if (value1 instanceof Number && value2 instanceof Number) {
+            return toBigDecimal((Number) value1).add(toBigDecimal((Number) value2));
+        }
+        if (value1 instanceof Set && value2 instanceof Set) {
+            Set<Object> combined = new LinkedHashSet<>((Set<?>) value1);
+            combined.addAll((Set<?>) value2);
+            return combined;
+        }
+        return null;
+    }
+
+    private static int findPath(List<String> section, String path, char separator) {
+        for (int i = 0; i < section.size(); i++) {
+            String entry = section.get(i);
+            if (entry.length() > path.length() && entry.startsWith(path) && entry.charAt(path.length()) == separator) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean overlaps(List<String> paths, String path) {
+        for (String existing : paths) {
+            if (existing.equals(path) || existing.startsWith(path + ".") || path.startsWith(existing + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isValueAlias(String expression) {
+        return ALIAS_PATTERN.matcher(expression).matches() && expression.startsWith(":");
+    }
+
+    private static List<String> renameAliases(List<String> expressions, Map<String, String> renames) {
+        List<String> renamed = new ArrayList<>(expressions.size());
+        for (String expression : expressions) {
+            Matcher matcher = ALIAS_PATTERN.matcher(expression);
+            StringBuffer result = new StringBuffer();
+            while (matcher.find()) {
+                matcher.appendReplacement(result, Matcher.quoteReplacement(renames.getOrDefault(matcher.group(), matcher.group())));
+            }
+            matcher.appendTail(result);
+            renamed.add(result.toString());
+        }
+        return renamed;
+    }
+
+    private static void replace(List<String> section, List<String> entries) {
+        section.clear();
+        section.addAll(entries);
+    }
+
     //TODO: this is used to serialize a set of custom types to dynamo, however, it does not deserialize so this is not currently supported
     private Set<String> toJsonStringSet(Set<Object> objects) {
         Set<String> results = new HashSet<>();
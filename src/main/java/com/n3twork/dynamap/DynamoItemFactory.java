@@ -1,19 +1,33 @@
 package com.n3twork.dynamap;
 
 import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.ItemUtils;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.n3twork.dynamap.model.Field;
 import com.n3twork.dynamap.model.Schema;
 import com.n3twork.dynamap.model.TableDefinition;
 import com.n3twork.dynamap.model.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 class DynamoItemFactory {
+    private static final Logger logger = LoggerFactory.getLogger(DynamoItemFactory.class);
+    // held by each class rather than in a map, so that caching an encoder does not keep its class loader in memory
+    private static final ClassValue<Optional<BeanEncoder<?>>> encoders = new ClassValue<Optional<BeanEncoder<?>>>() {
+        @Override
+        protected Optional<BeanEncoder<?>> computeValue(Class<?> beanClass) {
+            return Optional.ofNullable(findEncoder(beanClass));
+        }
+    };
+
     private final ObjectMapper objectMapper;
     private final boolean disableOptimisticLocking;
 
@@ -30,7 +44,19 @@ class DynamoItemFactory {
         this.disableOptimisticLocking = disableOptimisticLocking;
     }
 
+    /**
+     * Builds the item of a bean from the attributes written by its generated encoder, or by converting the bean with
+     * the ObjectMapper if it was generated without an encoder.
+     */
     public <T extends DynamapRecordBean> Item asDynamoItem(T object, TableDefinition tableDefinition) {
+        BeanEncoder<T> encoder = getEncoder(object.getClass());
+        if (encoder != null) {
+            return ItemUtils.toItem(encode(encoder, object, tableDefinition));
+        }
+        return convertBean(object, tableDefinition);
+    }
+
+    <T extends DynamapRecordBean> Item convertBean(T object, TableDefinition tableDefinition) {
         Map<String, Object> map = objectMapper.convertValue(object, new TypeReference<Map<String, Object>>() {
         });
         Item item = new Item();
@@ -43,7 +69,7 @@ class DynamoItemFactory {
             item.withInt(Schema.REVISION_FIELD, revision + 1);
         }
 
-        Type type = tableDefinition.getTypes().stream().filter(t -> t.getName().equals(tableDefinition.getType())).findFirst().get();
+        Type type = tableDefinition.getRootType();
         for (Field field : type.getPersistedFields()) {
             if (!map.containsKey(field.getDynamoName()) || map.get(field.getDynamoName()) == null) {
                 continue;
@@ -72,9 +98,9 @@ class DynamoItemFactory {
 
         processSerializationConversions(tableDefinition, item);
 
-        String hashKeyFieldName = tableDefinition.getField(tableDefinition.getHashKey()).getDynamoName();
+        String hashKeyFieldName = tableDefinition.getHashKeyDynamoName();
         if (object.getRangeKeyValue() != null) {
-            String rangeKeyFieldName = tableDefinition.getField(tableDefinition.getRangeKey()).getDynamoName();
+            String rangeKeyFieldName = tableDefinition.getRangeKeyDynamoName();
             item.withPrimaryKey(hashKeyFieldName, object.getHashKeyValue(), rangeKeyFieldName, object.getRangeKeyValue());
         } else {
             item.withPrimaryKey(hashKeyFieldName, object.getHashKeyValue());
@@ -83,6 +109,49 @@ class DynamoItemFactory {
         return item;
     }
 
+    /**
+     * Builds the low level attributes of a bean with its generated encoder, or by converting the bean with the
+     * ObjectMapper if it was generated without an encoder.
+     */
+    public <T extends DynamapRecordBean> Map<String, AttributeValue> asAttributeValues(T object, TableDefinition tableDefinition) {
+        BeanEncoder<T> encoder = getEncoder(object.getClass());
+        if (encoder == null) {
+            return ItemUtils.toAttributeValues(convertBean(object, tableDefinition));
+        }
+        return encode(encoder, object, tableDefinition);
+    }
+
+    // the schema version written is that of the table definition, which can be later than the generated one
+    private <T extends DynamapRecordBean> Map<String, AttributeValue> encode(BeanEncoder<T> encoder, T object, TableDefinition tableDefinition) {
+        Map<String, AttributeValue> attributes = encoder.encode(object, !disableOptimisticLocking && tableDefinition.isOptimisticLocking(), objectMapper);
+        if (tableDefinition.isEnableMigrations()) {
+            attributes.put(tableDefinition.getSchemaVersionField(), new AttributeValue().withN(Integer.toString(tableDefinition.getVersion())));
+        }
+        return attributes;
+    }
+
+    private static <T> BeanEncoder<T> getEncoder(Class<?> beanClass) {
+        return (BeanEncoder<T>) encoders.get(beanClass).orElse(null);
+    }
+
+    // the encoder of a generated bean FooBean is FooEncoder, in the same package
+    private static BeanEncoder<?> findEncoder(Class<?> beanClass) {
+        String beanName = beanClass.getName();
+        if (!beanName.endsWith("Bean")) {
+            return null;
+        }
+        try {
+            Class<?> encoderClass = Class.forName(beanName.substring(0, beanName.length() - "Bean".length()) + "Encoder", true, beanClass.getClassLoader());
+            BeanEncoder<?> encoder = (BeanEncoder<?>) encoderClass.getField("INSTANCE").get(null);
+            return encoder.getBeanClass() == beanClass ? encoder : null;
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            logger.warn("Cannot use the encoder of " + beanName, e);
+            return null;
+        }
+    }
+
     private void processSerializationConversions(TableDefinition tableDefinition, Item item) {
         // convert maps to list for persistAsList fields
         for (TableDefinition.PersistAsFieldItem persistAsFieldItem : tableDefinition.getPersistAsFieldItems()) {
@@ -117,7 +186,7 @@ class DynamoItemFactory {
                 object = item.get(compressCollectionItem.itemKey);
             }
             if (object != null) {
-                byte[] bytes = GZipUtil.serialize(object, objectMapper);
+                byte[] bytes = CompressionCodecs.serialize(object, objectMapper, CompressionCodecs.forName(compressCollectionItem.codec));
                 if (compressCollectionItem.parentKey != null) {
                     ((Map) item.get(compressCollectionItem.parentKey)).put(compressCollectionItem.itemKey, bytes);
                 } else {
@@ -17,24 +17,29 @@
 package com.n3twork.dynamap;
 
 import com.amazonaws.services.dynamodbv2.document.Table;
+import com.amazonaws.services.dynamodbv2.model.BillingMode;
+import com.amazonaws.services.dynamodbv2.model.BillingModeSummary;
 import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
 import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexDescription;
 import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputDescription;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.google.common.util.concurrent.AtomicDouble;
 import com.google.common.util.concurrent.RateLimiter;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DynamoRateLimiter {
     public enum RateLimitType {READ, WRITE}
 
-    private RateLimiter rateLimiter;
-    private int permitsToConsume = 1;
+    private volatile RateLimiter rateLimiter;
+    private final AtomicInteger permitsToConsume = new AtomicInteger(1);
     private final RateLimitType rateLimitType;
     private Integer targetPercent;
+    private String indexName;
 
-    private double totalSecondsSlept;
+    private final AtomicDouble totalSecondsSlept = new AtomicDouble();
 
     public DynamoRateLimiter(RateLimitType rateLimitType) {
         this.rateLimitType = rateLimitType;
@@ -59,7 +64,7 @@ public class DynamoRateLimiter {
 
     // Visible for testing
     double getTotalSecondsSlept() {
-        return totalSecondsSlept;
+        return totalSecondsSlept.get();
     }
 
     public void setTargetPercent(int targetPercent) {
@@ -70,64 +75,107 @@ public class DynamoRateLimiter {
     }
 
     public void init(Table table, String indexName) {
+        if (rateLimiter == null) {
+            initRateLimiter(table, indexName);
+        }
+    }
+
+    /**
+     * Initializes the rate limiter from the description shared by the table cache, rather than describing the table,
+     * and follows later changes of the capacity of the table when the cache refreshes its descriptions.
+     */
+    void init(TableCache tableCache, String tableName, String indexName) {
+        if (rateLimiter == null) {
+            // described before taking the lock, as describing the table may update the other limiters of the table
+            initRateLimiter(tableCache, tableName, indexName, tableCache.getDescription(tableName));
+        }
+    }
+
+    // Rate limiters are shared between threads, so only the first caller may describe the table
+    private synchronized void initRateLimiter(Table table, String indexName) {
         if (targetPercent == null) {
             throw new IllegalStateException("Target percent has not been set");
         }
         if (rateLimiter == null) {
             table.describe();
             if (table.getDescription() != null) {
-                ProvisionedThroughputDescription provisionedThroughputDescription;
-                if (indexName != null) {
-                    Optional<GlobalSecondaryIndexDescription> indexDescription = table.getDescription().getGlobalSecondaryIndexes()
-                            .stream().filter(i -> i.getIndexName().equals(indexName)).findFirst();
-                    if (indexDescription.isPresent()) {
-                        provisionedThroughputDescription = indexDescription.get().getProvisionedThroughput();
-                    } else {
-                        throw new RuntimeException("Cannot find provisioned throughput description for " + indexName + " on table " + table.getTableName());
-                    }
-                } else {
-                    provisionedThroughputDescription = table.getDescription().getProvisionedThroughput();
-                }
-                if (RateLimitType.READ.equals(rateLimitType)) {
-                    double permitsPerSec = provisionedThroughputDescription.getReadCapacityUnits() / (100.0 / targetPercent);
-                    rateLimiter = RateLimiter.create(Math.max(1, permitsPerSec)); // units per second
-                } else {
-                    double permitsPerSec = provisionedThroughputDescription.getWriteCapacityUnits() / (100.0 / targetPercent);
-                    rateLimiter = RateLimiter.create(Math.max(1, permitsPerSec)); // units per second
-                }
+                this.indexName = indexName;
+                rateLimiter = RateLimiter.create(getPermitsPerSecond(table.getDescription()));
+            }
+        }
+    }
+
+    private synchronized void initRateLimiter(TableCache tableCache, String tableName, String indexName, TableDescription tableDescription) {
+        if (targetPercent == null) {
+            throw new IllegalStateException("Target percent has not been set");
+        }
+        if (rateLimiter == null) {
+            this.indexName = indexName;
+            rateLimiter = RateLimiter.create(getPermitsPerSecond(tableDescription));
+            tableCache.addRateLimiter(tableName, this);
+        }
+    }
+
+    // on demand tables report no provisioned capacity to take a percentage of, so their rate is left as it was
+    synchronized void updateCapacity(TableDescription tableDescription) {
+        if (rateLimiter != null && !isOnDemand(tableDescription)) {
+            rateLimiter.setRate(getPermitsPerSecond(tableDescription));
+        }
+    }
+
+    // Visible for testing
+    double getRate() {
+        return rateLimiter.getRate();
+    }
+
+    private static boolean isOnDemand(TableDescription tableDescription) {
+        BillingModeSummary billingModeSummary = tableDescription.getBillingModeSummary();
+        return billingModeSummary != null && BillingMode.PAY_PER_REQUEST.toString().equals(billingModeSummary.getBillingMode());
+    }
+
+    private double getPermitsPerSecond(TableDescription tableDescription) {
+        ProvisionedThroughputDescription provisionedThroughputDescription;
+        if (indexName != null) {
+            Optional<GlobalSecondaryIndexDescription> indexDescription = tableDescription.getGlobalSecondaryIndexes()
+                    .stream().filter(i -> i.getIndexName().equals(indexName)).findFirst();
+            if (indexDescription.isPresent()) {
+                provisionedThroughputDescription = indexDescription.get().getProvisionedThroughput();
+            } else {
+                throw new RuntimeException("Cannot find provisioned throughput description for " + indexName + " on table " + tableDescription.getTableName());
             }
+        } else {
+            provisionedThroughputDescription = tableDescription.getProvisionedThroughput();
         }
+        long capacityUnits = RateLimitType.READ.equals(rateLimitType) ? provisionedThroughputDescription.getReadCapacityUnits() : provisionedThroughputDescription.getWriteCapacityUnits();
+        return Math.max(1, capacityUnits / (100.0 / targetPercent)); // units per second
     }
 
     int getPermitsToConsume() {
-        return permitsToConsume;
+        return permitsToConsume.get();
     }
 
     public void acquire() {
         if (rateLimiter != null) {
-            totalSecondsSlept += rateLimiter.acquire(permitsToConsume);
-            permitsToConsume = 1;
+            totalSecondsSlept.addAndGet(rateLimiter.acquire(permitsToConsume.getAndSet(1)));
         } else {
             throw new RuntimeException("Not initialized");
         }
     }
 
+    /**
+     * Charges the capacity consumed by a request, beyond the one permit acquired before it, to the next acquire. The
+     * capacity of requests sent concurrently by threads sharing the limiter is added up rather than replaced.
+     */
     public void setConsumedCapacity(ConsumedCapacity consumedCapacity) {
         if (consumedCapacity != null) {
-            permitsToConsume = (int) (consumedCapacity.getCapacityUnits() - 1.0);
-            if (permitsToConsume <= 0) {
-                permitsToConsume = 1;
-            }
+            permitsToConsume.addAndGet(Math.max(0, (int) (consumedCapacity.getCapacityUnits() - 1.0)));
         }
     }
 
     public void setConsumedCapacity(List<ConsumedCapacity> consumedCapacities) {
         if (consumedCapacities != null) {
             double totalUnits = consumedCapacities.stream().mapToDouble(ConsumedCapacity::getCapacityUnits).sum();
-            permitsToConsume = (int) (totalUnits - 1.0);
-            if (permitsToConsume <= 0) {
-                permitsToConsume = 1;
-            }
+            permitsToConsume.addAndGet(Math.max(0, (int) (totalUnits - 1.0)));
         }
     }
 
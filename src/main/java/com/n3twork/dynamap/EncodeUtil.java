@@ -0,0 +1,182 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.amazonaws.services.dynamodbv2.document.ItemUtils;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Builds attribute values for the generated {@link BeanEncoder}s. Each method returns null for a null value, and
+ * collections hold a NULL attribute value for each null element.
+ */
+public class EncodeUtil {
+
+    private EncodeUtil() {
+    }
+
+    public static AttributeValue fromString(String value) {
+        return value == null ? null : new AttributeValue().withS(value);
+    }
+
+    public static AttributeValue fromNumber(Number value) {
+        return value == null ? null : new AttributeValue().withN(numberToString(value));
+    }
+
+    public static AttributeValue fromBoolean(Boolean value) {
+        return value == null ? null : new AttributeValue().withBOOL(value);
+    }
+
+    public static AttributeValue fromBytes(byte[] value) {
+        return value == null ? null : new AttributeValue().withB(ByteBuffer.wrap(value));
+    }
+
+    /**
+     * @param attributes the attributes of a nested bean written by its encoder
+     */
+    public static AttributeValue fromAttributes(Map<String, AttributeValue> attributes) {
+        return attributes == null ? null : new AttributeValue().withM(attributes);
+    }
+
+    public static <E> AttributeValue fromList(Collection<E> values, Function<? super E, AttributeValue> elementEncoder) {
+        if (values == null) {
+            return null;
+        }
+        List<AttributeValue> list = new ArrayList<>(values.size());
+        for (E value : values) {
+            list.add(encodeElement(value, elementEncoder));
+        }
+        return new AttributeValue().withL(list);
+    }
+
+    public static <E> AttributeValue fromMap(Map<String, E> values, Function<? super E, AttributeValue> elementEncoder) {
+        if (values == null) {
+            return null;
+        }
+        Map<String, AttributeValue> map = new LinkedHashMap<>(values.size() * 4 / 3 + 1);
+        for (Map.Entry<String, E> entry : values.entrySet()) {
+            map.put(entry.getKey(), encodeElement(entry.getValue(), elementEncoder));
+        }
+        return new AttributeValue().withM(map);
+    }
+
+    /**
+     * @return a string set, or null if the set is empty as DynamoDB does not store empty sets
+     */
+    public static AttributeValue fromStringSet(Set<String> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        return new AttributeValue().withSS(values);
+    }
+
+    /**
+     * @return a number set, or null if the set is empty as DynamoDB does not store empty sets
+     */
+    public static AttributeValue fromNumberSet(Set<? extends Number> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        List<String> numbers = new ArrayList<>(values.size());
+        for (Number value : values) {
+            numbers.add(numberToString(value));
+        }
+        return new AttributeValue().withNS(numbers);
+    }
+
+    /**
+     * @return a binary set, or null if the set is empty as DynamoDB does not store empty sets
+     */
+    public static AttributeValue fromBytesSet(Set<byte[]> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        List<ByteBuffer> buffers = new ArrayList<>(values.size());
+        for (byte[] value : values) {
+            buffers.add(ByteBuffer.wrap(value));
+        }
+        return new AttributeValue().withBS(buffers);
+    }
+
+    /**
+     * @return a set whose elements cannot be stored as a DynamoDB set written as a list, or null if the set is empty
+     */
+    public static <E> AttributeValue fromSet(Set<E> values, Function<? super E, AttributeValue> elementEncoder) {
+        return values == null || values.isEmpty() ? null : fromList(values, elementEncoder);
+    }
+
+    /**
+     * @return the JSON of a collection compressed with the named codec
+     */
+    public static AttributeValue compress(Object value, String codec, ObjectMapper objectMapper) {
+        return value == null ? null : fromBytes(CompressionCodecs.serialize(value, objectMapper, CompressionCodecs.forName(codec)));
+    }
+
+    /**
+     * Converts a value with the ObjectMapper, used for custom types.
+     */
+    public static AttributeValue convert(Object value, ObjectMapper objectMapper) {
+        return value == null ? null : ItemUtils.toAttributeValue(objectMapper.convertValue(value, Object.class));
+    }
+
+    /**
+     * Adds an attribute unless its value is null.
+     */
+    public static void put(Map<String, AttributeValue> attributes, String name, AttributeValue value) {
+        if (value != null) {
+            attributes.put(name, value);
+        }
+    }
+
+    /**
+     * Adds an attribute of a nested bean, writing null values as NULL attribute values as the ObjectMapper does unless
+     * it is configured to exclude them.
+     */
+    public static void putNested(Map<String, AttributeValue> attributes, String name, AttributeValue value, boolean includeNulls) {
+        if (value != null) {
+            attributes.put(name, value);
+        } else if (includeNulls) {
+            attributes.put(name, new AttributeValue().withNULL(true));
+        }
+    }
+
+    public static boolean includesNulls(ObjectMapper objectMapper) {
+        JsonInclude.Include inclusion = objectMapper.getSerializationConfig().getDefaultPropertyInclusion().getValueInclusion();
+        return inclusion == JsonInclude.Include.ALWAYS || inclusion == JsonInclude.Include.USE_DEFAULTS;
+    }
+
+    private static <E> AttributeValue encodeElement(E value, Function<? super E, AttributeValue> elementEncoder) {
+        AttributeValue attributeValue = value == null ? null : elementEncoder.apply(value);
+        return attributeValue == null ? new AttributeValue().withNULL(true) : attributeValue;
+    }
+
+    private static String numberToString(Number value) {
+        if (value instanceof Integer || value instanceof Long) {
+            return value.toString();
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        return new BigDecimal(value.toString()).toPlainString();
+    }
+}
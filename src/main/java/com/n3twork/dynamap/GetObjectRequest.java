@@ -16,6 +16,9 @@
 
 package com.n3twork.dynamap;
 
+import java.util.Arrays;
+import java.util.List;
+
 public class GetObjectRequest<T extends DynamapRecordBean> {
 
     private String hashKeyValue;
@@ -23,6 +26,7 @@ public class GetObjectRequest<T extends DynamapRecordBean> {
     private boolean consistentRead;
     private final Class<T> resultClass;
     private String suffix;
+    private List<String> projection;
 
     public GetObjectRequest(Class<T> resultClass) {
         this.resultClass = resultClass;
@@ -48,6 +52,22 @@ public class GetObjectRequest<T extends DynamapRecordBean> {
         return this;
     }
 
+    /**
+     * Retrieves only the given top level fields. The key fields are always retrieved. The result is a partially populated
+     * bean which is not migrated, so fields that are not retrieved have their default values.
+     * <p>
+     * A projected bean must not be saved, with {@code save}, {@code batchSave} or a {@link BufferedObjectWriter}. A save
+     * puts the whole item, which deletes every attribute that was not retrieved. Use an update, created with
+     * {@code createUpdates()}, to change the fields of a projected bean.
+     *
+     * @param fields the generated field constants, for example {@code User.NAME_FIELD}, or schema field names
+     * @return this object with new state
+     */
+    public GetObjectRequest<T> withProjection(String... fields) {
+        this.projection = Arrays.asList(fields);
+        return this;
+    }
+
     public String getHashKeyValue() {
         return hashKeyValue;
     }
@@ -67,4 +87,8 @@ public class GetObjectRequest<T extends DynamapRecordBean> {
     public String getSuffix() {
         return suffix;
     }
+
+    public List<String> getProjection() {
+        return projection;
+    }
 }
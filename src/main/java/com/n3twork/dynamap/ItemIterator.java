@@ -4,7 +4,6 @@ import com.amazonaws.services.dynamodbv2.document.Item;
 import com.amazonaws.services.dynamodbv2.document.ItemCollection;
 import com.amazonaws.services.dynamodbv2.document.ItemUtils;
 import com.amazonaws.services.dynamodbv2.document.KeyAttribute;
-import com.amazonaws.services.dynamodbv2.document.internal.IteratorSupport;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 
 import java.util.Iterator;
@@ -12,11 +11,24 @@ import java.util.Map;
 
 public abstract class ItemIterator<T> implements Iterator<T> {
     private ItemCollection<?> itemCollection;
-    protected IteratorSupport<Item, ?> iterator;
+    private PagePrefetcher<?> prefetcher;
+    protected Iterator<Item> iterator;
 
     ItemIterator(ItemCollection<?> itemCollection) {
+        this(itemCollection, null);
+    }
+
+    /**
+     * For items that have already been retrieved. Subclasses must also override the counts.
+     */
+    ItemIterator(Iterator<Item> iterator) {
+        this.iterator = iterator;
+    }
+
+    ItemIterator(ItemCollection<?> itemCollection, PagePrefetcher<?> prefetcher) {
         this.itemCollection = itemCollection;
-        iterator = itemCollection.iterator();
+        this.prefetcher = prefetcher;
+        iterator = prefetcher != null ? prefetcher : itemCollection.iterator();
     }
 
     public boolean hasNext() {
@@ -24,17 +36,24 @@ public abstract class ItemIterator<T> implements Iterator<T> {
     }
 
     public int getCount() {
-        return itemCollection.getAccumulatedItemCount();
+        return prefetcher != null ? prefetcher.getCount() : itemCollection.getAccumulatedItemCount();
     }
 
     public int getScannedCount() {
-        return itemCollection.getAccumulatedScannedCount();
+        return prefetcher != null ? prefetcher.getScannedCount() : itemCollection.getAccumulatedScannedCount();
     }
 
     public abstract T next();
 
+    /**
+     * @return the raw items, for reading them without converting them to beans
+     */
+    Iterator<Item> getItemIterator() {
+        return iterator;
+    }
+
     public KeyAttribute[] getLastEvaluatedKeys() {
-        Map<String, AttributeValue> lastEvaluatedKeyMap = getLowLevelLastEvaluatedKey();
+        Map<String, AttributeValue> lastEvaluatedKeyMap = prefetcher != null ? prefetcher.getLastEvaluatedKey() : getLowLevelLastEvaluatedKey();
         if (lastEvaluatedKeyMap == null) {
             return null;
         }
@@ -0,0 +1,113 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.amazonaws.services.dynamodbv2.document.Item;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Estimates the size of items the way DynamoDB counts it against the 400KB item limit: the UTF-8 length of each
+ * attribute name plus the size of its value. Strings count their UTF-8 length, binaries their length, numbers about one
+ * byte per two significant digits plus one, booleans and nulls one byte, and lists and maps three bytes plus one byte
+ * and the size of each element.
+ */
+class ItemSizeEstimator {
+
+    static final int MAX_ITEM_SIZE = 400 * 1024;
+
+    private ItemSizeEstimator() {
+    }
+
+    static int estimateSize(Item item) {
+        int size = 0;
+        for (Map.Entry<String, Object> attribute : item.attributes()) {
+            size += utf8Length(attribute.getKey()) + estimateValueSize(attribute.getValue());
+        }
+        return size;
+    }
+
+    static int estimateValueSize(Object value) {
+        if (value == null || value instanceof Boolean) {
+            return 1;
+        }
+        if (value instanceof String) {
+            return utf8Length((String) value);
+        }
+        if (value instanceof Number) {
+            return numberSize(value);
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        if (value instanceof ByteBuffer) {
+            return ((ByteBuffer) value).remaining();
+        }
+        if (value instanceof Map) {
+            int size = 3;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += 1 + utf8Length(entry.getKey().toString()) + estimateValueSize(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof java.util.Set) {
+            int size = 0;
+            for (Object element : (Collection<?>) value) {
+                size += estimateValueSize(element);
+            }
+            return size;
+        }
+        if (value instanceof Collection) {
+            int size = 3;
+            for (Object element : (Collection<?>) value) {
+                size += 1 + estimateValueSize(element);
+            }
+            return size;
+        }
+        throw new IllegalArgumentException("Cannot estimate the size of a value of type " + value.getClass());
+    }
+
+    private static int numberSize(Object value) {
+        BigDecimal number = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+        if (number.signum() == 0) {
+            return 1;
+        }
+        String digits = number.stripTrailingZeros().unscaledValue().abs().toString();
+        return Math.min(21, (digits.length() + 1) / 2 + 1);
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reads the low level pages of a query or scan that projects only the key attributes and deletes the items in batches
+ * as the keys are read, without converting the items.
+ */
+class KeyDeleter {
+
+    private static final int MAX_BATCH_SIZE = 25;
+
+    private final PageAggregator.PageFetcher pageFetcher;
+    private final BatchSender batchSender;
+    private DynamoRateLimiter readRateLimiter;
+    private ProgressCallback progressCallback;
+    private ExecutorService executorService;
+    private int maxConcurrency = 1;
+
+    KeyDeleter(PageAggregator.PageFetcher pageFetcher, BatchSender batchSender) {
+        this.pageFetcher = pageFetcher;
+        this.batchSender = batchSender;
+    }
+
+    KeyDeleter withReadRateLimiter(DynamoRateLimiter readRateLimiter) {
+        this.readRateLimiter = readRateLimiter;
+        return this;
+    }
+
+    KeyDeleter withProgressCallback(ProgressCallback progressCallback) {
+        this.progressCallback = progressCallback;
+        return this;
+    }
+
+    /**
+     * @param maxConcurrency the maximum number of batches in flight on the executor, or one to send them on the calling thread
+     */
+    KeyDeleter withConcurrency(ExecutorService executorService, int maxConcurrency) {
+        this.executorService = executorService;
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    DeleteWhereResult delete(Map<String, AttributeValue> exclusiveStartKey, Integer maxPageSize, Integer maxResultSize) {
+        BoundedExecutor<Void> executor = maxConcurrency > 1 ? new BoundedExecutor<>(executorService, maxConcurrency) : null;
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Map<String, AttributeValue>> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        Map<String, AttributeValue> startKey = exclusiveStartKey;
+        int totalCount = 0;
+        int batchCount = 0;
+        boolean cancelled = false;
+        do {
+            Integer limit = maxPageSize;
+            if (maxResultSize != null) {
+                limit = limit == null ? maxResultSize - totalCount : Math.min(limit, maxResultSize - totalCount);
+            }
+            if (readRateLimiter != null) {
+                readRateLimiter.acquire();
+            }
+            PageAggregator.Page page = pageFetcher.fetch(startKey, limit);
+            if (readRateLimiter != null) {
+                readRateLimiter.setConsumedCapacity(page.consumedCapacity);
+            }
+            for (Map<String, AttributeValue> key : page.items) {
+                batch.add(key);
+                if (batch.size() == MAX_BATCH_SIZE) {
+                    send(batch, executor, failed);
+                    batch = new ArrayList<>(MAX_BATCH_SIZE);
+                    batchCount++;
+                }
+            }
+            totalCount += page.items.size();
+            if (progressCallback != null) {
+                cancelled = !progressCallback.reportProgress(totalCount);
+            }
+            startKey = page.lastEvaluatedKey;
+        } while (startKey != null && (maxResultSize == null || totalCount < maxResultSize) && !cancelled && !failed.get());
+
+        if (!batch.isEmpty() && !failed.get()) {
+            send(batch, executor, failed);
+            batchCount++;
+        }
+        if (executor != null) {
+            executor.awaitAll();
+        }
+        return new DeleteWhereResult(totalCount, batchCount);
+    }
+
+    private void send(List<Map<String, AttributeValue>> batch, BoundedExecutor<Void> executor, AtomicBoolean failed) {
+        if (executor == null) {
+            batchSender.send(batch);
+            return;
+        }
+        executor.submit(() -> {
+            try {
+                batchSender.send(batch);
+                return null;
+            } catch (RuntimeException e) {
+                failed.set(true);
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Deletes the items with the given keys with a batch write.
+     */
+    interface BatchSender {
+        void send(List<Map<String, AttributeValue>> keys);
+    }
+}
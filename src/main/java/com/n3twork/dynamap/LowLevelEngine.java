@@ -0,0 +1,182 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Runs the single item operations and the queries of {@link Dynamap} directly on the AmazonDynamoDB client with
+ * AttributeValue maps, instead of going through the document API. Beans are written by the generated encoders and read
+ * by the generated decoders, and a table is only looked up from the table cache to initialize a rate limiter.
+ * <p>
+ * Items that must be migrated are converted to an Item when they are loaded, so that migrations keep working unchanged,
+ * and are written back by the document API.
+ */
+class LowLevelEngine {
+    private static final Logger logger = LoggerFactory.getLogger(LowLevelEngine.class);
+
+    private final AmazonDynamoDB amazonDynamoDB;
+    private final SchemaRegistry schemaRegistry;
+    private final TableCache tableCache;
+    private final ObjectMapper objectMapper;
+    private final String prefix;
+    private final ReadOpFactory readOpFactory;
+    private final WriteOpFactory writeOpFactory;
+    private final DynamapBeanFactory dynamapBeanFactory;
+
+    LowLevelEngine(AmazonDynamoDB amazonDynamoDB, SchemaRegistry schemaRegistry, TableCache tableCache, ObjectMapper objectMapper, String prefix,
+                   ReadOpFactory readOpFactory, WriteOpFactory writeOpFactory, DynamapBeanFactory dynamapBeanFactory) {
+        this.amazonDynamoDB = amazonDynamoDB;
+        this.schemaRegistry = schemaRegistry;
+        this.tableCache = tableCache;
+        this.objectMapper = objectMapper;
+        this.prefix = prefix;
+        this.readOpFactory = readOpFactory;
+        this.writeOpFactory = writeOpFactory;
+        this.dynamapBeanFactory = dynamapBeanFactory;
+    }
+
+    <T extends DynamapRecordBean> T getObject(GetObjectParams<T> getObjectParams) {
+        GetObjectRequest<T> getObjectRequest = getObjectParams.getGetObjectRequest();
+        GetItemRequest getItemRequest = readOpFactory.buildGetItem(getObjectRequest);
+        ReadWriteRateLimiterPair rateLimiters = getObjectParams.getRateLimiters();
+        DynamoRateLimiter readLimiter = rateLimiters == null ? null : rateLimiters.getReadLimiter();
+        if (readLimiter != null) {
+            acquire(readLimiter, getItemRequest.getTableName(), null);
+            getItemRequest.withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        }
+        GetItemResult getItemResult = amazonDynamoDB.getItem(getItemRequest);
+        if (readLimiter != null) {
+            readLimiter.setConsumedCapacity(getItemResult.getConsumedCapacity());
+        }
+        DynamapLoadService dynamapBeanLoader = new DynamapLoadService(schemaRegistry, dynamapBeanFactory, objectMapper, prefix, tableCache)
+                .withWriteLimiter(rateLimiters == null ? null : rateLimiters.getWriteLimiter())
+                .skipMigration(getObjectRequest.getProjection() != null)
+                .writeBack(getObjectParams.isWriteMigrationChange())
+                .withMigrationContext(getObjectParams.getMigrationContext())
+                .withSuffix(getObjectRequest.getSuffix());
+        return dynamapBeanLoader.loadItem(getItemResult.getItem(), getObjectRequest.getResultClass());
+    }
+
+    void save(SaveParams<?> saveParams) {
+        PutItemRequest putItemRequest = writeOpFactory.buildPutItem(saveParams);
+        DynamoRateLimiter writeLimiter = saveParams.getWriteLimiter();
+        try {
+            if (writeLimiter != null) {
+                acquire(writeLimiter, putItemRequest.getTableName(), null);
+                putItemRequest.withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+            }
+            PutItemResult putItemResult = amazonDynamoDB.putItem(putItemRequest);
+            if (writeLimiter != null) {
+                writeLimiter.setConsumedCapacity(putItemResult.getConsumedCapacity());
+            }
+        } catch (Exception e) {
+            logger.debug("Error putting item: " + putItemRequest.getItem() + " Conditional expression: " + putItemRequest.getConditionExpression()
+                    + " Values: " + putItemRequest.getExpressionAttributeValues() + " Names: " + putItemRequest.getExpressionAttributeNames());
+            throw e;
+        }
+    }
+
+    <T extends DynamapPersisted<U>, U extends RecordUpdates<T>> UpdateResult<T, U> updateItem(UpdateParams<T> updateParams, DynamoRateLimiter writeLimiter, DynamoExpressionBuilder expressionBuilder) {
+        UpdateItemRequest updateItemRequest = writeOpFactory.buildUpdateItem(updateParams, expressionBuilder);
+        logger.debug("About to submit DynamoDB Update: Update expression: {}, Conditional expression: {}, Values {}, Names: {}", updateItemRequest.getUpdateExpression(), updateItemRequest.getConditionExpression(), updateItemRequest.getExpressionAttributeValues(), updateItemRequest.getExpressionAttributeNames());
+        try {
+            if (writeLimiter != null) {
+                acquire(writeLimiter, updateItemRequest.getTableName(), null);
+                updateItemRequest.withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+            }
+            UpdateItemResult updateItemResult = amazonDynamoDB.updateItem(updateItemRequest);
+            if (writeLimiter != null) {
+                writeLimiter.setConsumedCapacity(updateItemResult.getConsumedCapacity());
+            }
+            return dynamapBeanFactory.asUpdateResult(updateParams.getUpdates(), updateItemResult.getAttributes(), updateParams.getDynamapReturnValue());
+        } catch (Exception e) {
+            logger.debug("Error updating item: Key: " + updateItemRequest.getKey() + " Update expression:" + updateItemRequest.getUpdateExpression() + " Conditional expression: " + updateItemRequest.getConditionExpression()
+                    + " Values: " + updateItemRequest.getExpressionAttributeValues() + " Names: " + updateItemRequest.getExpressionAttributeNames());
+            throw e;
+        }
+    }
+
+    void delete(DeleteRequest<?> deleteRequest) {
+        amazonDynamoDB.deleteItem(writeOpFactory.buildDeleteItem(deleteRequest));
+    }
+
+    /**
+     * Requests the pages of the query as the results are iterated. Pages are not prefetched.
+     */
+    <T extends DynamapRecordBean> QueryResult<T> queryResult(QueryRequest<T> queryRequest) {
+        com.amazonaws.services.dynamodbv2.model.QueryRequest request = readOpFactory.buildQuery(queryRequest);
+        DynamoRateLimiter readLimiter = queryRequest.getReadRateLimiter();
+        if (readLimiter != null) {
+            readLimiter.init(tableCache, request.getTableName(), request.getIndexName());
+            request.withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        }
+        PageIterator pages = new PageIterator((startKey, limit) -> {
+            com.amazonaws.services.dynamodbv2.model.QueryResult result = amazonDynamoDB.query(request.clone().withExclusiveStartKey(startKey).withLimit(limit));
+            return new PageAggregator.Page(result.getCount(), result.getScannedCount(), result.getItems(), result.getLastEvaluatedKey(), result.getConsumedCapacity());
+        }, request.getExclusiveStartKey(), queryRequest.getMaxPageSize(), queryRequest.getMaxResultSize())
+                .withReadRateLimiter(readLimiter)
+                .withProgressCallback(queryRequest.getProgressCallback());
+        DynamapLoadService dynamapBeanLoader = new DynamapLoadService(schemaRegistry, dynamapBeanFactory, objectMapper, prefix, tableCache)
+                .skipMigration(queryRequest.getProjectionExpression() != null)
+                .writeBack(queryRequest.isWriteMigrationChange())
+                .withMigrationContext(queryRequest.getMigrationContext())
+                .withSuffix(queryRequest.getSuffix());
+
+        // the items are read from the low level pages rather than from an iterator of Items
+        ItemIterator<T> itemIterator = new ItemIterator<T>(Collections.emptyIterator()) {
+
+            @Override
+            public boolean hasNext() {
+                return pages.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return dynamapBeanLoader.loadItem(pages.next(), queryRequest.getResultClass());
+            }
+
+            @Override
+            public int getCount() {
+                return pages.getCount();
+            }
+
+            @Override
+            public int getScannedCount() {
+                return pages.getScannedCount();
+            }
+
+            @Override
+            protected Map<String, AttributeValue> getLowLevelLastEvaluatedKey() {
+                return pages.getLastEvaluatedKey();
+            }
+        };
+        return new QueryResult<>(itemIterator);
+    }
+
+    private void acquire(DynamoRateLimiter rateLimiter, String tableName, String indexName) {
+        rateLimiter.init(tableCache, tableName, indexName);
+        rateLimiter.acquire();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.amazonaws.services.dynamodbv2.document.Item;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Merges the items of several queries, each already sorted by range key, into a single sorted sequence.
+ * <p>
+ * The head item of each query is kept in a heap, so that only one item per query is compared for each result. A query
+ * is only read further when its head item has been returned, which means that a query whose items sort after the
+ * results that are read does not request more pages than those already fetched. Items with the same range key are
+ * returned in the order of their queries.
+ */
+class MultiQueryIterator<T> implements Iterator<T> {
+
+    private final List<Iterator<Item>> partitions;
+    private final String rangeKeyName;
+    private final Comparator<Head> comparator;
+    private final Integer limit;
+    private final Function<Item, T> loader;
+    private PriorityQueue<Head> heap;
+    private int returned;
+
+    MultiQueryIterator(List<Iterator<Item>> partitions, String rangeKeyName, boolean scanIndexForward, Integer limit, Function<Item, T> loader) {
+        this.partitions = partitions;
+        this.rangeKeyName = rangeKeyName;
+        Comparator<Head> byRangeKey = (h1, h2) -> compareRangeKeys(h1.rangeKey, h2.rangeKey);
+        this.comparator = (scanIndexForward ? byRangeKey : byRangeKey.reversed()).thenComparingInt(h -> h.partition);
+        this.limit = limit;
+        this.loader = loader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (heap == null) {
+            heap = new PriorityQueue<>(Math.max(1, partitions.size()), comparator);
+            for (int i = 0; i < partitions.size(); i++) {
+                advance(i);
+            }
+        }
+        return !heap.isEmpty() && (limit == null || returned < limit);
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Head head = heap.poll();
+        returned++;
+        if (limit == null || returned < limit) {
+            advance(head.partition);
+        }
+        return loader.apply(head.item);
+    }
+
+    private void advance(int partition) {
+        Iterator<Item> items = partitions.get(partition);
+        if (items.hasNext()) {
+            Item item = items.next();
+            Object rangeKey = item.get(rangeKeyName);
+            if (rangeKey == null) {
+                throw new IllegalStateException("Query result has no value for range key " + rangeKeyName + ", which must be included in any projection");
+            }
+            heap.add(new Head(item, rangeKey, partition));
+        }
+    }
+
+    private static int compareRangeKeys(Object key1, Object key2) {
+        if (key1 instanceof byte[] && key2 instanceof byte[]) {
+            byte[] bytes1 = (byte[]) key1;
+            byte[] bytes2 = (byte[]) key2;
+            for (int i = 0; i < Math.min(bytes1.length, bytes2.length); i++) {
+                int result = Integer.compare(bytes1[i] & 0xff, bytes2[i] & 0xff);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return Integer.compare(bytes1.length, bytes2.length);
+        }
+        return ((Comparable) key1).compareTo(key2);
+    }
+
+    private static class Head {
+        private final Item item;
+        private final Object rangeKey;
+        private final int partition;
+
+        Head(Item item, Object rangeKey, int partition) {
+            this.item = item;
+            this.rangeKey = rangeKey;
+            this.partition = partition;
+        }
+    }
+}
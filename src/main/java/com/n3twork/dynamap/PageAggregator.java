@@ -0,0 +1,126 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Reads the low level pages of a query or scan and aggregates them without converting the items, either counting
+ * them or reading a single numeric attribute of each.
+ */
+class PageAggregator {
+
+    private final PageFetcher pageFetcher;
+    private final String attributeName;
+    private DynamoRateLimiter readRateLimiter;
+    private ProgressCallback progressCallback;
+    private BooleanSupplier cancelled = () -> false;
+
+    /**
+     * @param attributeName the numeric attribute to aggregate, or null to only count the items
+     */
+    PageAggregator(PageFetcher pageFetcher, String attributeName) {
+        this.pageFetcher = pageFetcher;
+        this.attributeName = attributeName;
+    }
+
+    PageAggregator withReadRateLimiter(DynamoRateLimiter readRateLimiter) {
+        this.readRateLimiter = readRateLimiter;
+        return this;
+    }
+
+    PageAggregator withProgressCallback(ProgressCallback progressCallback) {
+        this.progressCallback = progressCallback;
+        return this;
+    }
+
+    /**
+     * @param cancelled checked before each page after the first
+     */
+    PageAggregator withCancelled(BooleanSupplier cancelled) {
+        this.cancelled = cancelled;
+        return this;
+    }
+
+    AggregateResult aggregate(Map<String, AttributeValue> exclusiveStartKey, Integer maxPageSize, Integer maxResultSize) {
+        AggregateResult result = new AggregateResult();
+        Map<String, AttributeValue> startKey = exclusiveStartKey;
+        int totalCount = 0;
+        do {
+            Integer limit = maxPageSize;
+            if (maxResultSize != null) {
+                limit = limit == null ? maxResultSize - totalCount : Math.min(limit, maxResultSize - totalCount);
+            }
+            if (readRateLimiter != null) {
+                readRateLimiter.acquire();
+            }
+            Page page = pageFetcher.fetch(startKey, limit);
+            if (readRateLimiter != null) {
+                readRateLimiter.setConsumedCapacity(page.consumedCapacity);
+            }
+            result.addCount(page.count);
+            if (attributeName != null) {
+                for (Map<String, AttributeValue> item : page.items) {
+                    AttributeValue value = item.get(attributeName);
+                    if (value == null || Boolean.TRUE.equals(value.getNULL())) {
+                        continue;
+                    }
+                    if (value.getN() == null) {
+                        throw new IllegalArgumentException("Attribute " + attributeName + " is not a number");
+                    }
+                    result.addValue(new BigDecimal(value.getN()));
+                }
+            }
+            totalCount += page.count;
+            if (progressCallback != null) {
+                progressCallback.reportProgress(totalCount);
+            }
+            startKey = page.lastEvaluatedKey;
+        } while (startKey != null && (maxResultSize == null || totalCount < maxResultSize) && !cancelled.getAsBoolean());
+        return result;
+    }
+
+    /**
+     * Requests a page of a query or scan.
+     */
+    interface PageFetcher {
+        Page fetch(Map<String, AttributeValue> exclusiveStartKey, Integer limit);
+    }
+
+    static class Page {
+        final int count;
+        final int scannedCount;
+        final List<Map<String, AttributeValue>> items;
+        final Map<String, AttributeValue> lastEvaluatedKey;
+        final ConsumedCapacity consumedCapacity;
+
+        Page(Integer count, Integer scannedCount, List<Map<String, AttributeValue>> items, Map<String, AttributeValue> lastEvaluatedKey, ConsumedCapacity consumedCapacity) {
+            this.count = count == null ? 0 : count;
+            this.scannedCount = scannedCount == null ? 0 : scannedCount;
+            this.items = items == null ? Collections.emptyList() : items;
+            this.lastEvaluatedKey = lastEvaluatedKey;
+            this.consumedCapacity = consumedCapacity;
+        }
+    }
+}
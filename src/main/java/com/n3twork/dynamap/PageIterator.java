@@ -0,0 +1,116 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the items of the low level pages of a query or scan, requesting each page once the items of the
+ * previous one have been consumed.
+ */
+class PageIterator implements Iterator<Map<String, AttributeValue>> {
+
+    private final PageAggregator.PageFetcher pageFetcher;
+    private final Integer maxPageSize;
+    private final Integer maxResultSize;
+    private DynamoRateLimiter readRateLimiter;
+    private ProgressCallback progressCallback;
+
+    private Iterator<Map<String, AttributeValue>> current = Collections.emptyIterator();
+    private Map<String, AttributeValue> lastEvaluatedKey;
+    private boolean started;
+    private int count;
+    private int scannedCount;
+
+    PageIterator(PageAggregator.PageFetcher pageFetcher, Map<String, AttributeValue> exclusiveStartKey, Integer maxPageSize, Integer maxResultSize) {
+        this.pageFetcher = pageFetcher;
+        this.lastEvaluatedKey = exclusiveStartKey;
+        this.maxPageSize = maxPageSize;
+        this.maxResultSize = maxResultSize;
+    }
+
+    PageIterator withReadRateLimiter(DynamoRateLimiter readRateLimiter) {
+        this.readRateLimiter = readRateLimiter;
+        return this;
+    }
+
+    PageIterator withProgressCallback(ProgressCallback progressCallback) {
+        this.progressCallback = progressCallback;
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if ((started && lastEvaluatedKey == null) || (maxResultSize != null && count >= maxResultSize)) {
+                return false;
+            }
+            fetchPage();
+        }
+        return true;
+    }
+
+    @Override
+    public Map<String, AttributeValue> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    int getScannedCount() {
+        return scannedCount;
+    }
+
+    /**
+     * @return the last evaluated key of the last page retrieved, null once the last page has been retrieved
+     */
+    Map<String, AttributeValue> getLastEvaluatedKey() {
+        return lastEvaluatedKey;
+    }
+
+    private void fetchPage() {
+        Integer limit = maxPageSize;
+        if (maxResultSize != null) {
+            limit = limit == null ? maxResultSize - count : Math.min(limit, maxResultSize - count);
+        }
+        if (readRateLimiter != null) {
+            readRateLimiter.acquire();
+        }
+        PageAggregator.Page page = pageFetcher.fetch(lastEvaluatedKey, limit);
+        if (readRateLimiter != null) {
+            readRateLimiter.setConsumedCapacity(page.consumedCapacity);
+        }
+        started = true;
+        current = page.items.iterator();
+        lastEvaluatedKey = page.lastEvaluatedKey;
+        count += page.count;
+        scannedCount += page.scannedCount;
+        if (progressCallback != null) {
+            progressCallback.reportProgress(count);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.ItemCollection;
+import com.amazonaws.services.dynamodbv2.document.Page;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Iterates over the items of a query or scan while fetching the following pages in the background.
+ * <p>
+ * Pages are fetched one after another on the executor, up to the prefetch depth ahead of the page being read. A fetch
+ * is only started when there is room for its page, so an iterator that is abandoned stops fetching once the depth is
+ * reached. The low level result listeners of the item collection are called on the executor as each page is fetched.
+ * <p>
+ * The counts and last evaluated key are those of the pages that have been handed to the reader, not of the pages
+ * that have been prefetched, so that they have the same meaning as without prefetching.
+ *
+ * @param <R> the low level result type, QueryOutcome or ScanOutcome
+ */
+class PagePrefetcher<R> implements Iterator<Item> {
+
+    private final Iterator<Page<Item, R>> pages;
+    private final int depth;
+    private final Executor executor;
+    private final Function<R, Map<String, AttributeValue>> lastEvaluatedKeyOf;
+    private final ToIntFunction<R> scannedCountOf;
+
+    private final Deque<FetchedPage> fetchedPages = new ArrayDeque<>();
+    private boolean fetching;
+    private boolean exhausted;
+    private Throwable failure;
+
+    private Iterator<Item> current = Collections.emptyIterator();
+    private int count;
+    private int scannedCount;
+    private Map<String, AttributeValue> lastEvaluatedKey;
+
+    PagePrefetcher(ItemCollection<R> itemCollection, int depth, Executor executor,
+                   Function<R, Map<String, AttributeValue>> lastEvaluatedKeyOf, ToIntFunction<R> scannedCountOf) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("depth must be at least 1");
+        }
+        this.pages = itemCollection.pages().iterator();
+        this.depth = depth;
+        this.executor = executor;
+        this.lastEvaluatedKeyOf = lastEvaluatedKeyOf;
+        this.scannedCountOf = scannedCountOf;
+        fetchIfNeeded();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            FetchedPage page;
+            synchronized (this) {
+                while (fetchedPages.isEmpty() && !exhausted && failure == null) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException("Interrupted while waiting for page", e);
+                    }
+                }
+                page = fetchedPages.poll();
+                if (page == null) {
+                    if (failure != null) {
+                        if (failure instanceof RuntimeException) {
+                            throw (RuntimeException) failure;
+                        }
+                        if (failure instanceof Error) {
+                            throw (Error) failure;
+                        }
+                        throw new RuntimeException(failure);
+                    }
+                    return false;
+                }
+            }
+            fetchIfNeeded();
+            current = page.items.iterator();
+            count += page.items.size();
+            scannedCount += page.scannedCount;
+            lastEvaluatedKey = page.lastEvaluatedKey;
+        }
+        return true;
+    }
+
+    @Override
+    public Item next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    int getScannedCount() {
+        return scannedCount;
+    }
+
+    Map<String, AttributeValue> getLastEvaluatedKey() {
+        return lastEvaluatedKey;
+    }
+
+    private void fetchIfNeeded() {
+        synchronized (this) {
+            if (fetching || exhausted || failure != null || fetchedPages.size() >= depth) {
+                return;
+            }
+            fetching = true;
+        }
+        executor.execute(this::fetch);
+    }
+
+    private void fetch() {
+        FetchedPage fetchedPage = null;
+        Throwable error = null;
+        try {
+            if (pages.hasNext()) {
+                Page<Item, R> page = pages.next();
+                List<Item> items = new ArrayList<>(page.size());
+                page.forEach(items::add);
+                R result = page.getLowLevelResult();
+                fetchedPage = new FetchedPage(items, lastEvaluatedKeyOf.apply(result), scannedCountOf.applyAsInt(result));
+            }
+        } catch (Throwable e) {
+            error = e;
+        }
+        synchronized (this) {
+            fetching = false;
+            if (fetchedPage != null) {
+                fetchedPages.add(fetchedPage);
+            } else if (error != null) {
+                failure = error;
+            } else {
+                exhausted = true;
+            }
+            notifyAll();
+        }
+        fetchIfNeeded();
+    }
+
+    private static class FetchedPage {
+        private final List<Item> items;
+        private final Map<String, AttributeValue> lastEvaluatedKey;
+        private final int scannedCount;
+
+        FetchedPage(List<Item> items, Map<String, AttributeValue> lastEvaluatedKey, int scannedCount) {
+            this.items = items;
+            this.lastEvaluatedKey = lastEvaluatedKey;
+            this.scannedCount = scannedCount;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Merges the results of the segments of a parallel scan, which run concurrently on the Dynamap executor.
+ * <p>
+ * The segments add their results to a bounded buffer and wait when it is full, so a slow consumer slows the scan down
+ * rather than causing results to accumulate in memory. Results are returned in no particular order.
+ * <p>
+ * If the iterator is not read to the end it must be closed to stop the segments that are still running.
+ */
+public class ParallelScanIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private static final Object SEGMENT_DONE = new Object();
+
+    private final ExecutorService executorService;
+    private final BlockingQueue<Object> buffer;
+    private final BooleanSupplier cancelled;
+    private final List<Future<?>> segments = new ArrayList<>();
+    private volatile boolean closed;
+    private int segmentsDone;
+    private Object next;
+
+    ParallelScanIterator(ExecutorService executorService, int bufferSize, BooleanSupplier cancelled) {
+        this.executorService = executorService;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.cancelled = cancelled;
+    }
+
+    void submit(Callable<ScanResult<T>> segment) {
+        segments.add(executorService.submit(() -> {
+            try {
+                ScanResult<T> scanResult = segment.call();
+                Iterator<T> iterator = scanResult.getResultIterator();
+                int count = 0;
+                while (!closed) {
+                    // a cancelled scan stops before reading the next page, so that the results already read are not lost
+                    if (count == scanResult.getCount() && cancelled.getAsBoolean()) {
+                        break;
+                    }
+                    if (!iterator.hasNext()) {
+                        break;
+                    }
+                    buffer.put(iterator.next());
+                    count++;
+                }
+                buffer.put(SEGMENT_DONE);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable e) {
+                if (!closed) {
+                    buffer.put(new SegmentFailure(e));
+                }
+            }
+            return null;
+        }));
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (closed) {
+            return false;
+        }
+        while (segmentsDone < segments.size()) {
+            Object result;
+            try {
+                result = buffer.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new RuntimeException("Interrupted while waiting for scan results", e);
+            }
+            if (result == SEGMENT_DONE) {
+                segmentsDone++;
+            } else if (result instanceof SegmentFailure) {
+                close();
+                Throwable cause = ((SegmentFailure) result).cause;
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(cause);
+            } else {
+                next = result;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T result = (T) next;
+        next = null;
+        return result;
+    }
+
+    /**
+     * Stops the segments that are still running and discards buffered results.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Future<?> segment : segments) {
+            segment.cancel(true);
+        }
+        buffer.clear();
+    }
+
+    private static class SegmentFailure {
+        private final Throwable cause;
+
+        SegmentFailure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.n3twork.dynamap.model.Field;
+import com.n3twork.dynamap.model.Schema;
+import com.n3twork.dynamap.model.TableDefinition;
+
+import java.util.*;
+
+class ProjectionUtil {
+
+    /**
+     * Builds a projection expression for the top level fields of a table. The key fields, schema version and revision
+     * are always projected so that the partially populated bean can still be identified and updated.
+     *
+     * @param fields   DynamoDB attribute names, such as the generated field constants, or schema field names
+     * @param nameMap  populated with the expression attribute names used by the expression
+     * @return the projection expression
+     */
+    static String buildProjectionExpression(TableDefinition tableDefinition, Collection<String> fields, Map<String, String> nameMap) {
+        Set<String> dynamoNames = new LinkedHashSet<>();
+        dynamoNames.add(tableDefinition.getHashKeyDynamoName());
+        if (tableDefinition.getRangeKey() != null) {
+            dynamoNames.add(tableDefinition.getRangeKeyDynamoName());
+        }
+        dynamoNames.add(tableDefinition.getSchemaVersionField());
+        if (tableDefinition.isOptimisticLocking()) {
+            dynamoNames.add(Schema.REVISION_FIELD);
+        }
+        List<Field> tableFields = tableDefinition.getFieldType(tableDefinition.getType()).getFields();
+        for (String field : fields) {
+            dynamoNames.add(getDynamoName(tableDefinition, tableFields, field));
+        }
+
+        StringJoiner expression = new StringJoiner(",");
+        for (String dynamoName : dynamoNames) {
+            String placeholder = "#p" + nameMap.size();
+            nameMap.put(placeholder, dynamoName);
+            expression.add(placeholder);
+        }
+        return expression.toString();
+    }
+
+    /**
+     * @param field a DynamoDB attribute name or schema field name of a top level field
+     * @return the DynamoDB attribute name of the field
+     */
+    static String getDynamoName(TableDefinition tableDefinition, String field) {
+        return getDynamoName(tableDefinition, tableDefinition.getFieldType(tableDefinition.getType()).getFields(), field);
+    }
+
+    private static String getDynamoName(TableDefinition tableDefinition, List<Field> tableFields, String field) {
+        for (Field tableField : tableFields) {
+            if (tableField.getDynamoName().equals(field)) {
+                return field;
+            }
+        }
+        for (Field tableField : tableFields) {
+            if (tableField.getName().equals(field)) {
+                return tableField.getDynamoName();
+            }
+        }
+        throw new IllegalArgumentException(String.format("Table %s has no field %s", tableDefinition.getTableName(), field));
+    }
+}
@@ -43,6 +43,7 @@ public class QueryRequest<T> {
     private boolean scanIndexForward = true;
     private Integer maxResultSize;
     private Integer maxPageSize;
+    private int prefetchPages;
     private Object migrationContext;
     private ProgressCallback progressCallback;
     private boolean writeMigrationChange = false;
@@ -134,6 +135,21 @@ public class QueryRequest<T> {
         return this;
     }
 
+    /**
+     * Fetches the following pages of results in the background while the current page is being read. The rate
+     * limiter and progress callback are then called from the Dynamap executor as each page is fetched.
+     *
+     * @param prefetchPages the number of pages to fetch ahead of the page being read, or 0 to fetch each page when it is needed
+     * @return this object with new state
+     */
+    public QueryRequest<T> withPrefetchPages(int prefetchPages) {
+        if (prefetchPages < 0) {
+            throw new IllegalArgumentException("prefetchPages cannot be negative");
+        }
+        this.prefetchPages = prefetchPages;
+        return this;
+    }
+
     public QueryRequest<T> withMigrationContext(Object migrationContext) {
         this.migrationContext = migrationContext;
         return this;
@@ -155,6 +171,32 @@ public class QueryRequest<T> {
         return this;
     }
 
+    QueryRequest<T> copy() {
+        QueryRequest<T> copy = new QueryRequest<>(resultClass);
+        copy.index = index;
+        copy.hashKeyValue = hashKeyValue;
+        copy.rangeKeyCondition = rangeKeyCondition;
+        copy.queryFilters = new ArrayList<>(queryFilters);
+        copy.keyConditionExpression = keyConditionExpression;
+        copy.filterExpression = filterExpression;
+        copy.projectionExpression = projectionExpression;
+        copy.values = values;
+        copy.names = names;
+        copy.exclusiveStartKeys = exclusiveStartKeys;
+        copy.readRateLimiter = readRateLimiter;
+        copy.consistentRead = consistentRead;
+        copy.scanIndexForward = scanIndexForward;
+        copy.maxResultSize = maxResultSize;
+        copy.maxPageSize = maxPageSize;
+        copy.prefetchPages = prefetchPages;
+        copy.migrationContext = migrationContext;
+        copy.progressCallback = progressCallback;
+        copy.writeMigrationChange = writeMigrationChange;
+        copy.select = select;
+        copy.suffix = suffix;
+        return copy;
+    }
+
     public DynamoRateLimiter getReadRateLimiter() {
         return readRateLimiter;
     }
@@ -223,6 +265,10 @@ public class QueryRequest<T> {
         return maxPageSize;
     }
 
+    public int getPrefetchPages() {
+        return prefetchPages;
+    }
+
     public Object getMigrationContext() {
         return migrationContext;
     }
@@ -1,14 +1,19 @@
 package com.n3twork.dynamap;
 
-import com.amazonaws.services.dynamodbv2.model.AttributeValue;
-import com.amazonaws.services.dynamodbv2.model.Get;
+import com.amazonaws.services.dynamodbv2.document.ItemUtils;
+import com.amazonaws.services.dynamodbv2.document.QueryFilter;
+import com.amazonaws.services.dynamodbv2.document.RangeKeyCondition;
+import com.amazonaws.services.dynamodbv2.document.internal.InternalUtils;
+import com.amazonaws.services.dynamodbv2.model.*;
+import com.n3twork.dynamap.model.Index;
 import com.n3twork.dynamap.model.TableDefinition;
 
-import java.util.Map;
+import java.util.*;
 
 /**
  * The DynamoDB read transactions API works in terms of Get instances.
- * This class provides methods to build Get objects from Dynamap GetObjectParams instances.
+ * This class provides methods to build Get objects from Dynamap GetObjectParams instances, as well as the
+ * stand alone GetItem, Query and Scan requests used by {@link AsyncDynamap} and the aggregate methods of {@link Dynamap}.
  */
 class ReadOpFactory {
     private final SchemaRegistry schemaRegistry;
@@ -26,8 +31,135 @@ class ReadOpFactory {
         GetObjectRequest<T> getObjectRequest = getObjectParams.getGetObjectRequest();
         TableDefinition tableDefinition = schemaRegistry.getTableDefinition(getObjectRequest.getResultClass());
         Map<String, AttributeValue> key = TxUtil.getKey(tableDefinition, getObjectRequest.getHashKeyValue(), getObjectRequest.getRangeKeyValue());
-        return new Get()
+        Get get = new Get()
                 .withTableName(tableDefinition.getTableName(tableNamePrefix))
                 .withKey(key);
+        if (getObjectRequest.getProjection() != null) {
+            Map<String, String> nameMap = new HashMap<>();
+            get.withProjectionExpression(ProjectionUtil.buildProjectionExpression(tableDefinition, getObjectRequest.getProjection(), nameMap))
+                    .withExpressionAttributeNames(nameMap);
+        }
+        return get;
+    }
+
+    public <T extends DynamapRecordBean> GetItemRequest buildGetItem(GetObjectRequest<T> getObjectRequest) {
+        TableDefinition tableDefinition = schemaRegistry.getTableDefinition(getObjectRequest.getResultClass());
+        GetItemRequest getItemRequest = new GetItemRequest()
+                .withTableName(tableDefinition.getTableName(tableNamePrefix, getObjectRequest.getSuffix()))
+                .withKey(TxUtil.getKey(tableDefinition, getObjectRequest.getHashKeyValue(), getObjectRequest.getRangeKeyValue()))
+                .withConsistentRead(getObjectRequest.isConsistentRead());
+        if (getObjectRequest.getProjection() != null) {
+            Map<String, String> nameMap = new HashMap<>();
+            getItemRequest.withProjectionExpression(ProjectionUtil.buildProjectionExpression(tableDefinition, getObjectRequest.getProjection(), nameMap))
+                    .withExpressionAttributeNames(nameMap);
+        }
+        return getItemRequest;
+    }
+
+    /**
+     * Builds the first page request of a query. Unlike the document API used by {@link Dynamap#queryResult(QueryRequest)},
+     * the max result size is not applied here and must be enforced by the caller when requesting the following pages.
+     */
+    public <T extends DynamapRecordBean> com.amazonaws.services.dynamodbv2.model.QueryRequest buildQuery(QueryRequest<T> queryRequest) {
+        TableDefinition tableDefinition = schemaRegistry.getTableDefinition(queryRequest.getResultClass());
+        com.amazonaws.services.dynamodbv2.model.QueryRequest request = new com.amazonaws.services.dynamodbv2.model.QueryRequest()
+                .withTableName(tableDefinition.getTableName(tableNamePrefix, queryRequest.getSuffix()))
+                .withConsistentRead(queryRequest.isConsistentRead())
+                .withKeyConditionExpression(queryRequest.getKeyConditionExpression())
+                .withFilterExpression(queryRequest.getFilterExpression())
+                .withProjectionExpression(queryRequest.getProjectionExpression())
+                .withScanIndexForward(queryRequest.isScanIndexForward())
+                .withLimit(queryRequest.getMaxPageSize());
+        if (queryRequest.getNames() != null && !queryRequest.getNames().isEmpty()) {
+            request.withExpressionAttributeNames(queryRequest.getNames());
+        }
+        if (queryRequest.getValues() != null && !queryRequest.getValues().isEmpty()) {
+            request.withExpressionAttributeValues(ItemUtils.fromSimpleMap(queryRequest.getValues()));
+        }
+        if (queryRequest.getExclusiveStartKeys() != null) {
+            request.withExclusiveStartKey(InternalUtils.toAttributeValueMap(queryRequest.getExclusiveStartKeys()));
+        }
+        if (queryRequest.getSelect() != null) {
+            request.withSelect(queryRequest.getSelect());
+        }
+
+        String hashKey = tableDefinition.getHashKey();
+        if (queryRequest.getIndex() != null) {
+            Index index = findIndex(tableDefinition, queryRequest.getIndex().getName());
+            request.withIndexName(index.getIndexName());
+            if (index.getHashKey() != null) {
+                hashKey = index.getHashKey();
+            }
+        }
+        if (queryRequest.getKeyConditionExpression() == null) {
+            Map<String, Condition> keyConditions = new HashMap<>();
+            keyConditions.put(tableDefinition.getField(hashKey).getDynamoName(), new Condition()
+                    .withComparisonOperator(ComparisonOperator.EQ)
+                    .withAttributeValueList(InternalUtils.toAttributeValue(queryRequest.getHashKeyValue())));
+            RangeKeyCondition rangeKeyCondition = queryRequest.getRangeKeyCondition();
+            if (rangeKeyCondition != null) {
+                keyConditions.put(rangeKeyCondition.getAttrName(), new Condition()
+                        .withComparisonOperator(rangeKeyCondition.getKeyCondition().toComparisonOperator())
+                        .withAttributeValueList(InternalUtils.toAttributeValues(rangeKeyCondition.getValues())));
+            }
+            request.withKeyConditions(keyConditions);
+        }
+
+        QueryFilter[] queryFilters = queryRequest.getQueryFilters();
+        if (queryRequest.getFilterExpression() == null && queryFilters.length > 0) {
+            Map<String, Condition> filterConditions = new HashMap<>();
+            for (QueryFilter queryFilter : queryFilters) {
+                Condition condition = new Condition().withComparisonOperator(queryFilter.getComparisonOperator());
+                if (queryFilter.getValues() != null) {
+                    condition.withAttributeValueList(InternalUtils.toAttributeValues(queryFilter.getValues()));
+                }
+                filterConditions.put(queryFilter.getAttribute(), condition);
+            }
+            request.withQueryFilter(filterConditions);
+        }
+        return request;
+    }
+
+    /**
+     * Builds the first page request of a scan. As for queries, the max result size is left to the caller.
+     */
+    public <T extends DynamapRecordBean> com.amazonaws.services.dynamodbv2.model.ScanRequest buildScan(ScanRequest<T> scanRequest) {
+        TableDefinition tableDefinition = schemaRegistry.getTableDefinition(scanRequest.getResultClass());
+        com.amazonaws.services.dynamodbv2.model.ScanRequest request = new com.amazonaws.services.dynamodbv2.model.ScanRequest()
+                .withTableName(tableDefinition.getTableName(tableNamePrefix, scanRequest.getSuffix()))
+                .withFilterExpression(scanRequest.getFilterExpression())
+                .withProjectionExpression(scanRequest.getProjectionExpression())
+                .withLimit(scanRequest.getMaxPageSize());
+        if (scanRequest.getIndex() != null) {
+            request.withIndexName(scanRequest.getIndex().getName());
+        }
+        if (scanRequest.getNames() != null && !scanRequest.getNames().isEmpty()) {
+            request.withExpressionAttributeNames(scanRequest.getNames());
+        }
+        if (scanRequest.getValues() != null && !scanRequest.getValues().isEmpty()) {
+            request.withExpressionAttributeValues(ItemUtils.fromSimpleMap(scanRequest.getValues()));
+        }
+        if (scanRequest.getExclusiveStartKeys() != null) {
+            request.withExclusiveStartKey(InternalUtils.toAttributeValueMap(scanRequest.getExclusiveStartKeys()));
+        }
+        if (scanRequest.getSelect() != null) {
+            request.withSelect(scanRequest.getSelect());
+        }
+        if (scanRequest.getTotalSegments() != null && scanRequest.getSegment() != null) {
+            request.withSegment(scanRequest.getSegment()).withTotalSegments(scanRequest.getTotalSegments());
+        }
+        return request;
+    }
+
+    static Index findIndex(TableDefinition tableDefinition, String indexName) {
+        List<Index> indexes = new ArrayList<>();
+        if (tableDefinition.getGlobalSecondaryIndexes() != null) {
+            indexes.addAll(tableDefinition.getGlobalSecondaryIndexes());
+        }
+        if (tableDefinition.getLocalSecondaryIndexes() != null) {
+            indexes.addAll(tableDefinition.getLocalSecondaryIndexes());
+        }
+        return indexes.stream().filter(i -> i.getIndexName().equals(indexName)).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Index " + indexName + " is not defined for table " + tableDefinition.getTableName()));
     }
 }
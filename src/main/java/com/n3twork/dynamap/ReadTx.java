@@ -8,6 +8,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -37,8 +38,9 @@ public class ReadTx {
     private final ReadOpFactory readOpFactory;
     private final List<GetObjectParams> gets = new ArrayList<>();
     private final DynamapLoadService dynamapBeanLoader;
+    private final RetryPolicy retryPolicy;
 
-    ReadTx(AmazonDynamoDB amazonDynamoDB, ReadOpFactory readOpFactory, DynamapLoadService dynamapBeanLoader) {
+    ReadTx(AmazonDynamoDB amazonDynamoDB, ReadOpFactory readOpFactory, DynamapLoadService dynamapBeanLoader, RetryPolicy retryPolicy) {
         if (null == amazonDynamoDB) {
             throw new NullPointerException();
         }
@@ -51,6 +53,10 @@ public class ReadTx {
             throw new NullPointerException();
         }
         this.dynamapBeanLoader = dynamapBeanLoader;
+        if (null == retryPolicy) {
+            throw new NullPointerException();
+        }
+        this.retryPolicy = retryPolicy;
     }
 
     public <T extends DynamapRecordBean> void get(GetObjectParams<T> getObjectParams) {
@@ -64,7 +70,7 @@ public class ReadTx {
                 .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
         // Execute the transaction and process the result.
         try {
-            TransactGetItemsResult txResult = amazonDynamoDB.transactGetItems(tx);
+            TransactGetItemsResult txResult = transactGetItems(tx);
             List<ItemResponse> itemResponses = txResult.getResponses();
             // From AWS docs: An ordered array of up to 25 ItemResponse objects, each of which corresponds to the TransactGetItem object
             // in the same position in the TransactItems array. Each ItemResponse object contains a Map of the name-value pairs that are
@@ -80,7 +86,8 @@ public class ReadTx {
                     result.set(i, null);
                     continue;
                 }
-                result.add(dynamapBeanLoader.loadItem(ItemUtils.toItem(itemResponse.getItem()), getObjectParams.getGetObjectRequest().getResultClass()));
+                result.add(dynamapBeanLoader.skipMigration(getObjectParams.getGetObjectRequest().getProjection() != null)
+                        .loadItem(ItemUtils.toItem(itemResponse.getItem()), getObjectParams.getGetObjectRequest().getResultClass()));
             }
             return result;
         } catch (ResourceNotFoundException rnf) {
@@ -94,4 +101,20 @@ public class ReadTx {
             throw new RuntimeException(tce);
         }
     }
+
+    private TransactGetItemsResult transactGetItems(TransactGetItemsRequest tx) {
+        RetryPolicy.RetryState retryState = retryPolicy.newRetryState();
+        while (true) {
+            try {
+                return amazonDynamoDB.transactGetItems(tx);
+            } catch (TransactionCanceledException e) {
+                List<String> tableNames = tx.getTransactItems().stream().map(i -> i.getGet().getTableName()).collect(Collectors.toList());
+                Set<String> retryableTableNames = TxUtil.getRetryableTableNames(e, tableNames);
+                if (retryableTableNames == null || !retryState.backoff(retryableTableNames)) {
+                    throw e;
+                }
+                logger.debug("Retrying read transaction cancelled on tables {}", retryableTableNames);
+            }
+        }
+    }
 }
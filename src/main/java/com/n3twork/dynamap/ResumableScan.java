@@ -0,0 +1,230 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.n3twork.dynamap.model.TableDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Runs a scan that can be resumed after the process stops, by recording the progress of each segment in a checkpoint
+ * file.
+ * <p>
+ * After every checkpoint interval of fully processed pages, the last evaluated key and counts of the segment are
+ * written to a temporary file that then replaces the checkpoint file with an atomic rename, so the checkpoint is never
+ * left half written. When the scan is run again with an existing checkpoint file, each segment continues from its
+ * last evaluated key and segments that had finished are skipped. Items processed after the last checkpoint are
+ * processed again, so the consumer should be idempotent. Delete the checkpoint file to start a new scan.
+ * <p>
+ * With more than one segment, the segments run concurrently on the Dynamap executor and the consumer is called from
+ * their threads. The progress callback of the scan request is not used; the checkpoint holds the progress instead.
+ */
+public class ResumableScan<T extends DynamapRecordBean> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumableScan.class);
+    private static final ObjectMapper checkpointMapper = new ObjectMapper();
+
+    private final Dynamap dynamap;
+    private final ScanRequest<T> scanRequest;
+    private final Path checkpointFile;
+    private int totalSegments = 1;
+    private int checkpointInterval = 1;
+    private ScanCheckpoint checkpoint;
+    private volatile boolean failed;
+
+    public ResumableScan(Dynamap dynamap, ScanRequest<T> scanRequest, Path checkpointFile) {
+        if (null == dynamap || null == scanRequest || null == checkpointFile) {
+            throw new NullPointerException();
+        }
+        this.dynamap = dynamap;
+        this.scanRequest = scanRequest;
+        this.checkpointFile = checkpointFile;
+    }
+
+    /**
+     * @param totalSegments the number of segments of the scan. It must be the same when a scan is resumed.
+     * @return this object with new state
+     */
+    public ResumableScan<T> withTotalSegments(int totalSegments) {
+        if (totalSegments < 1) {
+            throw new IllegalArgumentException("totalSegments must be at least 1");
+        }
+        this.totalSegments = totalSegments;
+        return this;
+    }
+
+    /**
+     * @param checkpointInterval the number of pages a segment processes between two checkpoints
+     * @return this object with new state
+     */
+    public ResumableScan<T> withCheckpointInterval(int checkpointInterval) {
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("checkpointInterval must be at least 1");
+        }
+        this.checkpointInterval = checkpointInterval;
+        return this;
+    }
+
+    /**
+     * Scans the table, or the rest of it if a checkpoint exists, calling the consumer with each item. If the consumer
+     * throws, the segments stop at their next page and the progress of the pages already processed is kept.
+     *
+     * @return the final checkpoint
+     */
+    public ScanCheckpoint run(Consumer<T> consumer) {
+        TableDefinition tableDefinition = dynamap.getSchemaRegistry().getTableDefinition(scanRequest.getResultClass());
+        String tableName = tableDefinition.getTableName(null, scanRequest.getSuffix());
+        checkpoint = readCheckpoint(tableName);
+        failed = false;
+
+        List<ScanCheckpoint.Segment> segments = new ArrayList<>();
+        for (ScanCheckpoint.Segment segment : checkpoint.getSegments()) {
+            if (!segment.isDone()) {
+                segments.add(segment);
+            }
+        }
+        if (segments.size() == 1) {
+            runSegment(segments.get(0), consumer);
+        } else if (segments.size() > 1) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (ScanCheckpoint.Segment segment : segments) {
+                futures.add(dynamap.getExecutorService().submit(() -> runSegment(segment, consumer)));
+            }
+            RuntimeException failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failed = true;
+                    futures.forEach(f -> f.cancel(true));
+                    throw new RuntimeException("Interrupted while waiting for scan segments", e);
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+        return checkpoint;
+    }
+
+    /**
+     * @return the checkpoint of the current or last run, or null if the scan has not been run
+     */
+    public ScanCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    private void runSegment(ScanCheckpoint.Segment segment, Consumer<T> consumer) {
+        ScanRequest<T> segmentRequest = scanRequest.copy()
+                .withProgressCallback(null)
+                .withExclusiveStartKeys(segment.getExclusiveStartKeys());
+        if (totalSegments > 1) {
+            segmentRequest.withSegment(segment.getSegment()).withTotalSegments(totalSegments);
+        }
+        long previousCount = segment.getCount();
+        long previousScannedCount = segment.getScannedCount();
+        long pages = segment.getPages();
+        ScanResult<T> scanResult = dynamap.scan(segmentRequest);
+        Iterator<T> iterator = scanResult.getResultIterator();
+        int count = 0;
+        int pageEnd = 0;
+        int pagesSinceCheckpoint = 0;
+        try {
+            while (true) {
+                // the last evaluated key only covers the items processed once all the items of the fetched pages have been read
+                if (count == scanResult.getCount() && count > pageEnd) {
+                    pageEnd = count;
+                    pages++;
+                    if (++pagesSinceCheckpoint >= checkpointInterval) {
+                        pagesSinceCheckpoint = 0;
+                        checkpoint(segment, scanResult, previousCount + count, previousScannedCount, pages);
+                    }
+                    if (failed) {
+                        return;
+                    }
+                }
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                consumer.accept(iterator.next());
+                count++;
+            }
+        } catch (RuntimeException | Error e) {
+            failed = true;
+            throw e;
+        }
+        checkpoint(segment, scanResult, previousCount + count, previousScannedCount, pages);
+    }
+
+    private synchronized void checkpoint(ScanCheckpoint.Segment segment, ScanResult<T> scanResult, long count, long previousScannedCount, long pages) {
+        segment.update(scanResult.getLastEvaluatedKeys(), count, previousScannedCount + scanResult.getScannedCount(), pages);
+        writeCheckpoint();
+    }
+
+    private ScanCheckpoint readCheckpoint(String tableName) {
+        if (!Files.exists(checkpointFile)) {
+            ScanCheckpoint newCheckpoint = ScanCheckpoint.start(tableName, totalSegments);
+            logger.info("Starting scan of {} with {} segments, checkpoint: {}", tableName, totalSegments, checkpointFile);
+            return newCheckpoint;
+        }
+        ScanCheckpoint existing;
+        try {
+            existing = checkpointMapper.readValue(checkpointFile.toFile(), ScanCheckpoint.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read scan checkpoint " + checkpointFile, e);
+        }
+        if (existing.getTotalSegments() != totalSegments || !tableName.equals(existing.getTableName())) {
+            throw new IllegalStateException(String.format("Checkpoint %s is for a scan of %s with %d segments, not %s with %d segments",
+                    checkpointFile, existing.getTableName(), existing.getTotalSegments(), tableName, totalSegments));
+        }
+        logger.info("Resuming scan of {} from checkpoint {} after {} items", tableName, checkpointFile, existing.getCount());
+        return existing;
+    }
+
+    private void writeCheckpoint() {
+        try {
+            Path directory = checkpointFile.toAbsolutePath().getParent();
+            Path tempFile = Files.createTempFile(directory, checkpointFile.getFileName().toString(), ".tmp");
+            try {
+                Files.write(tempFile, checkpointMapper.writeValueAsBytes(checkpoint));
+                Files.move(tempFile, checkpointFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write scan checkpoint " + checkpointFile, e);
+        }
+    }
+}
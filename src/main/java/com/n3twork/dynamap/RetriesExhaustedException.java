@@ -0,0 +1,64 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thrown when DynamoDB still has not processed all the keys of a batch get or all the items of a batch write
+ * after the attempts or time allowed by the {@link RetryPolicy}. The work that was not processed can be
+ * resubmitted by the caller later.
+ */
+public class RetriesExhaustedException extends RuntimeException {
+
+    private final Map<String, KeysAndAttributes> unprocessedKeys;
+    private final Map<String, List<WriteRequest>> unprocessedItems;
+    private final int attempts;
+
+    RetriesExhaustedException(String message, Map<String, KeysAndAttributes> unprocessedKeys, Map<String, List<WriteRequest>> unprocessedItems, int attempts) {
+        super(message);
+        this.unprocessedKeys = unprocessedKeys == null ? Collections.emptyMap() : unprocessedKeys;
+        this.unprocessedItems = unprocessedItems == null ? Collections.emptyMap() : unprocessedItems;
+        this.attempts = attempts;
+    }
+
+    /**
+     * @return the keys of a batch get that were not retrieved, by table name
+     */
+    public Map<String, KeysAndAttributes> getUnprocessedKeys() {
+        return unprocessedKeys;
+    }
+
+    /**
+     * @return the put and delete requests of a batch write that were not processed, by table name
+     */
+    public Map<String, List<WriteRequest>> getUnprocessedItems() {
+        return unprocessedItems;
+    }
+
+    /**
+     * @return the number of requests made before giving up
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+}
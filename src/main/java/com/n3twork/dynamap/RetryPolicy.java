@@ -0,0 +1,225 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Controls how Dynamap resubmits work that DynamoDB did not process, such as the unprocessed keys of a batch get,
+ * the unprocessed items of a batch write or a transaction cancelled because of throttling.
+ * <p>
+ * Each retry waits for a random delay between zero and an exponentially increasing ceiling (full jitter), so that
+ * many clients retrying against a throttled table spread out their requests. Retries stop once either the maximum
+ * number of attempts or the time budget has been used, at which point a {@link RetriesExhaustedException} is thrown.
+ * <p>
+ * A policy is thread safe and is usually shared by many requests. It keeps a count of the retries made for each
+ * table which can be used to detect when a table is saturated.
+ */
+public class RetryPolicy {
+
+    private long baseDelayMillis = 50;
+    private long maxDelayMillis = 10000;
+    private int maxAttempts = 15;
+    private long maxElapsedMillis = 120000;
+    private RetryListener retryListener;
+
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong exhaustedCount = new AtomicLong();
+    private final Map<String, AtomicLong> retryCountsByTable = new ConcurrentHashMap<>();
+
+    /**
+     * @param baseDelayMillis the ceiling of the delay before the first retry. The ceiling doubles on each subsequent retry.
+     * @return this object with new state
+     */
+    public RetryPolicy withBaseDelayMillis(long baseDelayMillis) {
+        if (baseDelayMillis < 0) {
+            throw new IllegalArgumentException("baseDelayMillis cannot be negative");
+        }
+        this.baseDelayMillis = baseDelayMillis;
+        return this;
+    }
+
+    /**
+     * @param maxDelayMillis the largest delay between two attempts
+     * @return this object with new state
+     */
+    public RetryPolicy withMaxDelayMillis(long maxDelayMillis) {
+        if (maxDelayMillis < 0) {
+            throw new IllegalArgumentException("maxDelayMillis cannot be negative");
+        }
+        this.maxDelayMillis = maxDelayMillis;
+        return this;
+    }
+
+    /**
+     * @param maxAttempts the maximum number of requests made for an operation, including the first one
+     * @return this object with new state
+     */
+    public RetryPolicy withMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * @param maxElapsedMillis the time budget for an operation. No retry is made if its delay would end after the budget has been used.
+     * @return this object with new state
+     */
+    public RetryPolicy withMaxElapsedMillis(long maxElapsedMillis) {
+        if (maxElapsedMillis < 0) {
+            throw new IllegalArgumentException("maxElapsedMillis cannot be negative");
+        }
+        this.maxElapsedMillis = maxElapsedMillis;
+        return this;
+    }
+
+    /**
+     * @param retryListener called before each retry, for example to publish metrics
+     * @return this object with new state
+     */
+    public RetryPolicy withRetryListener(RetryListener retryListener) {
+        this.retryListener = retryListener;
+        return this;
+    }
+
+    public long getBaseDelayMillis() {
+        return baseDelayMillis;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getMaxElapsedMillis() {
+        return maxElapsedMillis;
+    }
+
+    public RetryListener getRetryListener() {
+        return retryListener;
+    }
+
+    /**
+     * @return the total number of retries made using this policy
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * @return the number of operations that gave up because the maximum attempts or the time budget were used
+     */
+    public long getExhaustedCount() {
+        return exhaustedCount.get();
+    }
+
+    /**
+     * @return the number of retries made using this policy for each table
+     */
+    public Map<String, Long> getRetryCountsByTable() {
+        return retryCountsByTable.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().get()));
+    }
+
+    RetryState newRetryState() {
+        return new RetryState();
+    }
+
+    /**
+     * Notified before a retry is made.
+     */
+    public interface RetryListener {
+
+        /**
+         * @param tableNames  the tables that had work left unprocessed
+         * @param attempt     the number of the attempt about to be made, the first retry being attempt 2
+         * @param delayMillis how long Dynamap will wait before making the attempt
+         */
+        void onRetry(Collection<String> tableNames, int attempt, long delayMillis);
+    }
+
+    /**
+     * The retry state of a single operation. Not thread safe.
+     */
+    class RetryState {
+        private final long startMillis = System.currentTimeMillis();
+        private int attempts = 1;
+
+        int getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * Waits before the next attempt.
+         *
+         * @param tableNames the tables that had work left unprocessed
+         * @return false if no more attempts should be made
+         */
+        boolean backoff(Collection<String> tableNames) {
+            long delayMillis = nextDelayMillis(tableNames);
+            if (delayMillis < 0) {
+                return false;
+            }
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting to retry", e);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Records the next attempt without waiting, for callers that schedule the retry themselves.
+         *
+         * @param tableNames the tables that had work left unprocessed
+         * @return the delay before the next attempt, or -1 if no more attempts should be made
+         */
+        long nextDelayMillis(Collection<String> tableNames) {
+            if (attempts >= maxAttempts) {
+                exhaustedCount.incrementAndGet();
+                return -1;
+            }
+            long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempts - 1, 30));
+            long delayMillis = ceiling == 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+            if (System.currentTimeMillis() + delayMillis - startMillis > maxElapsedMillis) {
+                exhaustedCount.incrementAndGet();
+                return -1;
+            }
+            attempts++;
+            retryCount.incrementAndGet();
+            for (String tableName : tableNames) {
+                retryCountsByTable.computeIfAbsent(tableName, t -> new AtomicLong()).incrementAndGet();
+            }
+            if (retryListener != null) {
+                retryListener.onRetry(tableNames, attempts, delayMillis);
+            }
+            return delayMillis;
+        }
+    }
+}
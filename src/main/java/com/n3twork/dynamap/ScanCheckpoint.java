@@ -0,0 +1,190 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.amazonaws.services.dynamodbv2.document.KeyAttribute;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * The progress of a {@link ResumableScan}, as written to its checkpoint file: for each segment, the last evaluated
+ * key of the last page that was fully processed and the number of items processed so far.
+ */
+public class ScanCheckpoint {
+
+    private final String tableName;
+    private final int totalSegments;
+    private final List<Segment> segments;
+
+    @JsonCreator
+    ScanCheckpoint(@JsonProperty("tableName") String tableName, @JsonProperty("totalSegments") int totalSegments,
+                   @JsonProperty("segments") List<Segment> segments) {
+        this.tableName = tableName;
+        this.totalSegments = totalSegments;
+        this.segments = segments;
+    }
+
+    static ScanCheckpoint start(String tableName, int totalSegments) {
+        List<Segment> segments = new ArrayList<>(totalSegments);
+        for (int i = 0; i < totalSegments; i++) {
+            segments.add(new Segment(i, null, 0, 0, 0, false));
+        }
+        return new ScanCheckpoint(tableName, totalSegments, segments);
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public int getTotalSegments() {
+        return totalSegments;
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * @return the number of items processed by all the segments
+     */
+    @JsonIgnore
+    public long getCount() {
+        return segments.stream().mapToLong(Segment::getCount).sum();
+    }
+
+    @JsonIgnore
+    public boolean isDone() {
+        return segments.stream().allMatch(Segment::isDone);
+    }
+
+    public static class Segment {
+        private final int segment;
+        private Map<String, Map<String, String>> lastEvaluatedKey;
+        private long count;
+        private long scannedCount;
+        private long pages;
+        private boolean done;
+
+        @JsonCreator
+        Segment(@JsonProperty("segment") int segment, @JsonProperty("lastEvaluatedKey") Map<String, Map<String, String>> lastEvaluatedKey,
+                @JsonProperty("count") long count, @JsonProperty("scannedCount") long scannedCount,
+                @JsonProperty("pages") long pages, @JsonProperty("done") boolean done) {
+            this.segment = segment;
+            this.lastEvaluatedKey = lastEvaluatedKey;
+            this.count = count;
+            this.scannedCount = scannedCount;
+            this.pages = pages;
+            this.done = done;
+        }
+
+        public int getSegment() {
+            return segment;
+        }
+
+        /**
+         * @return the key to resume from, as a map of attribute name to a single entry map of DynamoDB type (S, N or B, base64 encoded) to value
+         */
+        public Map<String, Map<String, String>> getLastEvaluatedKey() {
+            return lastEvaluatedKey;
+        }
+
+        /**
+         * @return the number of items processed
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the number of items evaluated by DynamoDB, before any filter expression
+         */
+        public long getScannedCount() {
+            return scannedCount;
+        }
+
+        /**
+         * @return the number of pages processed
+         */
+        public long getPages() {
+            return pages;
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+
+        void update(KeyAttribute[] lastEvaluatedKeys, long count, long scannedCount, long pages) {
+            this.lastEvaluatedKey = toJson(lastEvaluatedKeys);
+            this.count = count;
+            this.scannedCount = scannedCount;
+            this.pages = pages;
+            this.done = lastEvaluatedKeys == null;
+        }
+
+        KeyAttribute[] getExclusiveStartKeys() {
+            if (lastEvaluatedKey == null) {
+                return null;
+            }
+            List<KeyAttribute> keyAttributes = new ArrayList<>();
+            for (Map.Entry<String, Map<String, String>> entry : lastEvaluatedKey.entrySet()) {
+                Map.Entry<String, String> typedValue = entry.getValue().entrySet().iterator().next();
+                Object value;
+                switch (typedValue.getKey()) {
+                    case "S":
+                        value = typedValue.getValue();
+                        break;
+                    case "N":
+                        value = new BigDecimal(typedValue.getValue());
+                        break;
+                    case "B":
+                        value = Base64.getDecoder().decode(typedValue.getValue());
+                        break;
+                    default:
+                        throw new IllegalStateException("Unsupported key type in checkpoint: " + typedValue.getKey());
+                }
+                keyAttributes.add(new KeyAttribute(entry.getKey(), value));
+            }
+            return keyAttributes.toArray(new KeyAttribute[0]);
+        }
+
+        private static Map<String, Map<String, String>> toJson(KeyAttribute[] keyAttributes) {
+            if (keyAttributes == null) {
+                return null;
+            }
+            Map<String, Map<String, String>> json = new LinkedHashMap<>();
+            for (KeyAttribute keyAttribute : keyAttributes) {
+                Object value = keyAttribute.getValue();
+                if (value instanceof String) {
+                    json.put(keyAttribute.getName(), Collections.singletonMap("S", (String) value));
+                } else if (value instanceof BigDecimal) {
+                    json.put(keyAttribute.getName(), Collections.singletonMap("N", ((BigDecimal) value).toPlainString()));
+                } else if (value instanceof Number) {
+                    json.put(keyAttribute.getName(), Collections.singletonMap("N", value.toString()));
+                } else if (value instanceof byte[]) {
+                    json.put(keyAttribute.getName(), Collections.singletonMap("B", Base64.getEncoder().encodeToString((byte[]) value)));
+                } else {
+                    throw new IllegalArgumentException("Unsupported key type: " + value.getClass());
+                }
+            }
+            return json;
+        }
+    }
+}
@@ -36,6 +36,7 @@ public class ScanRequest<T> {
     private Object migrationContext;
     private Integer maxResultSize;
     private Integer maxPageSize;
+    private int prefetchPages;
     private ProgressCallback progressCallback;
     private boolean writeMigrationChange = true;
     private Select select;
@@ -110,6 +111,21 @@ public class ScanRequest<T> {
         return this;
     }
 
+    /**
+     * Fetches the following pages of results in the background while the current page is being read. The rate
+     * limiter and progress callback are then called from the Dynamap executor as each page is fetched.
+     *
+     * @param prefetchPages the number of pages to fetch ahead of the page being read, or 0 to fetch each page when it is needed
+     * @return this object with new state
+     */
+    public ScanRequest<T> withPrefetchPages(int prefetchPages) {
+        if (prefetchPages < 0) {
+            throw new IllegalArgumentException("prefetchPages cannot be negative");
+        }
+        this.prefetchPages = prefetchPages;
+        return this;
+    }
+
     public ScanRequest<T> withProgressCallback(ProgressCallback progressCallback) {
         this.progressCallback = progressCallback;
         return this;
@@ -125,6 +141,28 @@ public class ScanRequest<T> {
         return this;
     }
 
+    ScanRequest<T> copy() {
+        ScanRequest<T> copy = new ScanRequest<>(resultClass);
+        copy.index = index;
+        copy.projectionExpression = projectionExpression;
+        copy.filterExpression = filterExpression;
+        copy.values = values;
+        copy.names = names;
+        copy.readRateLimiter = readRateLimiter;
+        copy.exclusiveStartKeys = exclusiveStartKeys;
+        copy.segment = segment;
+        copy.totalSegments = totalSegments;
+        copy.migrationContext = migrationContext;
+        copy.maxResultSize = maxResultSize;
+        copy.maxPageSize = maxPageSize;
+        copy.prefetchPages = prefetchPages;
+        copy.progressCallback = progressCallback;
+        copy.writeMigrationChange = writeMigrationChange;
+        copy.select = select;
+        copy.suffix = suffix;
+        return copy;
+    }
+
     public Select getSelect() {
         return select;
     }
@@ -185,6 +223,10 @@ public class ScanRequest<T> {
         return maxPageSize;
     }
 
+    public int getPrefetchPages() {
+        return prefetchPages;
+    }
+
     public boolean isWriteMigrationChange() {
         return writeMigrationChange;
     }
@@ -24,13 +24,27 @@ import org.apache.commons.io.IOUtils;
 
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SchemaRegistry {
 
     private final Schema schema;
 
-    private final Map<Class<? extends DynamapRecordBean>, List<Migration>> tableMigrations = new HashMap<>();
+    private final Map<Class<? extends DynamapRecordBean>, List<Migration>> tableMigrations = new ConcurrentHashMap<>();
     private final Map<String, TableDefinition> classToTableDefinitions = new HashMap<>();
+    // resolved once per class, including subclasses of the generated types, and safe to read from any thread
+    private final ClassValue<Optional<TableDefinition>> tableDefinitionsByClass = new ClassValue<Optional<TableDefinition>>() {
+        @Override
+        protected Optional<TableDefinition> computeValue(Class<?> clazz) {
+            for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+                TableDefinition tableDefinition = classToTableDefinitions.get(c.getName());
+                if (tableDefinition != null) {
+                    return Optional.of(tableDefinition);
+                }
+            }
+            return Optional.empty();
+        }
+    };
 
     public SchemaRegistry(InputStream... schemaInput) {
         List<TableDefinition> tableDefinitions = new ArrayList<>();
@@ -39,8 +53,6 @@ public class SchemaRegistry {
                 Schema schema = new ObjectMapper().readValue(inputStream, Schema.class);
                 schema.validate();
                 tableDefinitions.addAll(schema.getTableDefinitions());
-                buildTableDefinitionNames(tableDefinitions);
-
             } catch (Exception e) {
                 throw new RuntimeException(e);
             } finally {
@@ -48,6 +60,7 @@ public class SchemaRegistry {
             }
         }
         this.schema = new Schema(tableDefinitions);
+        buildTableDefinitionNames(tableDefinitions);
     }
 
     public void registerMigration(Class<? extends DynamapRecordBean> resultClass, Migration migration) {
@@ -55,13 +68,13 @@ public class SchemaRegistry {
         if (!getTableDefinition(resultClass).isEnableMigrations()) {
             throw new RuntimeException("Migrations have not been enabled for " + resultClass.getCanonicalName());
         }
-        List<Migration> migrations = tableMigrations.get(resultClass);
-        if (migrations == null) {
-            migrations = new ArrayList<>();
-            tableMigrations.put(resultClass, migrations);
-        }
-        migrations.add(migration);
-        migrations.sort(Comparator.comparingInt(m -> m.getVersion()));
+        // readers get an immutable snapshot, registering replaces it
+        tableMigrations.compute(resultClass, (k, existing) -> {
+            List<Migration> migrations = existing == null ? new ArrayList<>() : new ArrayList<>(existing);
+            migrations.add(migration);
+            migrations.sort(Comparator.comparingInt(m -> m.getVersion()));
+            return Collections.unmodifiableList(migrations);
+        });
     }
 
     public List<Migration> getMigrations(Class<? extends DynamapRecordBean> resultClass) {
@@ -78,17 +91,7 @@ public class SchemaRegistry {
 
 
     public <T extends DynamapRecordBean> TableDefinition getTableDefinition(Class<T> clazz) {
-        if (clazz.getCanonicalName().equals("java.lang.Object")) {
-            return null;
-        }
-        TableDefinition tableDefinition = classToTableDefinitions.get(clazz.getCanonicalName());
-        if (tableDefinition == null) {
-            tableDefinition = getTableDefinition((Class<T>) clazz.getSuperclass());
-            if (tableDefinition != null) {
-                classToTableDefinitions.put(clazz.getCanonicalName(), tableDefinition);
-            }
-        }
-        return tableDefinition;
+        return tableDefinitionsByClass.get(clazz).orElse(null);
     }
 
     private void buildTableDefinitionNames(List<TableDefinition> tableDefinitions) {
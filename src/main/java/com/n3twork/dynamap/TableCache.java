@@ -2,13 +2,34 @@ package com.n3twork.dynamap;
 
 import com.amazonaws.services.dynamodbv2.document.DynamoDB;
 import com.amazonaws.services.dynamodbv2.document.Table;
+import com.amazonaws.services.dynamodbv2.model.BillingModeSummary;
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputDescription;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.google.common.collect.MapMaker;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public class TableCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TableCache.class);
+
     private final DynamoDB dynamoDB;
-    private final Map<String, Table> tableCache = new HashMap<>();
+    private final Map<String, Table> tableCache = new ConcurrentHashMap<>();
+    private final Map<String, DescribedTable> descriptions = new ConcurrentHashMap<>();
+    // limiters are often created per request, so they are held weakly and dropped once they are no longer used
+    private final Map<String, Set<DynamoRateLimiter>> rateLimiters = new ConcurrentHashMap<>();
+    private ScheduledExecutorService refreshExecutor;
+    private ScheduledFuture<?> refreshFuture;
+    private volatile long maxAgeNanos = TimeUnit.MINUTES.toNanos(1);
 
     public TableCache(DynamoDB dynamoDB) {
         if (null == dynamoDB) {
@@ -18,11 +39,119 @@ public class TableCache {
     }
 
     public Table getTable(String tableName) {
-        Table table = tableCache.get(tableName);
-        if (table == null) {
-            table = dynamoDB.getTable(tableName);
-            tableCache.put(tableName, table);
+        return tableCache.computeIfAbsent(tableName, dynamoDB::getTable);
+    }
+
+    /**
+     * Returns the description of the table, which is requested from DynamoDB the first time and then shared by all
+     * callers until it is older than the max age or is refreshed. The returned description must not be modified.
+     */
+    public TableDescription getDescription(String tableName) {
+        DescribedTable describedTable = descriptions.get(tableName);
+        if (describedTable == null || isExpired(describedTable)) {
+            describedTable = describe(tableName, false);
+        }
+        return describedTable.description;
+    }
+
+    /**
+     * Sets how long a description is shared before the table is described again, one minute by default, so that rate
+     * limiters initialized later see the current capacity of the table even if the periodic refresh is not enabled.
+     */
+    public void setMaxAge(long maxAge, TimeUnit unit) {
+        if (maxAge < 0) {
+            throw new IllegalArgumentException("maxAge cannot be negative");
+        }
+        this.maxAgeNanos = unit.toNanos(maxAge);
+    }
+
+    /**
+     * Describes the cached tables again every interval, in a background daemon thread, and updates the rate limiters
+     * of any table whose billing mode or provisioned throughput has changed. An interval of zero stops the refresh.
+     */
+    public synchronized void setRefreshInterval(long interval, TimeUnit unit) {
+        if (refreshFuture != null) {
+            refreshFuture.cancel(false);
+            refreshFuture = null;
+        }
+        if (interval <= 0) {
+            if (refreshExecutor != null) {
+                refreshExecutor.shutdown();
+                refreshExecutor = null;
+            }
+        } else {
+            if (refreshExecutor == null) {
+                refreshExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("dynamap-table-refresh-%d").setDaemon(true).build());
+            }
+            refreshFuture = refreshExecutor.scheduleWithFixedDelay(this::refresh, interval, interval, unit);
+        }
+    }
+
+    void addRateLimiter(String tableName, DynamoRateLimiter rateLimiter) {
+        rateLimiters.computeIfAbsent(tableName, name -> Collections.newSetFromMap(new MapMaker().weakKeys().makeMap())).add(rateLimiter);
+    }
+
+    void refresh() {
+        for (String tableName : descriptions.keySet()) {
+            try {
+                describe(tableName, true);
+            } catch (Exception e) {
+                // the previous description is kept until the next refresh
+                logger.warn("Could not refresh the description of table " + tableName, e);
+            }
+        }
+    }
+
+    // a table is described by one caller at a time, and its limiters are updated once the description is stored
+    private DescribedTable describe(String tableName, boolean force) {
+        TableDescription[] previous = new TableDescription[1];
+        DescribedTable describedTable = descriptions.compute(tableName, (name, existing) -> {
+            if (!force && existing != null && !isExpired(existing)) {
+                return existing;
+            }
+            previous[0] = existing == null ? null : existing.description;
+            return new DescribedTable(dynamoDB.getTable(name).describe(), System.nanoTime());
+        });
+        if (previous[0] != null && !capacityOf(previous[0]).equals(capacityOf(describedTable.description))) {
+            logger.debug("Capacity of table {} changed to {}", tableName, capacityOf(describedTable.description));
+            Set<DynamoRateLimiter> tableRateLimiters = rateLimiters.get(tableName);
+            if (tableRateLimiters != null) {
+                for (DynamoRateLimiter rateLimiter : tableRateLimiters) {
+                    rateLimiter.updateCapacity(describedTable.description);
+                }
+            }
+        }
+        return describedTable;
+    }
+
+    private boolean isExpired(DescribedTable describedTable) {
+        return System.nanoTime() - describedTable.describedAtNanos > maxAgeNanos;
+    }
+
+    private static Map<String, Object> capacityOf(TableDescription description) {
+        Map<String, Object> capacity = new HashMap<>();
+        BillingModeSummary billingModeSummary = description.getBillingModeSummary();
+        capacity.put("billingMode", billingModeSummary == null ? null : billingModeSummary.getBillingMode());
+        capacity.put("table", unitsOf(description.getProvisionedThroughput()));
+        if (description.getGlobalSecondaryIndexes() != null) {
+            for (GlobalSecondaryIndexDescription index : description.getGlobalSecondaryIndexes()) {
+                capacity.put("index:" + index.getIndexName(), unitsOf(index.getProvisionedThroughput()));
+            }
+        }
+        return capacity;
+    }
+
+    private static List<Long> unitsOf(ProvisionedThroughputDescription throughput) {
+        return throughput == null ? null : Arrays.asList(throughput.getReadCapacityUnits(), throughput.getWriteCapacityUnits());
+    }
+
+    private static class DescribedTable {
+        private final TableDescription description;
+        private final long describedAtNanos;
+
+        DescribedTable(TableDescription description, long describedAtNanos) {
+            this.description = description;
+            this.describedAtNanos = describedAtNanos;
         }
-        return table;
     }
 }
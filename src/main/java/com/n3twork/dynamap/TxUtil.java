@@ -2,23 +2,55 @@ package com.n3twork.dynamap;
 
 import com.amazonaws.services.dynamodbv2.document.ItemUtils;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.CancellationReason;
+import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException;
 import com.n3twork.dynamap.model.TableDefinition;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 class TxUtil {
+
+    private static final Set<String> RETRYABLE_CANCELLATION_CODES = new HashSet<>(Arrays.asList("ThrottlingError", "ProvisionedThroughputExceeded", "TransactionConflict"));
+
     /**
      * @return A Map of key attributes as expected by the low level DynamoDB API.
      */
     static Map<String, AttributeValue> getKey(TableDefinition tableDefinition, String hashKeyValue, Object rangeKeyValue) {
         Map<String, AttributeValue> key = new HashMap<>();
-        String hashKeyFieldName = tableDefinition.getField(tableDefinition.getHashKey()).getDynamoName();
+        String hashKeyFieldName = tableDefinition.getHashKeyDynamoName();
         key.put(hashKeyFieldName, new AttributeValue(hashKeyValue));
         if (null != tableDefinition.getRangeKey()) {
-            String rangeKeyFieldName = tableDefinition.getField(tableDefinition.getRangeKey()).getDynamoName();
+            String rangeKeyFieldName = tableDefinition.getRangeKeyDynamoName();
             key.put(rangeKeyFieldName, ItemUtils.toAttributeValue(rangeKeyValue));
         }
         return key;
     }
+
+    /**
+     * A transaction is only worth retrying when it was cancelled because of throttling or a conflicting
+     * transaction. Condition failures and validation errors will fail again.
+     *
+     * @param tableNames the table of each action of the transaction, in the same order as the actions
+     * @return the tables of the actions that should be retried, or null if the transaction should not be retried
+     */
+    static Set<String> getRetryableTableNames(TransactionCanceledException e, List<String> tableNames) {
+        List<CancellationReason> reasons = e.getCancellationReasons();
+        if (reasons == null || reasons.isEmpty()) {
+            return null;
+        }
+        Set<String> retryableTableNames = new HashSet<>();
+        for (int i = 0; i < reasons.size(); i++) {
+            String code = reasons.get(i).getCode();
+            if (code == null || "None".equals(code)) {
+                continue;
+            }
+            if (!RETRYABLE_CANCELLATION_CODES.contains(code)) {
+                return null;
+            }
+            if (i < tableNames.size()) {
+                retryableTableNames.add(tableNames.get(i));
+            }
+        }
+        return retryableTableNames.isEmpty() ? null : retryableTableNames;
+    }
 }
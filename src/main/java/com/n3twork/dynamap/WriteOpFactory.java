@@ -3,12 +3,14 @@ package com.n3twork.dynamap;
 import com.amazonaws.services.dynamodbv2.document.ItemUtils;
 import com.amazonaws.services.dynamodbv2.model.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.n3twork.dynamap.model.Schema;
 import com.n3twork.dynamap.model.TableDefinition;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -47,13 +49,13 @@ class WriteOpFactory {
         TableDefinition tableDefinition = schemaRegistry.getTableDefinition(dynamapRecordBean.getClass());
         return new Put()
                 .withTableName(tableDefinition.getTableName(tableNamePrefix))
-                .withItem(ItemUtils.toAttributeValues(dynamoItemFactory.asDynamoItem(dynamapRecordBean, tableDefinition)));
+                .withItem(dynamoItemFactory.asAttributeValues(dynamapRecordBean, tableDefinition));
     }
 
     public <T extends DynamapRecordBean> Put buildPut(SaveParams<T> saveParams, DynamoItemFactory dynamoItemFactory) {
         T dynamapRecordBean = saveParams.getDynamapRecordBean();
         TableDefinition tableDefinition = schemaRegistry.getTableDefinition(dynamapRecordBean.getClass());
-        String hashKeyFieldName = tableDefinition.getField(tableDefinition.getHashKey()).getDynamoName();
+        String hashKeyFieldName = tableDefinition.getHashKeyDynamoName();
         // Some code duplication between here and DynamapSaveService, TODO clean it up
         List<String> conditionalExpressions = new ArrayList<>();
         boolean overwrite = !saveParams.isDisableOverwrite();
@@ -62,7 +64,7 @@ class WriteOpFactory {
         }
         Put put = new Put()
                 .withTableName(tableDefinition.getTableName(tableNamePrefix))
-                .withItem(ItemUtils.toAttributeValues(dynamoItemFactory.asDynamoItem(dynamapRecordBean, tableDefinition)));
+                .withItem(dynamoItemFactory.asAttributeValues(dynamapRecordBean, tableDefinition));
         if (conditionalExpressions.size() > 0) {
             put.withConditionExpression(String.join(" AND ", conditionalExpressions));
             put.withReturnValuesOnConditionCheckFailure(saveParams.getReturnValuesOnConditionCheckFailure());
@@ -70,6 +72,56 @@ class WriteOpFactory {
         return put;
     }
 
+    /**
+     * Builds a stand alone PutItem request with the same conditions as {@link Dynamap#save(SaveParams)}, including
+     * the optimistic locking check and the condition expressions of the save params.
+     */
+    public <T extends DynamapRecordBean> PutItemRequest buildPutItem(SaveParams<T> saveParams) {
+        T dynamapRecordBean = saveParams.getDynamapRecordBean();
+        TableDefinition tableDefinition = schemaRegistry.getTableDefinition(dynamapRecordBean.getClass());
+        Map<String, AttributeValue> item = new DynamoItemFactory(objectMapper, saveParams.isDisableOptimisticLocking()).asAttributeValues(dynamapRecordBean, tableDefinition);
+        String hashKeyFieldName = tableDefinition.getHashKeyDynamoName();
+
+        List<String> conditionalExpressions = new ArrayList<>();
+        Map<String, String> nameMap = new HashMap<>();
+        Map<String, Object> valueMap = new HashMap<>();
+        if (saveParams.getConditionExpressions() != null) {
+            conditionalExpressions.addAll(saveParams.getConditionExpressions());
+        }
+        if (saveParams.getNames() != null) {
+            nameMap.putAll(saveParams.getNames());
+        }
+        if (saveParams.getValues() != null) {
+            valueMap.putAll(saveParams.getValues());
+        }
+        if (saveParams.isDisableOverwrite()) {
+            conditionalExpressions.add("attribute_not_exists(" + hashKeyFieldName + ")");
+        }
+        if (!saveParams.isDisableOptimisticLocking() && tableDefinition.isOptimisticLocking()) {
+            // the revision has already been incremented in the item, the condition is on the original value
+            int revision = Integer.parseInt(item.get(Schema.REVISION_FIELD).getN()) - 1;
+            if (revision > 0) {
+                conditionalExpressions.add("#name0=:val0");
+                nameMap.put("#name0", Schema.REVISION_FIELD);
+                valueMap.put(":val0", revision);
+            }
+        }
+
+        PutItemRequest putItemRequest = new PutItemRequest()
+                .withTableName(tableDefinition.getTableName(tableNamePrefix, saveParams.getSuffix()))
+                .withItem(item);
+        if (conditionalExpressions.size() > 0) {
+            putItemRequest.withConditionExpression(String.join(" AND ", conditionalExpressions));
+            if (!nameMap.isEmpty()) {
+                putItemRequest.withExpressionAttributeNames(nameMap);
+            }
+            if (!valueMap.isEmpty()) {
+                putItemRequest.withExpressionAttributeValues(ItemUtils.fromSimpleMap(valueMap));
+            }
+        }
+        return putItemRequest;
+    }
+
     public <T extends DynamapPersisted<U>, U extends RecordUpdates<T>> Update buildUpdate(UpdateParams<T> updateParams) {
         RecordUpdates<T> updates = updateParams.getUpdates();
         TableDefinition tableDefinition = schemaRegistry.getTableDefinition(updates.getTableName());
@@ -89,6 +141,44 @@ class WriteOpFactory {
                 .withExpressionAttributeValues(ItemUtils.fromSimpleMap(expressionBuilder.getValueMap()));
     }
 
+    /**
+     * Builds a stand alone UpdateItem request for the table with the suffix of the update params.
+     */
+    public <T extends DynamapPersisted<U>, U extends RecordUpdates<T>> UpdateItemRequest buildUpdateItem(UpdateParams<T> updateParams) {
+        RecordUpdates<T> updates = updateParams.getUpdates();
+        DynamoExpressionBuilder expressionBuilder = updates.getExpressionBuilder();
+        expressionBuilder.setObjectMapper(objectMapper);
+        updates.processUpdateExpression();
+        return buildUpdateItem(updateParams, expressionBuilder);
+    }
+
+    /**
+     * Builds a stand alone UpdateItem request using an expression builder that has already been processed.
+     */
+    public <T extends DynamapPersisted<U>, U extends RecordUpdates<T>> UpdateItemRequest buildUpdateItem(UpdateParams<T> updateParams, DynamoExpressionBuilder expressionBuilder) {
+        RecordUpdates<T> updates = updateParams.getUpdates();
+        TableDefinition tableDefinition = schemaRegistry.getTableDefinition(updates.getTableName());
+        UpdateItemRequest updateItemRequest = new UpdateItemRequest()
+                .withTableName(tableDefinition.getTableName(tableNamePrefix, updateParams.getSuffix()))
+                .withKey(TxUtil.getKey(tableDefinition, updates.getHashKeyValue(), updates.getRangeKeyValue()))
+                .withReturnValues(ReturnValue.fromValue(updateParams.getDynamapReturnValue().toString()));
+        String updateExpression = expressionBuilder.buildUpdateExpression();
+        if (StringUtils.isNotEmpty(updateExpression)) {
+            updateItemRequest.withUpdateExpression(updateExpression);
+        }
+        String conditionExpression = expressionBuilder.buildConditionalExpression();
+        if (StringUtils.isNotEmpty(conditionExpression)) {
+            updateItemRequest.withConditionExpression(conditionExpression);
+        }
+        if (!expressionBuilder.getNameMap().isEmpty()) {
+            updateItemRequest.withExpressionAttributeNames(expressionBuilder.getNameMap());
+        }
+        if (!expressionBuilder.getValueMap().isEmpty()) {
+            updateItemRequest.withExpressionAttributeValues(ItemUtils.fromSimpleMap(expressionBuilder.getValueMap()));
+        }
+        return updateItemRequest;
+    }
+
     public Delete buildDelete(DeleteRequest<?> deleteRequest) {
         TableDefinition tableDefinition = schemaRegistry.getTableDefinition(deleteRequest.getResultClass());
         Map<String, AttributeValue> key = TxUtil.getKey(tableDefinition, deleteRequest.getHashKeyValue(), deleteRequest.getRangeKeyValue());
@@ -110,6 +200,20 @@ class WriteOpFactory {
         return delete;
     }
 
+    /**
+     * Builds a stand alone DeleteItem request for the table with the suffix of the delete request.
+     */
+    public DeleteItemRequest buildDeleteItem(DeleteRequest<?> deleteRequest) {
+        TableDefinition tableDefinition = schemaRegistry.getTableDefinition(deleteRequest.getResultClass());
+        Delete delete = buildDelete(deleteRequest);
+        return new DeleteItemRequest()
+                .withTableName(tableDefinition.getTableName(tableNamePrefix, deleteRequest.getSuffix()))
+                .withKey(delete.getKey())
+                .withConditionExpression(delete.getConditionExpression())
+                .withExpressionAttributeNames(delete.getExpressionAttributeNames())
+                .withExpressionAttributeValues(delete.getExpressionAttributeValues());
+    }
+
     public <T extends DynamapRecordBean> ConditionCheck buildConditionCheck(WriteConditionCheck<T> writeConditionCheck) {
         TableDefinition tableDefinition = schemaRegistry.getTableDefinition(writeConditionCheck.getBeanClass());
         ConditionCheck conditionCheck = new ConditionCheck()
@@ -8,7 +8,9 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * A DynamoDB Write Transaction - A synchronous write operation that groups up to 25 action requests. These
@@ -43,8 +45,9 @@ public class WriteTx {
     private final Collection<TransactWriteItem> items = new ArrayList<>();
     private final WriteOpFactory writeOpFactory;
     private final DynamoItemFactory dynamoItemFactory;
+    private final RetryPolicy retryPolicy;
 
-    WriteTx(AmazonDynamoDB amazonDynamoDB, WriteOpFactory writeOpFactory, DynamoItemFactory dynamoItemFactory) {
+    WriteTx(AmazonDynamoDB amazonDynamoDB, WriteOpFactory writeOpFactory, DynamoItemFactory dynamoItemFactory, RetryPolicy retryPolicy) {
         if (null == amazonDynamoDB) {
             throw new NullPointerException();
         }
@@ -57,6 +60,10 @@ public class WriteTx {
             throw new NullPointerException();
         }
         this.dynamoItemFactory = dynamoItemFactory;
+        if (null == retryPolicy) {
+            throw new NullPointerException();
+        }
+        this.retryPolicy = retryPolicy;
     }
 
     public <T extends DynamapPersisted<U>, U extends RecordUpdates<T>> void update(UpdateParams<T> u) {
@@ -83,10 +90,44 @@ public class WriteTx {
         items.add(new TransactWriteItem().withConditionCheck(writeOpFactory.buildConditionCheck(writeConditionCheck)));
     }
 
+    /**
+     * Executes the transaction. A transaction cancelled only because of throttling or a conflicting transaction is
+     * retried according to the Dynamap retry policy; other cancellations are thrown straight away.
+     */
     public TransactWriteItemsResult exec() {
-        return amazonDynamoDB.transactWriteItems(
-                new TransactWriteItemsRequest()
-                        .withTransactItems(items)
-                        .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL));
+        TransactWriteItemsRequest request = buildRequest();
+        RetryPolicy.RetryState retryState = retryPolicy.newRetryState();
+        while (true) {
+            try {
+                return amazonDynamoDB.transactWriteItems(request);
+            } catch (TransactionCanceledException e) {
+                Set<String> retryableTableNames = TxUtil.getRetryableTableNames(e, getTableNames());
+                if (retryableTableNames == null || !retryState.backoff(retryableTableNames)) {
+                    throw e;
+                }
+                logger.debug("Retrying write transaction cancelled on tables {}", retryableTableNames);
+            }
+        }
+    }
+
+    TransactWriteItemsRequest buildRequest() {
+        return new TransactWriteItemsRequest()
+                .withTransactItems(items)
+                .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+    }
+
+    List<String> getTableNames() {
+        return items.stream().map(item -> {
+            if (item.getPut() != null) {
+                return item.getPut().getTableName();
+            }
+            if (item.getUpdate() != null) {
+                return item.getUpdate().getTableName();
+            }
+            if (item.getDelete() != null) {
+                return item.getDelete().getTableName();
+            }
+            return item.getConditionCheck().getTableName();
+        }).collect(Collectors.toList());
     }
 }
@@ -42,13 +42,22 @@ public class TableDefinition {
     private final boolean optimisticLocking;
     private final String schemaVersionField;
     private final boolean enableMigrations;
+    private final boolean lazyDecoding;
+    // lookups compiled from the types, which are not modified once the definition is built
+    private final Map<String, Type> typesByName;
+    private final Type rootType;
+    private final Map<String, Field> fieldsByName;
+    private final Optional<Field> ttlField;
+    private final String hashKeyDynamoName;
+    private final String rangeKeyDynamoName;
     private final List<PersistAsFieldItem> persistAsFieldItems;
     private final List<CompressCollectionItem> compressCollectionItems;
 
     @JsonCreator
     public TableDefinition(@JsonProperty("table") String tableName, @JsonProperty("description") String description, @JsonProperty("package") String packageName, @JsonProperty("type") String type, @JsonProperty("hashKey") String hashKey, @JsonProperty("rangeKey") String rangeKey,
                            @JsonProperty("version") int version, @JsonProperty("types") List<Type> types, @JsonProperty("globalSecondaryIndexes") List<Index> globalSecondaryIndexes, @JsonProperty("localSecondaryIndexes") List<Index> localSecondaryIndexes, @JsonProperty("optimisticLocking") boolean optimisticLocking,
-                           @JsonProperty("schemaVersionField") String schemaVersionField, @JsonProperty("enableMigrations") Boolean enableMigrations) {
+                           @JsonProperty("schemaVersionField") String schemaVersionField, @JsonProperty("enableMigrations") Boolean enableMigrations,
+                           @JsonProperty("lazyDecoding") Boolean lazyDecoding) {
         this.tableName = tableName;
         this.description = description;
         this.packageName = packageName;
@@ -62,6 +71,22 @@ public class TableDefinition {
         this.optimisticLocking = optimisticLocking;
         this.schemaVersionField = schemaVersionField == null ? DEFAULT_SCHEMA_VERSION_FIELD : schemaVersionField;
         this.enableMigrations = enableMigrations == null ? Boolean.TRUE : enableMigrations;
+        this.lazyDecoding = lazyDecoding == null ? Boolean.FALSE : lazyDecoding;
+        this.typesByName = new HashMap<>();
+        for (Type t : types) {
+            typesByName.putIfAbsent(t.getName(), t);
+        }
+        this.rootType = typesByName.get(type);
+        if (rootType == null) {
+            throw new IllegalArgumentException(String.format("Table %s has no type named %s.", tableName, type));
+        }
+        this.fieldsByName = new HashMap<>();
+        for (Field field : rootType.getFields()) {
+            fieldsByName.putIfAbsent(field.getName(), field);
+        }
+        this.ttlField = rootType.getFields().stream().filter(Field::isTtl).findFirst();
+        this.hashKeyDynamoName = fieldsByName.containsKey(hashKey) ? fieldsByName.get(hashKey).getDynamoName() : null;
+        this.rangeKeyDynamoName = rangeKey != null && fieldsByName.containsKey(rangeKey) ? fieldsByName.get(rangeKey).getDynamoName() : null;
         this.persistAsFieldItems = buildPersistAsListFields();
         this.compressCollectionItems = buildCompressFields();
     }
@@ -128,22 +153,60 @@ public class TableDefinition {
         return enableMigrations;
     }
 
+    /**
+     * @return true if the generated beans keep the attributes they were loaded from and decode each field when it is
+     * first read
+     */
+    public boolean isLazyDecoding() {
+        return lazyDecoding;
+    }
+
+    /**
+     * @return the field of the table type with the given name
+     * @throws NoSuchElementException if the table type has no such field
+     */
     public Field getField(String fieldName) {
-        Type tableType = getTypes().stream().filter(t -> t.getName().equals(getType())).findFirst().get();
-        return tableType.getFields().stream().filter(f -> f.getName().equals(fieldName)).findFirst().get();
+        Field field = fieldsByName.get(fieldName);
+        if (field == null) {
+            throw new NoSuchElementException("Table " + tableName + " has no field " + fieldName);
+        }
+        return field;
     }
 
     public Type getFieldType(String type) {
-        return getTypes().stream().filter(t -> t.getName().equals(type)).findFirst().get();
+        Type fieldType = typesByName.get(type);
+        if (fieldType == null) {
+            throw new NoSuchElementException("Table " + tableName + " has no type " + type);
+        }
+        return fieldType;
+    }
+
+    /**
+     * @return the type of the items of the table
+     */
+    @JsonIgnore
+    public Type getRootType() {
+        return rootType;
+    }
 
+    @JsonIgnore
+    public String getHashKeyDynamoName() {
+        return hashKeyDynamoName;
+    }
+
+    /**
+     * @return the DynamoDB name of the range key, or null if the table has no range key
+     */
+    @JsonIgnore
+    public String getRangeKeyDynamoName() {
+        return rangeKeyDynamoName;
     }
 
     /**
      * @return The TTL field for this table, or Optional.EMPTY if none is defined.
      */
     public Optional<Field> getTtlField() {
-        Type tableType = getTypes().stream().filter(t -> t.getName().equals(getType())).findFirst().get();
-        return tableType.getFields().stream().filter(Field::isTtl).findFirst();
+        return ttlField;
     }
 
     @JsonIgnore
@@ -160,7 +223,6 @@ public class TableDefinition {
         List<PersistAsFieldItem> paths = new ArrayList<>();
         Set<String> typeNames = getTypes().stream().map(t -> t.getName()).collect(Collectors.toSet());
 
-        Type rootType = getTypes().stream().filter(t -> t.getName().equals(getType())).findFirst().get();
         paths.addAll(getPersistAsFieldItem(rootType, null));
 
         for (Field field : rootType.getFields()) {
@@ -175,7 +237,7 @@ public class TableDefinition {
         List<CompressCollectionItem> items = new ArrayList<>();
         for (Field field : type.getFields()) {
             if (field.isCompressCollection()) {
-                items.add(new CompressCollectionItem(parentKey, field.getDynamoName()));
+                items.add(new CompressCollectionItem(parentKey, field.getDynamoName(), field.getCompressCollection()));
             }
         }
         return items;
@@ -185,7 +247,6 @@ public class TableDefinition {
         List<CompressCollectionItem> paths = new ArrayList<>();
         Set<String> typeNames = getTypes().stream().map(t -> t.getName()).collect(Collectors.toSet());
 
-        Type rootType = getTypes().stream().filter(t -> t.getName().equals(getType())).findFirst().get();
         paths.addAll(getCompressFieldItem(rootType, null));
 
         for (Field field : rootType.getFields()) {
@@ -221,13 +282,15 @@ public class TableDefinition {
 
     public static class CompressCollectionItem {
 
-        public CompressCollectionItem(String parentKey, String itemKey) {
+        public CompressCollectionItem(String parentKey, String itemKey, String codec) {
             this.parentKey = parentKey;
             this.itemKey = itemKey;
+            this.codec = codec;
         }
 
         public final String parentKey;
         public final String itemKey;
+        public final String codec;
     }
 
     // Ideally, we would do validation using a strict JSON Schema. But until we add something like that, it's
@@ -21,6 +21,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -32,6 +33,8 @@ public class Type {
     private final List<Field> fields;
     private final List<String> hashCodeFields;
     private final List<String> equalsFields;
+    private final List<Field> persistedFields;
+    private final List<Field> serializedFields;
 
     @JsonCreator
     public Type(@JsonProperty("Name") String name, @JsonProperty("description") String description, @JsonProperty("fields") List<Field> fields,
@@ -41,6 +44,8 @@ public class Type {
         this.fields = fields;
         this.hashCodeFields = hashCodeFields;
         this.equalsFields = equalsFields;
+        this.persistedFields = fields == null ? Collections.emptyList() : Collections.unmodifiableList(fields.stream().filter(f -> f.isPersist()).collect(Collectors.toList()));
+        this.serializedFields = fields == null ? Collections.emptyList() : Collections.unmodifiableList(fields.stream().filter(f -> f.isSerialize()).collect(Collectors.toList()));
     }
 
     public String getName() {
@@ -57,12 +62,12 @@ public class Type {
 
     @JsonIgnore
     public List<Field> getPersistedFields() {
-        return fields.stream().filter(f -> f.isPersist()).collect(Collectors.toList());
+        return persistedFields;
     }
 
     @JsonIgnore
     public List<Field> getSerializedFields() {
-        return fields.stream().filter(f -> f.isSerialize()).collect(Collectors.toList());
+        return serializedFields;
     }
 
     public List<String> getHashCodeFields() {
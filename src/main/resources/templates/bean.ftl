@@ -17,6 +17,21 @@
 
 <#include "common.ftl">
 
+<#-- fields of lazily decoded tables are decoded from the attributes the bean was loaded from when first read -->
+<#function is_lazy field>
+    <#return tableDefinition.isLazyDecoding() && field.isSerialize() && field.isPersist() && !field.isCompressCollection()>
+</#function>
+
+<#-- compressed collections and lazy fields are read through a method decoding them on first use -->
+<#function field_ref name>
+    <#list type.fields as field>
+        <#if field.name == name && (field.isCompressCollection() || is_lazy(field))>
+            <#return "decoded" + name?cap_first + "()">
+        </#if>
+    </#list>
+    <#return name>
+</#function>
+
 package ${package};
 
 <#list imports as import>
@@ -30,6 +45,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+<#if tableDefinition.isLazyDecoding()>
+import com.fasterxml.jackson.databind.ObjectMapper;
+</#if>
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class ${beanName} implements ${type.name}<#if isRoot>, DynamapRecordBean<${type.name}></#if> {
@@ -42,7 +60,17 @@ public class ${beanName} implements ${type.name}<#if isRoot>, DynamapRecordBean<
     @JsonDeserialize(as=<@field_type field=field />Bean.class)
     </#if>
     private <@field_type field=field /> ${field.name};
+    <#if field.isCompressCollection()>
+    volatile CompressedCollection<<@field_type field=field />> ${field.name}Compressed;
+    </#if>
+    <#if is_lazy(field)>
+    private volatile boolean ${field.name}Decoded;
+    </#if>
     </#list>
+    <#if tableDefinition.isLazyDecoding()>
+    private Map<String, ?> _attributes;
+    private ObjectMapper _objectMapper;
+    </#if>
     <#if isRoot>
     @JsonProperty(SCHEMA_VERSION_FIELD)
     private Integer _schemaVersion;
@@ -102,9 +130,31 @@ public class ${beanName} implements ${type.name}<#if isRoot>, DynamapRecordBean<
         </#if>
     }
 
+    <#if tableDefinition.isLazyDecoding()>
+    static ${beanName} fromAttributes(Map<String, ?> attributes, ObjectMapper objectMapper) {
+        ${beanName} bean = new ${beanName}();
+        bean._attributes = attributes;
+        bean._objectMapper = objectMapper;
+        <#if isRoot && optimisticLocking>
+        Integer revision = DecodeUtil.asInteger(attributes.get(REVISION_FIELD));
+        bean._revision = revision == null ? 0 : revision;
+        </#if>
+        <#if tableDefinition.isEnableMigrations() && isRoot>
+        Integer schemaVersion = DecodeUtil.asInteger(attributes.get(SCHEMA_VERSION_FIELD));
+        bean._schemaVersion = schemaVersion == null ? SCHEMA_VERSION : schemaVersion;
+        </#if>
+        return bean;
+    }
+
+    </#if>
     public ${beanName}(${type.name} bean) {
 
     <#list type.fields as field>
+        <#if field.isCompressCollection()>
+        if (bean instanceof ${beanName} && ((${beanName}) bean).${field.name}Compressed != null) {
+            this.${field.name}Compressed = ((${beanName}) bean).${field.name}Compressed;
+        } else {
+        </#if>
         <#if field.isCollection() && field.type == 'Map'>
         <#if field.type == 'Map'>
         this.${field.name} = new HashMap();
@@ -115,6 +165,9 @@ public class ${beanName} implements ${type.name}<#if isRoot>, DynamapRecordBean<
         <#else>
         this.${field.name} = bean.get${field.name?cap_first}();
         </#if>
+        <#if field.isCompressCollection()>
+        }
+        </#if>
      </#list>
     <#if isRoot && optimisticLocking>
         this._revision = bean.getRevision();
@@ -164,13 +217,13 @@ public class ${beanName} implements ${type.name}<#if isRoot>, DynamapRecordBean<
     @JsonIgnore
     @Override
     public String getHashKeyValue() {
-        return ${tableDefinition.hashKey};
+        return ${field_ref(tableDefinition.hashKey)};
     }
 
     @JsonIgnore
     public Object getRangeKeyValue() {
         <#if tableDefinition.rangeKey??>
-        return ${tableDefinition.rangeKey};
+        return ${field_ref(tableDefinition.rangeKey)};
         <#else>
         return null;
         </#if>
@@ -182,7 +235,7 @@ public class ${beanName} implements ${type.name}<#if isRoot>, DynamapRecordBean<
     public int hashCode() {
         int result = 0;
         <#list type.hashCodeFields as field>
-        result = 31 * result + (${field} == null ? 0 : ${field}.hashCode());
+        result = 31 * result + (${field_ref(field)} == null ? 0 : ${field_ref(field)}.hashCode());
         </#list>
         return result;
     }
@@ -197,7 +250,7 @@ public class ${beanName} implements ${type.name}<#if isRoot>, DynamapRecordBean<
         ${type.name} that = (${type.name}) o;
 
         <#list type.equalsFields as field>
-        if (!${field}.equals(that.get${field?cap_first}())) return false;
+        if (!${field_ref(field)}.equals(that.get${field?cap_first}())) return false;
         </#list>
         return true;
     }
@@ -216,7 +269,7 @@ public class ${beanName} implements ${type.name}<#if isRoot>, DynamapRecordBean<
         <#assign comma=true/>
         </#if>
         <#list type.fields as field>
-            sb.append("<#if comma??>,</#if>${field.name}=").append(${field.name});
+            sb.append("<#if comma??>,</#if>${field.name}=").append(${field_ref(field.name)});
             <#assign comma=true/>
         </#list>
         sb.append("}");
@@ -229,20 +282,52 @@ public class ${beanName} implements ${type.name}<#if isRoot>, DynamapRecordBean<
     </#if>
     @Override
     public <@field_type field=field /> get${field.name?cap_first}() {
+        <#if field.isCompressCollection() || is_lazy(field)>
+        <@field_type field=field /> value = decoded${field.name?cap_first}();
+        return value == null ? <@defaultValue field=field elementOnly=false /> : value;
+        <#else>
         return this.${field.name} == null ? <@defaultValue field=field elementOnly=false /> : ${field.name};
+        </#if>
     }
     public ${beanName} set${field.name?cap_first}(<@field_type field=field /> value) {
         this.${field.name} = value;
+        <#if field.isCompressCollection()>
+        this.${field.name}Compressed = null;
+        </#if>
+        <#if is_lazy(field)>
+        this.${field.name}Decoded = true;
+        </#if>
         return this;
     }
+    <#if field.isCompressCollection()>
+    private <@field_type field=field /> decoded${field.name?cap_first}() {
+        CompressedCollection<<@field_type field=field />> compressed = ${field.name}Compressed;
+        if (compressed != null) {
+            ${field.name} = compressed.decode();
+            ${field.name}Compressed = null;
+        }
+        return ${field.name};
+    }
+    </#if>
+    <#if is_lazy(field)>
+    private <@field_type field=field /> decoded${field.name?cap_first}() {
+        if (!${field.name}Decoded) {
+            if (_attributes != null) {
+                ${field.name} = ${decoderName}.decode${field.name?cap_first}(_attributes, _objectMapper);
+            }
+            ${field.name}Decoded = true;
+        }
+        return ${field.name};
+    }
+    </#if>
     <#if field.type == 'Map'>
         @JsonIgnore
         public Set<String> get${field.name?cap_first}Ids() {
-        return ${field.name} == null ? Collections.emptySet() : this.${field.name}.keySet();
+        return ${field_ref(field.name)} == null ? Collections.emptySet() : this.${field.name}.keySet();
         }
         @JsonIgnore
         public ${field.elementType} get${field.name?cap_first}<@collection_item field=field />(String id) {
-            Map<String, ${field.elementType}> map = ${field.name} == null ? Collections.emptyMap() : ${field.name};
+            Map<String, ${field.elementType}> map = ${field_ref(field.name)} == null ? Collections.emptyMap() : ${field_ref(field.name)};
             <#if field.useDefaultForNulls()>
             return map.getOrDefault(id, <@defaultValue field=field elementOnly=true/>);
             <#else>
@@ -289,7 +374,7 @@ public class ${beanName} implements ${type.name}<#if isRoot>, DynamapRecordBean<
     @Override
     </#if>
     public boolean is${field.name?cap_first}Set() {
-        return ${field.name} != null;
+        return <#if is_lazy(field)>decoded${field.name?cap_first}()<#else>${field.name}</#if> != null<#if field.isCompressCollection()> || ${field.name}Compressed != null</#if>;
     }
     </#list>
 
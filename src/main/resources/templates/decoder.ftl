@@ -0,0 +1,154 @@
+<#--
+    Copyright 2017 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+-->
+
+
+
+<#include "common.ftl">
+
+<#function builtin_decoder elementType>
+    <#switch elementType>
+        <#case "String"><#return "DecodeUtil::asString">
+        <#case "Integer"><#return "DecodeUtil::asInteger">
+        <#case "Long"><#return "DecodeUtil::asLong">
+        <#case "Float"><#return "DecodeUtil::asFloat">
+        <#case "Double"><#return "DecodeUtil::asDouble">
+        <#case "Boolean"><#return "DecodeUtil::asBoolean">
+        <#case "byte[]"><#return "DecodeUtil::asBytes">
+        <#default><#return "">
+    </#switch>
+</#function>
+
+<#function element_decoder field>
+    <#if field.isGeneratedType()>
+        <#return "e -> " + field.elementType + "Decoder.INSTANCE.decode(DecodeUtil.asMap(e), objectMapper)">
+    <#elseif builtin_decoder(field.elementType) != "">
+        <#return builtin_decoder(field.elementType)>
+    <#else>
+        <#return "">
+    </#if>
+</#function>
+
+<#-- fields whose value is converted as a whole with the ObjectMapper -->
+<#function uses_type_reference field>
+    <#return !field.isSerializeAsList() && element_decoder(field) == "">
+</#function>
+
+<#function uses_element_type_reference field>
+    <#return field.isSerializeAsList() && element_decoder(field) == "">
+</#function>
+
+<#-- compressed collections are decoded from their bytes when first read -->
+<#macro decode_field field>
+    <#compress>
+    <#if field.isCompressCollection()>
+        <#assign value = "DecodeUtil.decompress(bytes, objectMapper)">
+    <#else>
+        <#assign value = "attributes.get(" + type.name + "." + field.name?upper_case + "_FIELD)">
+    </#if>
+    <#if field.isSerializeAsList()>
+        <#if element_decoder(field) != "">
+        DecodeUtil.toMapFromList(${value}, "${field.serializeAsListElementId}", ${element_decoder(field)})
+        <#else>
+        DecodeUtil.toMapFromList(${value}, "${field.serializeAsListElementId}", e -> DecodeUtil.convert(e, objectMapper, ${field.name?upper_case}_ELEMENT_TYPE))
+        </#if>
+    <#elseif uses_type_reference(field)>
+        DecodeUtil.convert(${value}, objectMapper, ${field.name?upper_case}_TYPE)
+    <#elseif field.isCollection()>
+        <#if field.type == 'Map'>
+        DecodeUtil.toMap(${value}, ${element_decoder(field)})
+        <#elseif field.type == 'List'>
+        DecodeUtil.toList(${value}, ${element_decoder(field)})
+        <#else>
+        DecodeUtil.toSet(${value}, ${element_decoder(field)})
+        </#if>
+    <#elseif field.isGeneratedType()>
+        ${field.elementType}Decoder.INSTANCE.decode(DecodeUtil.asMap(${value}), objectMapper)
+    <#else>
+        ${builtin_decoder(field.elementType)?replace("::", ".")}(${value})
+    </#if>
+    </#compress>
+</#macro>
+
+package ${package};
+
+<#list imports as import>
+import ${import};
+</#list>
+
+import java.util.*;
+import com.n3twork.dynamap.*;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Builds ${beanName} objects directly from the attributes of an item.
+<#if tableDefinition.isLazyDecoding()>
+ * The beans keep the attributes and decode each field when it is first read.
+</#if>
+ */
+public class ${decoderName} implements BeanDecoder<${beanName}> {
+
+    public static final ${decoderName} INSTANCE = new ${decoderName}();
+
+    <#list type.serializedFields as field>
+    <#if uses_type_reference(field)>
+    private static final TypeReference<<@field_type field=field />> ${field.name?upper_case}_TYPE = new TypeReference<<@field_type field=field />>() {
+    };
+    <#elseif uses_element_type_reference(field)>
+    private static final TypeReference<${field.elementType}> ${field.name?upper_case}_ELEMENT_TYPE = new TypeReference<${field.elementType}>() {
+    };
+    </#if>
+    </#list>
+
+    <#list type.serializedFields as field>
+    <#assign fieldType><#if field.generatedType>${field.elementType}Bean<#else><@field_type field=field /></#if></#assign>
+    <#if field.isCompressCollection()>
+    static ${fieldType} decode${field.name?cap_first}(byte[] bytes, ObjectMapper objectMapper) {
+    <#else>
+    static ${fieldType} decode${field.name?cap_first}(Map<String, ?> attributes, ObjectMapper objectMapper) {
+    </#if>
+        return <@decode_field field=field />;
+    }
+
+    </#list>
+    @Override
+    public Class<${beanName}> getBeanClass() {
+        return ${beanName}.class;
+    }
+
+    @Override
+    public ${beanName} decode(Map<String, ?> attributes, ObjectMapper objectMapper) {
+        if (attributes == null) {
+            return null;
+        }
+        <#if tableDefinition.isLazyDecoding()>
+        ${beanName} bean = ${beanName}.fromAttributes(attributes, objectMapper);
+        <#else>
+        ${beanName} bean = new ${beanName}(
+            <#list type.serializedFields as field>
+            <#if field.isCompressCollection()>null<#else>decode${field.name?cap_first}(attributes, objectMapper)</#if><#sep>,
+            </#list><#if isRoot && optimisticLocking>,
+            DecodeUtil.asInteger(attributes.get(${type.name}.REVISION_FIELD))</#if><#if tableDefinition.isEnableMigrations() && isRoot>,
+            DecodeUtil.asInteger(attributes.get(${type.name}.SCHEMA_VERSION_FIELD))</#if>);
+        </#if>
+        <#list type.serializedFields as field>
+        <#if field.isCompressCollection()>
+        bean.${field.name}Compressed = DecodeUtil.compressed(attributes.get(${type.name}.${field.name?upper_case}_FIELD), bytes -> decode${field.name?cap_first}(bytes, objectMapper));
+        </#if>
+        </#list>
+        return bean;
+    }
+}
@@ -0,0 +1,138 @@
+<#--
+    Copyright 2017 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+-->
+
+
+
+<#include "common.ftl">
+
+<#function builtin_encoder elementType>
+    <#switch elementType>
+        <#case "String"><#return "EncodeUtil::fromString">
+        <#case "Integer"><#case "Long"><#case "Float"><#case "Double"><#return "EncodeUtil::fromNumber">
+        <#case "Boolean"><#return "EncodeUtil::fromBoolean">
+        <#case "byte[]"><#return "EncodeUtil::fromBytes">
+        <#default><#return "">
+    </#switch>
+</#function>
+
+<#-- elements of collections that are not built in types are converted with the ObjectMapper, as the whole bean was -->
+<#function element_encoder field>
+    <#if builtin_encoder(field.elementType) != "">
+        <#return builtin_encoder(field.elementType)>
+    <#else>
+        <#return "e -> EncodeUtil.convert(e, objectMapper)">
+    </#if>
+</#function>
+
+<#function set_encoder field>
+    <#switch field.elementType>
+        <#case "String"><#return "EncodeUtil.fromStringSet(" + field.name + "Value)">
+        <#case "Integer"><#case "Long"><#case "Float"><#case "Double"><#return "EncodeUtil.fromNumberSet(" + field.name + "Value)">
+        <#case "byte[]"><#return "EncodeUtil.fromBytesSet(" + field.name + "Value)">
+        <#default><#return "EncodeUtil.fromSet(" + field.name + "Value, " + element_encoder(field) + ")">
+    </#switch>
+</#function>
+
+<#macro encode_field field>
+    <#compress>
+    <#if field.isCompressCollection()>
+        <#if field.isSerializeAsList()>
+        EncodeUtil.compress(${field.name}Value == null ? null : ${field.name}Value.values(), "${field.getCompressCollection()}", objectMapper)
+        <#elseif field.type == 'Set' && isRoot>
+        EncodeUtil.compress(${field.name}Value == null || ${field.name}Value.isEmpty() ? null : ${field.name}Value, "${field.getCompressCollection()}", objectMapper)
+        <#else>
+        EncodeUtil.compress(${field.name}Value, "${field.getCompressCollection()}", objectMapper)
+        </#if>
+    <#elseif field.isSerializeAsList()>
+        EncodeUtil.fromList(${field.name}Value == null ? null : ${field.name}Value.values(), ${element_encoder(field)})
+    <#elseif field.isCollection()>
+        <#if field.type == 'Map'>
+        EncodeUtil.fromMap(${field.name}Value, ${element_encoder(field)})
+        <#elseif field.type == 'List' || !isRoot>
+        EncodeUtil.fromList(${field.name}Value, ${element_encoder(field)})
+        <#else>
+        ${set_encoder(field)}
+        </#if>
+    <#elseif field.isGeneratedType()>
+        EncodeUtil.fromAttributes(${field.elementType}Encoder.INSTANCE.encode(${field.name}Value, false, objectMapper))
+    <#elseif builtin_encoder(field.elementType) != "">
+        ${builtin_encoder(field.elementType)?replace("::", ".")}(${field.name}Value)
+    <#else>
+        EncodeUtil.convert(${field.name}Value, objectMapper)
+    </#if>
+    </#compress>
+</#macro>
+
+package ${package};
+
+<#list imports as import>
+import ${import};
+</#list>
+
+import java.util.*;
+import com.n3twork.dynamap.*;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes the persisted fields of ${type.name} objects directly into the attributes of an item.
+ */
+public class ${encoderName} implements BeanEncoder<${type.name}> {
+
+    public static final ${encoderName} INSTANCE = new ${encoderName}();
+
+    @Override
+    public Class<${beanName}> getBeanClass() {
+        return ${beanName}.class;
+    }
+
+    @Override
+    public Map<String, AttributeValue> encode(${type.name} bean, boolean incrementRevision, ObjectMapper objectMapper) {
+        if (bean == null) {
+            return null;
+        }
+        Map<String, AttributeValue> attributes = new HashMap<>();
+        <#if !isRoot>
+        boolean includeNulls = EncodeUtil.includesNulls(objectMapper);
+        </#if>
+        <#list type.persistedFields as field>
+        <#if field.isCompressCollection()>
+        <#-- a compressed collection that was never read is written back as it was stored -->
+        CompressedCollection<<@field_type field=field />> ${field.name}Compressed = bean instanceof ${beanName} ? ((${beanName}) bean).${field.name}Compressed : null;
+        <@field_type field=field /> ${field.name}Value = ${field.name}Compressed == null ? bean.get${field.name?cap_first}() : null;
+        <#assign encoded>${field.name}Compressed != null ? EncodeUtil.fromBytes(${field.name}Compressed.getBytes()) : <@encode_field field=field /></#assign>
+        <#else>
+        <@field_type field=field /> ${field.name}Value = bean.get${field.name?cap_first}();
+        <#assign encoded><@encode_field field=field /></#assign>
+        </#if>
+        <#if isRoot>
+        EncodeUtil.put(attributes, ${type.name}.${field.name?upper_case}_FIELD, ${encoded});
+        <#else>
+        EncodeUtil.putNested(attributes, ${type.name}.${field.name?upper_case}_FIELD, ${encoded}, includeNulls);
+        </#if>
+        </#list>
+        <#if isRoot && tableDefinition.isEnableMigrations()>
+        attributes.put(${type.name}.SCHEMA_VERSION_FIELD, EncodeUtil.fromNumber(${type.name}.SCHEMA_VERSION));
+        </#if>
+        <#if isRoot && optimisticLocking>
+        if (incrementRevision) {
+            Integer revision = bean.getRevision();
+            attributes.put(${type.name}.REVISION_FIELD, EncodeUtil.fromNumber(revision == null ? 1 : revision + 1));
+        }
+        </#if>
+        return attributes;
+    }
+}
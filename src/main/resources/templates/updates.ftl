@@ -567,7 +567,7 @@ public class ${updatesName} implements ${type.name}, <#if isRoot>Record</#if>Upd
                     Object preprocess_${field.name?cap_first} = get${field.name?cap_first}();
                 </#if>
                 <#if field.isCompressCollection()>
-                    expression.setValue(parentDynamoFieldName, "${field.dynamoName}", GZipUtil.serialize(preprocess_${field.name?cap_first}, expression.getObjectMapper()));
+                    expression.setValue(parentDynamoFieldName, "${field.dynamoName}", CompressionCodecs.serialize(preprocess_${field.name?cap_first}, expression.getObjectMapper(), CompressionCodecs.forName("${field.getCompressCollection()}")));
                 <#else>
                     expression.setMultiValue(parentDynamoFieldName, "${field.dynamoName}", preprocess_${field.name?cap_first}, ${field.elementType}.class);
                 </#if>
@@ -591,7 +591,7 @@ public class ${updatesName} implements ${type.name}, <#if isRoot>Record</#if>Upd
                 }
             <#else>
                 <#if field.isCompressCollection()>
-                expression.setValue(parentDynamoFieldName, "${field.dynamoName}", GZipUtil.serialize(get${field.name?cap_first}(), expression.getObjectMapper()));
+                expression.setValue(parentDynamoFieldName, "${field.dynamoName}", CompressionCodecs.serialize(get${field.name?cap_first}(), expression.getObjectMapper(), CompressionCodecs.forName("${field.getCompressCollection()}")));
                 <#else>
                 expression.setMultiValue(parentDynamoFieldName, "${field.dynamoName}", get${field.name?cap_first}(), ${field.elementType}.class);
                 </#if>
@@ -603,7 +603,7 @@ public class ${updatesName} implements ${type.name}, <#if isRoot>Record</#if>Upd
                 expression.deleteValuesFromSet(parentDynamoFieldName, "${field.dynamoName}", ${field.name}Deletes, ${field.elementType}.class);
             <#else>
                <#if field.isCompressCollection()>
-                expression.setValue(parentDynamoFieldName, "${field.dynamoName}", GZipUtil.serialize(get${field.name?cap_first}(), expression.getObjectMapper()));
+                expression.setValue(parentDynamoFieldName, "${field.dynamoName}", CompressionCodecs.serialize(get${field.name?cap_first}(), expression.getObjectMapper(), CompressionCodecs.forName("${field.getCompressCollection()}")));
                <#else>
                 expression.setMultiValue(parentDynamoFieldName, "${field.dynamoName}", get${field.name?cap_first}(), ${field.elementType}.class);
                 </#if>
@@ -0,0 +1,127 @@
+/*
+    Copyright 2018 N3TWORK INC
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package com.n3twork.dynamap;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.n3twork.dynamap.test.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the client side cost of the document API and the low level API of Dynamap. The client is a stub that
+ * returns canned results, so only the building of the requests and the conversion of the items is measured.
+ * <p>
+ * Build it with the benchmark profile, which generates the JMH classes, and run it with the test classpath:
+ * <pre>
+ * mvn -P benchmark clean test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/classpath.txt) com.n3twork.dynamap.DynamapApiBenchmark
+ * </pre>
+ * JMH options, such as -f 1 -wi 2 -i 3, can be added after the class name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DynamapApiBenchmark {
+
+    private static final String PREFIX = "bench";
+    private static final int QUERY_PAGE_SIZE = 25;
+
+    @Param({"document", "lowLevel"})
+    public String api;
+
+    private Dynamap dynamap;
+    private TestDocumentBean doc;
+    private GetObjectParams<TestDocumentBean> getObjectParams;
+    private QueryRequest<TestDocumentBean> queryRequest;
+
+    @Setup
+    public void setup() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        SchemaRegistry schemaRegistry = new SchemaRegistry(getClass().getResourceAsStream("/TestSchema.json"));
+        CustomType customType = new CustomType("item1", "test", CustomType.CustomTypeEnum.VALUE_A);
+        NestedTypeBean nested = new NestedTypeBean().setId("nested").setMapOfLong(ImmutableMap.of("a", 1L, "b", 2L))
+                .setCustomType(customType).setSetOfLong(ImmutableSet.of(3L, 4L)).setListOfLong(ImmutableList.of(5L, 6L, 7L));
+        doc = new TestDocumentBean("id", 1).setNestedObject(nested).setString("benchmark").setIntegerField(5)
+                .setMapOfLong(ImmutableMap.of("x", 1L, "y", 2L, "z", 3L)).setListOfString(ImmutableList.of("a", "b", "c"))
+                .setSetOfString(ImmutableSet.of("s", "t")).setMapOfCustomType(ImmutableMap.of(customType.getName(), customType));
+
+        Map<String, AttributeValue> item = TestDocumentEncoder.INSTANCE.encode(doc, false, objectMapper);
+        String tableName = schemaRegistry.getTableDefinition(TestDocumentBean.class).getTableName(PREFIX);
+        dynamap = new Dynamap(stubClient(tableName, item), schemaRegistry).withPrefix(PREFIX).withObjectMapper(objectMapper)
+                .withLowLevelApi("lowLevel".equals(api));
+        getObjectParams = new GetObjectParams<>(new GetObjectRequest<>(TestDocumentBean.class).withHashKeyValue("id").withRangeKeyValue(1));
+        queryRequest = new QueryRequest<>(TestDocumentBean.class).withHashKeyValue("id");
+    }
+
+    @Benchmark
+    public TestDocumentBean getObject() {
+        return dynamap.getObject(getObjectParams);
+    }
+
+    @Benchmark
+    public void save() {
+        dynamap.save(new SaveParams<>(doc));
+    }
+
+    @Benchmark
+    public List<TestDocumentBean> query() {
+        return dynamap.query(queryRequest);
+    }
+
+    private static AmazonDynamoDB stubClient(String tableName, Map<String, AttributeValue> item) {
+        List<Map<String, AttributeValue>> page = Collections.nCopies(QUERY_PAGE_SIZE, item);
+        return (AmazonDynamoDB) Proxy.newProxyInstance(DynamapApiBenchmark.class.getClassLoader(), new Class[]{AmazonDynamoDB.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getItem":
+                    return new GetItemResult().withItem(item);
+                case "batchGetItem":
+                    return new BatchGetItemResult().withResponses(Collections.singletonMap(tableName, Collections.singletonList(item)))
+                            .withUnprocessedKeys(Collections.emptyMap());
+                case "putItem":
+                    return new PutItemResult();
+                case "query":
+                    return new QueryResult().withItems(page).withCount(page.size()).withScannedCount(page.size());
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().parent(new CommandLineOptions(args)).include(DynamapApiBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -17,25 +17,48 @@
 package com.n3twork.dynamap;
 
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceRequest;
 import com.amazonaws.auth.profile.ProfileCredentialsProvider;
+import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import com.amazonaws.services.dynamodbv2.document.DynamoDB;
 import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.ItemUtils;
+import com.amazonaws.services.dynamodbv2.document.KeyAttribute;
 import com.amazonaws.services.dynamodbv2.document.QueryFilter;
 import com.amazonaws.services.dynamodbv2.document.RangeKeyCondition;
 import com.amazonaws.services.dynamodbv2.document.utils.ValueMap;
 import com.amazonaws.services.dynamodbv2.local.embedded.DynamoDBEmbedded;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.BillingMode;
+import com.amazonaws.services.dynamodbv2.model.CancellationReason;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughput;
 import com.amazonaws.services.dynamodbv2.model.Select;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateTableRequest;
 import com.amazonaws.util.IOUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.n3twork.BatchSaveParams;
+import com.n3twork.dynamap.model.TableDefinition;
 import com.n3twork.dynamap.test.*;
 import org.apache.commons.lang3.RandomUtils;
 import org.testng.Assert;
@@ -44,11 +67,27 @@ import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 
 public class DynamapTest {
 
@@ -79,7 +118,8 @@ public class DynamapTest {
         schemaRegistry = new SchemaRegistry(getClass().getResourceAsStream("/TestSchema.json"),
                 getClass().getResourceAsStream("/DummySchema.json"),
                 getClass().getResourceAsStream("/DummyLocalIndexSchema.json"),
-                getClass().getResourceAsStream("/NoMigrationSchema.json"));
+                getClass().getResourceAsStream("/NoMigrationSchema.json"),
+                getClass().getResourceAsStream("/LazySchema.json"));
         // Create tables
         dynamap = new Dynamap(ddb, schemaRegistry).withPrefix("test").withObjectMapper(objectMapper);
         dynamap.createTables(System.getProperty("aws.profile") == null, 10, 10);
@@ -91,6 +131,19 @@ public class DynamapTest {
         Assert.assertNotNull(doc.toString());
     }
 
+    @Test
+    public void testTableDefinitionLookup() {
+        TableDefinition tableDefinition = schemaRegistry.getTableDefinition(TestDocumentBean.class);
+        Assert.assertEquals(tableDefinition.getTableName(), "Test");
+        Assert.assertEquals(tableDefinition.getHashKeyDynamoName(), tableDefinition.getField(tableDefinition.getHashKey()).getDynamoName());
+        Assert.assertEquals(tableDefinition.getRootType().getName(), "TestDocument");
+        // subclasses, including anonymous ones, resolve to the table of the generated bean
+        TestDocumentBean subclass = new TestDocumentBean("id", 1) {
+        };
+        Assert.assertSame(schemaRegistry.getTableDefinition(subclass.getClass()), tableDefinition);
+        Assert.assertNull(schemaRegistry.getTableDefinition(DynamapRecordBean.class));
+    }
+
     @Test
     public void testGetObject() {
 
@@ -145,6 +198,16 @@ public class DynamapTest {
         Assert.assertEquals(updated.getNestedObject().getString(), "string2");
     }
 
+    @Test
+    public void testRateLimiterConsumedCapacity() {
+        // the capacity of concurrent responses is added up, beyond the permit each request acquired
+        DynamoRateLimiter rateLimiter = new DynamoRateLimiter(DynamoRateLimiter.RateLimitType.READ, 50);
+        rateLimiter.setConsumedCapacity(new ConsumedCapacity().withCapacityUnits(5.0));
+        rateLimiter.setConsumedCapacity(ImmutableList.of(new ConsumedCapacity().withCapacityUnits(2.0), new ConsumedCapacity().withCapacityUnits(1.0)));
+        rateLimiter.setConsumedCapacity(new ConsumedCapacity().withCapacityUnits(0.5));
+        Assert.assertEquals(rateLimiter.getPermitsToConsume(), 7);
+    }
+
     @Test
     public void testRateLimiters() {
         ReadWriteRateLimiterPair rateLimiterPair = ReadWriteRateLimiterPair.of(new DynamoRateLimiter(DynamoRateLimiter.RateLimitType.READ, 20),
@@ -443,6 +506,135 @@ public class DynamapTest {
         Assert.assertTrue(doc.getGzipSetOfCustomType().contains(customType2));
     }
 
+    @Test
+    public void testDeflateMap() {
+        NestedTypeBean nested = createNestedTypeBean();
+        TestDocumentBean doc = createTestDocumentBean(nested);
+        CustomType customType1 = new CustomType("item1", "test", CustomType.CustomTypeEnum.VALUE_A);
+        doc.setDeflateMapOfCustomType(ImmutableMap.of(customType1.getName(), customType1));
+        dynamap.save(new SaveParams<>(doc));
+
+        CustomType customType2 = new CustomType("item2", "test", CustomType.CustomTypeEnum.VALUE_B);
+        TestDocumentUpdates testDocumentUpdates = dynamap.getObject(createGetObjectParams(doc)).createUpdates();
+        Assert.assertEquals(testDocumentUpdates.getDeflateMapOfCustomTypeItem("item1"), customType1);
+        testDocumentUpdates.setDeflateMapOfCustomTypeItem(customType2.getName(), customType2);
+        dynamap.update(new UpdateParams<>(testDocumentUpdates));
+
+        Map<String, AttributeValue> key = ImmutableMap.of(TestDocument.ID_FIELD, new AttributeValue(doc.getId()),
+                TestDocument.SEQUENCE_FIELD, new AttributeValue().withN(doc.getSequence().toString()));
+        byte[] stored = ddb.getItem(new GetItemRequest(schemaRegistry.getTableDefinition(TestDocumentBean.class).getTableName("test"), key)).getItem()
+                .get(TestDocument.DEFLATEMAPOFCUSTOMTYPE_FIELD).getB().array();
+        Assert.assertEquals(stored[0], CompressionCodecs.forName("deflate:9").getTag());
+        doc = dynamap.getObject(createGetObjectParams(doc));
+        Assert.assertEquals(doc.getDeflateMapOfCustomType(), ImmutableMap.of("item1", customType1, "item2", customType2));
+    }
+
+    @Test
+    public void testLazyCompressedCollection() {
+        TestDocumentBean doc = createTestDocumentBean(createNestedTypeBean());
+        dynamap.save(new SaveParams<>(doc));
+        CustomType customType = new CustomType("item1", "test", CustomType.CustomTypeEnum.VALUE_A);
+        byte[] level0 = CompressionCodecs.serialize(ImmutableMap.of(customType.getName(), customType), objectMapper, CompressionCodecs.deflate(0));
+        String tableName = schemaRegistry.getTableDefinition(TestDocumentBean.class).getTableName("test");
+        Map<String, AttributeValue> key = ImmutableMap.of(TestDocument.ID_FIELD, new AttributeValue(doc.getId()),
+                TestDocument.SEQUENCE_FIELD, new AttributeValue().withN(doc.getSequence().toString()));
+        Function<byte[], Void> store = bytes -> {
+            ddb.updateItem(new UpdateItemRequest().withTableName(tableName).withKey(key).withUpdateExpression("SET #f = :v")
+                    .withExpressionAttributeNames(ImmutableMap.of("#f", TestDocument.DEFLATEMAPOFCUSTOMTYPE_FIELD))
+                    .withExpressionAttributeValues(ImmutableMap.of(":v", new AttributeValue().withB(ByteBuffer.wrap(bytes)))));
+            return null;
+        };
+        Supplier<byte[]> stored = () -> DecodeUtil.asBytes(ddb.getItem(new GetItemRequest(tableName, key)).getItem().get(TestDocument.DEFLATEMAPOFCUSTOMTYPE_FIELD));
+
+        // the stored bytes are not decoded by a load, and are written back as they are if never read
+        store.apply(level0);
+        TestDocumentBean loaded = dynamap.getObject(createGetObjectParams(doc));
+        Assert.assertTrue(loaded.isDeflateMapOfCustomTypeSet());
+        dynamap.save(new SaveParams<>(loaded.setString("changed")));
+        Assert.assertEquals(stored.get(), level0);
+
+        // once read the collection is compressed again with the codec of the field
+        loaded = dynamap.getObject(createGetObjectParams(doc));
+        Assert.assertEquals(loaded.getDeflateMapOfCustomTypeItem("item1"), customType);
+        dynamap.save(new SaveParams<>(loaded));
+        Assert.assertNotEquals(stored.get(), level0);
+        Assert.assertEquals(dynamap.getObject(createGetObjectParams(doc)).getDeflateMapOfCustomType(), ImmutableMap.of("item1", customType));
+
+        store.apply(new byte[]{100});
+        loaded = dynamap.getObject(createGetObjectParams(doc));
+        Assert.assertEquals(loaded.getString(), "changed");
+        TestDocumentBean undecodable = loaded;
+        Assert.assertThrows(IllegalArgumentException.class, undecodable::getDeflateMapOfCustomType);
+    }
+
+    @Test
+    public void testLazyDecoding() {
+        CustomType customType = new CustomType("item1", "test", CustomType.CustomTypeEnum.VALUE_A);
+        LazyDocBean doc = new LazyDocBean("lazy1").setName("name").setMapOfLong(ImmutableMap.of("a", 1L)).setTags(ImmutableSet.of("x", "y"))
+                .setProfile(new LazyProfileBean().setDisplayName("display").setScores(ImmutableMap.of("s", 2L)))
+                .setGzipListOfCustomType(ImmutableList.of(customType)).setNotPersisted("notPersisted");
+        dynamap.save(new SaveParams<>(doc));
+
+        GetObjectParams<LazyDocBean> getObjectParams = new GetObjectParams<>(new GetObjectRequest<>(LazyDocBean.class).withHashKeyValue("lazy1"));
+        for (Dynamap api : Arrays.asList(dynamap, new Dynamap(ddb, schemaRegistry).withPrefix("test").withObjectMapper(objectMapper).withLowLevelApi(true))) {
+            LazyDocBean loaded = api.getObject(getObjectParams);
+            Assert.assertEquals(loaded, doc);
+            Assert.assertEquals(loaded.getRevision().intValue(), 1);
+            Assert.assertEquals(loaded.getName(), "name");
+            Assert.assertEquals(loaded.getLevel().intValue(), 1);
+            Assert.assertEquals(loaded.getMapOfLongValue("a").longValue(), 1L);
+            Assert.assertEquals(loaded.getTags(), ImmutableSet.of("x", "y"));
+            Assert.assertEquals(loaded.getProfile().getScoresValue("s").longValue(), 2L);
+            Assert.assertEquals(loaded.getGzipListOfCustomType(), ImmutableList.of(customType));
+            Assert.assertNull(loaded.getNotPersisted());
+            Assert.assertFalse(loaded.isNotPersistedSet());
+        }
+
+        // a field that is never read is never decoded, and a field that is set is not decoded
+        String tableName = schemaRegistry.getTableDefinition(LazyDocBean.class).getTableName("test");
+        ddb.updateItem(new UpdateItemRequest().withTableName(tableName).withKey(ImmutableMap.of(LazyDoc.ID_FIELD, new AttributeValue("lazy1")))
+                .withUpdateExpression("SET #f = :v").withExpressionAttributeNames(ImmutableMap.of("#f", LazyDoc.LEVEL_FIELD))
+                .withExpressionAttributeValues(ImmutableMap.of(":v", new AttributeValue("notANumber"))));
+        LazyDocBean loaded = dynamap.getObject(getObjectParams);
+        Assert.assertEquals(loaded.getName(), "name");
+        Assert.assertThrows(NumberFormatException.class, loaded::getLevel);
+        dynamap.save(new SaveParams<>(loaded.setLevel(5)));
+
+        LazyDocUpdates updates = dynamap.getObject(getObjectParams).createUpdates();
+        Assert.assertEquals(updates.getLevel().intValue(), 5);
+        updates.setName("updated").incrementMapOfLongAmount("a", 2L);
+        LazyDoc updated = dynamap.update(new UpdateParams<>(updates).withReturnValue(DynamapReturnValue.ALL_NEW));
+        Assert.assertEquals(updated.getName(), "updated");
+        Assert.assertEquals(updated.getMapOfLongValue("a").longValue(), 3L);
+        Assert.assertEquals(updated.getRevision().intValue(), 3);
+        Assert.assertEquals(updated.getProfile().getDisplayName(), "display");
+    }
+
+    @Test
+    public void testCompressionCodecs() throws Exception {
+        Map<String, Object> data = ImmutableMap.of("name", "item1", "values", ImmutableList.of(1, 2, 3));
+        ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+        try (GZIPOutputStream os = new GZIPOutputStream(legacy)) {
+            os.write(objectMapper.writeValueAsBytes(data));
+        }
+        Assert.assertEquals(CompressionCodecs.deserialize(legacy.toByteArray(), objectMapper, Map.class), data);
+
+        byte[] dictionary = objectMapper.writeValueAsBytes(ImmutableMap.of("values", ImmutableList.of(), "name", "item"));
+        CompressionCodec dictionaryCodec = CompressionCodecs.deflate(Deflater.BEST_COMPRESSION, dictionary);
+        CompressionCodecs.register("testDictionary", dictionaryCodec);
+        Assert.assertSame(CompressionCodecs.forName("testDictionary"), dictionaryCodec);
+        for (CompressionCodec codec : Arrays.asList(CompressionCodecs.GZIP, CompressionCodecs.forName("deflate"), CompressionCodecs.deflate(0), dictionaryCodec)) {
+            byte[] bytes = CompressionCodecs.serialize(data, objectMapper, codec);
+            Assert.assertEquals(bytes[0], codec.getTag());
+            Assert.assertEquals(CompressionCodecs.deserialize(bytes, objectMapper, Map.class), data);
+        }
+        Assert.assertTrue(CompressionCodecs.serialize(data, objectMapper, dictionaryCodec).length < CompressionCodecs.serialize(data, objectMapper, CompressionCodecs.forName("deflate:9")).length);
+
+        Assert.assertThrows(IllegalArgumentException.class, () -> CompressionCodecs.forName("lz4"));
+        Assert.assertThrows(IllegalArgumentException.class, () -> CompressionCodecs.forName("deflate:10"));
+        Assert.assertThrows(IllegalArgumentException.class, () -> CompressionCodecs.deserialize(new byte[]{100}, objectMapper, Map.class));
+    }
+
     @Test
     public void testListOfInteger() {
         NestedTypeBean nested = createNestedTypeBean();
@@ -1039,6 +1231,392 @@ public class DynamapTest {
         Assert.assertTrue(rateLimiterPair.getReadLimiter().getTotalSecondsSlept() > 0);
     }
 
+    @Test
+    public void testTableCacheRefresh() {
+        String tableName = schemaRegistry.getTableDefinition(TestDocumentBean.class).getTableName("test");
+        TableCache tableCache = new TableCache(new DynamoDB(ddb));
+        DynamoRateLimiter writeLimiter = new DynamoRateLimiter(DynamoRateLimiter.RateLimitType.WRITE, 50);
+        DynamoRateLimiter readLimiter = new DynamoRateLimiter(DynamoRateLimiter.RateLimitType.READ, 50);
+        writeLimiter.init(tableCache, tableName, null);
+        TableDescription description = tableCache.getDescription(tableName);
+        readLimiter.init(tableCache, tableName, null);
+        // the limiters share a single description of the table
+        Assert.assertSame(tableCache.getDescription(tableName), description);
+        Assert.assertEquals(writeLimiter.getRate(), 5.0);
+        Assert.assertEquals(readLimiter.getRate(), 5.0);
+
+        ddb.updateTable(new UpdateTableRequest().withTableName(tableName).withProvisionedThroughput(new ProvisionedThroughput(10L, 20L)));
+        tableCache.refresh();
+        Assert.assertEquals(writeLimiter.getRate(), 10.0);
+        Assert.assertEquals(readLimiter.getRate(), 5.0);
+        Assert.assertNotSame(tableCache.getDescription(tableName), description);
+
+        // once the description expires, a new limiter describes the table again and sees its current capacity
+        tableCache.setMaxAge(0, TimeUnit.MILLISECONDS);
+        ddb.updateTable(new UpdateTableRequest().withTableName(tableName).withProvisionedThroughput(new ProvisionedThroughput(10L, 40L)));
+        DynamoRateLimiter newWriteLimiter = new DynamoRateLimiter(DynamoRateLimiter.RateLimitType.WRITE, 50);
+        newWriteLimiter.init(tableCache, tableName, null);
+        Assert.assertEquals(newWriteLimiter.getRate(), 20.0);
+        Assert.assertEquals(writeLimiter.getRate(), 20.0);
+        tableCache.setRefreshInterval(1, TimeUnit.MINUTES);
+        tableCache.setRefreshInterval(0, TimeUnit.MINUTES);
+
+        // on demand tables have no provisioned throughput, so the rate is left unchanged
+        ddb.updateTable(new UpdateTableRequest().withTableName(tableName).withBillingMode(BillingMode.PAY_PER_REQUEST));
+        tableCache.refresh();
+        Assert.assertEquals(tableCache.getDescription(tableName).getBillingModeSummary().getBillingMode(), BillingMode.PAY_PER_REQUEST.toString());
+        Assert.assertEquals(writeLimiter.getRate(), 20.0);
+        Assert.assertEquals(readLimiter.getRate(), 5.0);
+    }
+
+    @Test
+    public void testBatchGetObjectWithMaxConcurrency() {
+        int size = 350;
+        Set<String> ids = new HashSet<>(size);
+        List<GetObjectRequest<TestDocumentBean>> getObjectRequests = new ArrayList<>(size);
+        List<DynamapRecordBean> docsToSave = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String docId = UUID.randomUUID().toString();
+            ids.add(docId);
+            getObjectRequests.add(new GetObjectRequest<>(TestDocumentBean.class).withHashKeyValue(docId).withRangeKeyValue(i));
+            docsToSave.add(new TestDocumentBean(docId, i).setNestedObject(createNestedTypeBean()));
+        }
+        dynamap.batchSave(new BatchSaveParams<>(docsToSave));
+
+        ReadWriteRateLimiterPair rateLimiterPair = ReadWriteRateLimiterPair.of(new DynamoRateLimiter(DynamoRateLimiter.RateLimitType.READ, 70),
+                new DynamoRateLimiter(DynamoRateLimiter.RateLimitType.WRITE, 50));
+        List<Integer> progress = Collections.synchronizedList(new ArrayList<>());
+        BatchGetObjectParams<TestDocumentBean> batchGetObjectParams = new BatchGetObjectParams<TestDocumentBean>()
+                .withGetObjectRequests(getObjectRequests)
+                .withRateLimiters(rateLimiterPair)
+                .withProgressCallback(count -> progress.add(count))
+                .withMaxConcurrency(3);
+
+        List<TestDocumentBean> testDocuments = dynamap.batchGetObjectSingleCollection(batchGetObjectParams);
+        Assert.assertEquals(testDocuments.size(), size);
+        Assert.assertEquals(testDocuments.stream().map(TestDocumentBean::getId).collect(Collectors.toSet()), ids);
+        Assert.assertEquals(progress.get(progress.size() - 1).intValue(), size);
+        Assert.assertTrue(rateLimiterPair.getReadLimiter().getTotalSecondsSlept() > 0);
+
+        // Cancelling from the progress callback stops further batches from being sent
+        testDocuments = dynamap.batchGetObjectSingleCollection(new BatchGetObjectParams<TestDocumentBean>()
+                .withGetObjectRequests(getObjectRequests)
+                .withProgressCallback(count -> false)
+                .withMaxConcurrency(1));
+        Assert.assertEquals(testDocuments.size(), 100);
+    }
+
+    @Test
+    public void testBatchRetryPolicy() {
+        List<DynamapRecordBean> docsToSave = new ArrayList<>();
+        List<GetObjectRequest<TestDocumentBean>> getObjectRequests = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            String docId = UUID.randomUUID().toString();
+            docsToSave.add(new TestDocumentBean(docId, i).setNestedObject(createNestedTypeBean()));
+            getObjectRequests.add(new GetObjectRequest<>(TestDocumentBean.class).withHashKeyValue(docId).withRangeKeyValue(i));
+        }
+        String tableName = schemaRegistry.getTableDefinition(TestDocumentBean.class).getTableName("test");
+
+        // the first two requests of each batch type leave everything unprocessed
+        AtomicInteger unprocessedGets = new AtomicInteger(2);
+        AtomicInteger unprocessedWrites = new AtomicInteger(2);
+        List<Integer> retryAttempts = Collections.synchronizedList(new ArrayList<>());
+        RetryPolicy retryPolicy = new RetryPolicy().withBaseDelayMillis(1).withRetryListener((tables, attempt, delay) -> retryAttempts.add(attempt));
+        Dynamap throttledDynamap = new Dynamap(unprocessingClient(unprocessedGets, unprocessedWrites), schemaRegistry).withPrefix("test").withObjectMapper(objectMapper)
+                .withRetryPolicy(retryPolicy);
+
+        throttledDynamap.batchSave(new BatchSaveParams<>(docsToSave));
+        List<TestDocumentBean> testDocuments = throttledDynamap.batchGetObjectSingleCollection(new BatchGetObjectParams<TestDocumentBean>()
+                .withGetObjectRequests(getObjectRequests));
+        Assert.assertEquals(testDocuments.size(), docsToSave.size());
+        Assert.assertEquals(retryPolicy.getRetryCount(), 4);
+        Assert.assertEquals(retryPolicy.getRetryCountsByTable(), ImmutableMap.of(tableName, 4L));
+        Assert.assertEquals(retryAttempts, Arrays.asList(2, 3, 2, 3));
+
+        // running out of attempts reports the keys that were not processed
+        unprocessedGets.set(Integer.MAX_VALUE);
+        unprocessedWrites.set(Integer.MAX_VALUE);
+        try {
+            throttledDynamap.batchGetObjectSingleCollection(new BatchGetObjectParams<TestDocumentBean>()
+                    .withGetObjectRequests(getObjectRequests)
+                    .withRetryPolicy(new RetryPolicy().withBaseDelayMillis(1).withMaxAttempts(3)));
+            Assert.fail();
+        } catch (RetriesExhaustedException e) {
+            Assert.assertEquals(e.getAttempts(), 3);
+            Assert.assertEquals(e.getUnprocessedKeys().get(tableName).getKeys().size(), getObjectRequests.size());
+            Assert.assertTrue(e.getUnprocessedItems().isEmpty());
+        }
+        try {
+            throttledDynamap.batchDelete(new BatchDeleteRequest().withDeleteRequests(Collections.singletonList(
+                    new DeleteRequest<>(TestDocumentBean.class).withHashKeyValue(getObjectRequests.get(0).getHashKeyValue()).withRangeKeyValue(0)))
+                    .withRetryPolicy(new RetryPolicy().withMaxAttempts(1)));
+            Assert.fail();
+        } catch (RetriesExhaustedException e) {
+            Assert.assertEquals(e.getAttempts(), 1);
+            Assert.assertEquals(e.getUnprocessedItems().get(tableName).size(), 1);
+        }
+    }
+
+    @Test
+    public void testBatchSaveWithMaxConcurrency() {
+        int size = 110;
+        List<DynamapRecordBean> docsToSave = new ArrayList<>(size);
+        List<GetObjectRequest<TestDocumentBean>> getObjectRequests = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String docId = UUID.randomUUID().toString();
+            docsToSave.add(new TestDocumentBean(docId, i).setNestedObject(createNestedTypeBean()));
+            getObjectRequests.add(new GetObjectRequest<>(TestDocumentBean.class).withHashKeyValue(docId).withRangeKeyValue(i));
+        }
+        AtomicInteger batchWrites = new AtomicInteger();
+        Dynamap countingDynamap = new Dynamap(countingClient("batchWriteItem", batchWrites), schemaRegistry).withPrefix("test").withObjectMapper(objectMapper);
+        DynamoRateLimiter writeLimiter = new DynamoRateLimiter(DynamoRateLimiter.RateLimitType.WRITE, 50);
+        countingDynamap.batchSave(new BatchSaveParams<>(docsToSave)
+                .withWriteLimiters(ImmutableMap.of(TestDocumentBean.class, writeLimiter))
+                .withMaxConcurrency(3));
+        Assert.assertEquals(batchWrites.get(), 5);
+        Assert.assertEquals(dynamap.batchGetObjectSingleCollection(new BatchGetObjectParams<TestDocumentBean>()
+                .withGetObjectRequests(getObjectRequests)).size(), size);
+
+        // failed batches are reported along with the beans that were not sent
+        Dynamap throttledDynamap = new Dynamap(unprocessingClient(new AtomicInteger(), new AtomicInteger(Integer.MAX_VALUE)), schemaRegistry)
+                .withPrefix("test").withObjectMapper(objectMapper);
+        try {
+            throttledDynamap.batchSave(new BatchSaveParams<>(docsToSave)
+                    .withRetryPolicy(new RetryPolicy().withMaxAttempts(1))
+                    .withMaxConcurrency(2));
+            Assert.fail();
+        } catch (BatchSaveException e) {
+            Assert.assertFalse(e.getFailures().isEmpty());
+            Assert.assertTrue(e.getFailures().get(0).getCause() instanceof RetriesExhaustedException);
+            int failedBeans = e.getFailures().stream().mapToInt(f -> f.getBeans().size()).sum();
+            Assert.assertEquals(failedBeans + e.getUnsentBeans().size(), size);
+        }
+    }
+
+    @Test
+    public void testBatchSavePackedBySize() {
+        List<DynamapRecordBean> docsToSave = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            docsToSave.add(new TestDocumentBean("packed" + i, i).setListOfString(Collections.nCopies(10, Strings.repeat("x", 1000))).setNestedObject(createNestedTypeBean()));
+        }
+        AtomicInteger batchWrites = new AtomicInteger();
+        Dynamap countingDynamap = new Dynamap(countingClient("batchWriteItem", batchWrites), schemaRegistry).withPrefix("test").withObjectMapper(objectMapper);
+
+        // each item is a little over 10KB, so three fit in 32KB
+        countingDynamap.batchSave(new BatchSaveParams<>(docsToSave).withMaxBatchBytes(32 * 1024));
+        Assert.assertEquals(batchWrites.get(), 4);
+        Assert.assertEquals(getTestDocument("packed9", 9).getListOfString().size(), 10);
+
+        // an item over the DynamoDB limit fails before any request is made
+        batchWrites.set(0);
+        try {
+            countingDynamap.batchSave(new BatchSaveParams<>(Arrays.asList(
+                    new TestDocumentBean("packed10", 10).setNestedObject(createNestedTypeBean()),
+                    new TestDocumentBean("packed11", 11).setListOfString(Collections.nCopies(410, Strings.repeat("x", 1024))).setNestedObject(createNestedTypeBean()))));
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("packed11"));
+        }
+        Assert.assertEquals(batchWrites.get(), 0);
+    }
+
+    /**
+     * @return a client that responds to the next batch requests as if none of their keys or items could be processed
+     */
+    private AmazonDynamoDB unprocessingClient(AtomicInteger unprocessedGets, AtomicInteger unprocessedWrites) {
+        return (AmazonDynamoDB) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{AmazonDynamoDB.class}, (proxy, method, args) -> {
+            if (method.getName().equals("batchGetItem") && args[0] instanceof BatchGetItemRequest && unprocessedGets.getAndDecrement() > 0) {
+                return new BatchGetItemResult().withResponses(Collections.emptyMap())
+                        .withUnprocessedKeys(((BatchGetItemRequest) args[0]).getRequestItems());
+            }
+            if (method.getName().equals("batchWriteItem") && args[0] instanceof BatchWriteItemRequest && unprocessedWrites.getAndDecrement() > 0) {
+                return new BatchWriteItemResult().withUnprocessedItems(((BatchWriteItemRequest) args[0]).getRequestItems());
+            }
+            try {
+                return method.invoke(ddb, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    @Test
+    public void testCoalescingObjectLoader() throws Exception {
+        List<DynamapRecordBean> docsToSave = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            docsToSave.add(new TestDocumentBean("coalesce" + i, i).setNestedObject(createNestedTypeBean()));
+        }
+        dynamap.batchSave(new BatchSaveParams<>(docsToSave));
+
+        AtomicInteger batchGets = new AtomicInteger();
+        Dynamap countingDynamap = new Dynamap(countingClient("batchGetItem", batchGets), schemaRegistry).withPrefix("test").withObjectMapper(objectMapper);
+        try (CoalescingObjectLoader loader = new CoalescingObjectLoader(countingDynamap).withWindowMillis(200).withMaxBatchSize(100)) {
+            // each document is requested twice, and one document does not exist
+            List<CompletableFuture<TestDocumentBean>> futures = IntStream.range(0, 41)
+                    .parallel()
+                    .mapToObj(i -> loader.load(new GetObjectRequest<>(TestDocumentBean.class).withHashKeyValue("coalesce" + i / 2).withRangeKeyValue(i / 2)))
+                    .collect(Collectors.toList());
+            for (int i = 0; i < 40; i++) {
+                Assert.assertEquals(futures.get(i).get().getId(), "coalesce" + i / 2);
+            }
+            Assert.assertNull(futures.get(40).get());
+            Assert.assertSame(futures.get(0).get(), futures.get(1).get());
+            Assert.assertEquals(batchGets.get(), 1);
+
+            // a full batch is sent without waiting for the window
+            loader.withWindowMillis(60000).withMaxBatchSize(5);
+            for (int i = 0; i < 5; i++) {
+                futures.set(i, loader.load(new GetObjectRequest<>(TestDocumentBean.class).withHashKeyValue("coalesce" + i).withRangeKeyValue(i)));
+            }
+            Assert.assertEquals(futures.get(4).get(10, TimeUnit.SECONDS).getId(), "coalesce4");
+            Assert.assertEquals(batchGets.get(), 2);
+        }
+    }
+
+    @Test
+    public void testBufferedObjectWriter() throws Exception {
+        AtomicInteger batchWrites = new AtomicInteger();
+        Dynamap countingDynamap = new Dynamap(countingClient("batchWriteItem", batchWrites), schemaRegistry).withPrefix("test").withObjectMapper(objectMapper);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        try (BufferedObjectWriter writer = new BufferedObjectWriter(countingDynamap).withMaxAgeMillis(60000)) {
+            // 30 documents, the last five saved again while still buffered and the sixth deleted after being sent
+            for (int i = 0; i < 30; i++) {
+                futures.add(writer.save(new SaveParams<>(new TestDocumentBean("buffered" + i, i).setString("first").setNestedObject(createNestedTypeBean()))));
+            }
+            for (int i = 25; i < 30; i++) {
+                futures.add(writer.save(new SaveParams<>(new TestDocumentBean("buffered" + i, i).setString("second").setNestedObject(createNestedTypeBean()))));
+            }
+            futures.add(writer.delete(new DeleteRequest<>(TestDocumentBean.class).withHashKeyValue("buffered5").withRangeKeyValue(5)));
+
+            // the first 25 keys are sent as soon as the batch is full, the rest on flush
+            writer.flush();
+            Assert.assertEquals(batchWrites.get(), 2);
+            for (CompletableFuture<Void> future : futures) {
+                Assert.assertTrue(future.isDone());
+                Assert.assertFalse(future.isCompletedExceptionally());
+            }
+            Assert.assertSame(futures.get(30), futures.get(25));
+
+            try {
+                writer.save(new SaveParams<>(new TestDocumentBean("buffered0", 0)).withDisableOverwrite(true));
+                Assert.fail();
+            } catch (IllegalArgumentException e) {
+            }
+            writer.save(new SaveParams<>(new TestDocumentBean("buffered30", 30).setNestedObject(createNestedTypeBean())));
+
+            // the bean is converted when it is saved, so changing it afterwards does not change what is written
+            TestDocumentBean changed = new TestDocumentBean("buffered31", 31).setString("saved").setNestedObject(createNestedTypeBean());
+            writer.save(new SaveParams<>(changed));
+            changed.setString("changed");
+        }
+        Assert.assertEquals(batchWrites.get(), 3);
+        Assert.assertEquals(getTestDocument("buffered0", 0).getString(), "first");
+        Assert.assertEquals(getTestDocument("buffered29", 29).getString(), "second");
+        Assert.assertNull(getTestDocument("buffered5", 5));
+        Assert.assertNotNull(getTestDocument("buffered30", 30));
+        Assert.assertEquals(getTestDocument("buffered31", 31).getString(), "saved");
+    }
+
+    private TestDocumentBean getTestDocument(String id, int sequence) {
+        return dynamap.getObject(new GetObjectParams<>(new GetObjectRequest<>(TestDocumentBean.class).withHashKeyValue(id).withRangeKeyValue(sequence)));
+    }
+
+    private AmazonDynamoDB countingClient(String methodName, AtomicInteger count) {
+        return (AmazonDynamoDB) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{AmazonDynamoDB.class}, (proxy, method, args) -> {
+            if (method.getName().equals(methodName)) {
+                count.incrementAndGet();
+            }
+            try {
+                return method.invoke(ddb, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    @Test
+    public void testBatchGetObjectIterator() {
+        int size = 250;
+        List<String> ids = new ArrayList<>(size);
+        List<GetObjectRequest<TestDocumentBean>> getObjectRequests = new ArrayList<>(size);
+        List<DynamapRecordBean> docsToSave = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String docId = UUID.randomUUID().toString();
+            ids.add(docId);
+            getObjectRequests.add(new GetObjectRequest<>(TestDocumentBean.class).withHashKeyValue(docId).withRangeKeyValue(i));
+            docsToSave.add(new TestDocumentBean(docId, i).setNestedObject(createNestedTypeBean()));
+        }
+        dynamap.batchSave(new BatchSaveParams<>(docsToSave));
+
+        Iterator<TestDocumentBean> iterator = dynamap.batchGetObjectIterator(new BatchGetObjectParams<TestDocumentBean>()
+                .withGetObjectRequests(getObjectRequests)
+                .withMaxConcurrency(2));
+        Set<String> retrievedIds = new HashSet<>();
+        iterator.forEachRemaining(doc -> retrievedIds.add(doc.getId()));
+        Assert.assertEquals(retrievedIds, new HashSet<>(ids));
+        Assert.assertFalse(iterator.hasNext());
+
+        // batches are returned in the order of the requests
+        List<Integer> sequences = new ArrayList<>();
+        List<Integer> progress = new ArrayList<>();
+        dynamap.batchGetObject(new BatchGetObjectParams<TestDocumentBean>()
+                .withGetObjectRequests(getObjectRequests)
+                .withProgressCallback(count -> progress.add(count)), doc -> {
+            sequences.add(doc.getSequence());
+            // the first batch is processed before the later batches are requested
+            Assert.assertEquals(progress.size(), doc.getSequence() / 100 + 1);
+        });
+        Assert.assertEquals(sequences.size(), size);
+        for (int i = 0; i < size; i++) {
+            Assert.assertEquals(sequences.get(i) / 100, i / 100);
+        }
+    }
+
+    @Test
+    public void testGetObjectWithProjection() {
+        NestedTypeBean nested = createNestedTypeBean();
+        TestDocumentBean doc = createTestDocumentBean(nested);
+        doc.setString("projected");
+        doc.setIntegerField(5);
+        dynamap.save(new SaveParams<>(doc));
+
+        TestDocumentBean projected = dynamap.getObject(new GetObjectParams<>(new GetObjectRequest<>(TestDocumentBean.class)
+                .withHashKeyValue(doc.getId()).withRangeKeyValue(doc.getSequence()).withProjection(TestDocument.STRING_FIELD, "integerField")));
+        Assert.assertEquals(projected.getId(), doc.getId());
+        Assert.assertEquals(projected.getSequence(), doc.getSequence());
+        Assert.assertEquals(projected.getString(), "projected");
+        Assert.assertEquals(projected.getIntegerField().intValue(), 5);
+        Assert.assertNull(projected.getNestedObject());
+
+        // projections of the same table are combined in a batch get
+        TestDocumentBean doc2 = createTestDocumentBean("projected2", nested);
+        doc2.setString("projected2");
+        dynamap.save(new SaveParams<>(doc2));
+        List<TestDocumentBean> docs = dynamap.batchGetObjectSingleCollection(new BatchGetObjectParams<TestDocumentBean>().withGetObjectRequests(ImmutableList.of(
+                new GetObjectRequest<>(TestDocumentBean.class).withHashKeyValue(doc.getId()).withRangeKeyValue(doc.getSequence()).withProjection(TestDocument.STRING_FIELD),
+                new GetObjectRequest<>(TestDocumentBean.class).withHashKeyValue(doc2.getId()).withRangeKeyValue(doc2.getSequence()).withProjection(TestDocument.INTEGERFIELD_FIELD))));
+        Assert.assertEquals(docs.size(), 2);
+        for (TestDocumentBean projectedDoc : docs) {
+            Assert.assertTrue(projectedDoc.getString().startsWith("projected"));
+            Assert.assertNull(projectedDoc.getNestedObject());
+        }
+
+        ReadTx readTx = dynamap.newReadTx();
+        readTx.get(new GetObjectParams<>(new GetObjectRequest<>(TestDocumentBean.class).withHashKeyValue(doc2.getId()).withRangeKeyValue(doc2.getSequence())
+                .withProjection(TestDocument.STRING_FIELD)));
+        projected = (TestDocumentBean) readTx.exec().get(0);
+        Assert.assertEquals(projected.getString(), "projected2");
+        Assert.assertNull(projected.getNestedObject());
+
+        try {
+            dynamap.getObject(new GetObjectParams<>(new GetObjectRequest<>(TestDocumentBean.class).withHashKeyValue(doc.getId()).withRangeKeyValue(doc.getSequence())
+                    .withProjection("noSuchField")));
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
     @Test
     public void testOptimisticLocking() {
         final String DOC_ID = "1";
@@ -1085,6 +1663,73 @@ public class DynamapTest {
 
     }
 
+    @Test
+    public void testBulkUpdate() {
+        List<UpdateParams> updateParams = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            DummyDocBean doc = new DummyDocBean("bulk" + i).setName("test").setWeight((long) i);
+            dynamap.save(new SaveParams<>(doc));
+            DummyDocBean savedDoc = dynamap.getObject(new GetObjectParams<>(new GetObjectRequest<>(DummyDocBean.class).withHashKeyValue("bulk" + i)));
+            updateParams.add(new UpdateParams<>(savedDoc.createUpdates().setWeight(i + 100L)));
+        }
+        // the revision of the third document is changed after its update was created, so that update fails
+        dynamap.update(new UpdateParams<>(dynamap.getObject(new GetObjectParams<>(new GetObjectRequest<>(DummyDocBean.class).withHashKeyValue("bulk2"))).createUpdates().setName("changed")));
+
+        DynamoRateLimiter writeLimiter = new DynamoRateLimiter(DynamoRateLimiter.RateLimitType.WRITE, 50);
+        BulkUpdateResult result = dynamap.bulkUpdate(new BulkUpdateParams(updateParams).withWriteLimiter(writeLimiter).withMaxConcurrency(4));
+        Assert.assertEquals(result.getSuccesses().size(), 19);
+        Assert.assertEquals(result.getFailures().size(), 1);
+        Assert.assertEquals(result.getFailures().get(0).getIndex(), 2);
+        Assert.assertTrue(result.getFailures().get(0).isConditionalCheckFailure());
+        DummyDocUpdateResult updated = result.getSuccesses().get(18).getUpdateResult();
+        Assert.assertEquals(updated.getWeight().longValue(), 119L);
+        Assert.assertEquals(dynamap.getObject(new GetObjectParams<>(new GetObjectRequest<>(DummyDocBean.class).withHashKeyValue("bulk0"))).getWeight().longValue(), 100L);
+    }
+
+    @Test
+    public void testCoalescingUpdater() {
+        dynamap.save(new SaveParams<>(new DummyDocBean("coalesce").setName("test").setWeight(10L)));
+        DummyDocBean savedDoc = dynamap.getObject(new GetObjectParams<>(new GetObjectRequest<>(DummyDocBean.class).withHashKeyValue("coalesce")));
+
+        AtomicInteger updateItems = new AtomicInteger();
+        Dynamap countingDynamap = new Dynamap(countingClient("updateItem", updateItems), schemaRegistry).withPrefix("test").withObjectMapper(objectMapper);
+        List<CompletableFuture<DummyDocUpdateResult>> futures = new ArrayList<>();
+        try (CoalescingUpdater updater = new CoalescingUpdater(countingDynamap).withWindowMillis(60000)) {
+            futures.add(updater.update(new UpdateParams<>(savedDoc.createUpdates().incrementWeight(1L)).withReturnValue(DynamapReturnValue.ALL_NEW)));
+            futures.add(updater.update(new UpdateParams<>(savedDoc.createUpdates().setDisableOptimisticLocking(true).incrementWeight(2L)).withReturnValue(DynamapReturnValue.ALL_NEW)));
+            futures.add(updater.update(new UpdateParams<>(savedDoc.createUpdates().setDisableOptimisticLocking(true).setName("first")).withReturnValue(DynamapReturnValue.ALL_NEW)));
+            futures.add(updater.update(new UpdateParams<>(savedDoc.createUpdates().incrementWeight(4L)).withReturnValue(DynamapReturnValue.ALL_NEW)));
+        }
+        for (CompletableFuture<DummyDocUpdateResult> future : futures.subList(0, 3)) {
+            DummyDocUpdateResult updateResult = future.join();
+            Assert.assertEquals(updateResult.getWeight().longValue(), 13L);
+            Assert.assertEquals(updateResult.getName(), "first");
+        }
+        // the second optimistically locked update of the same revision is sent on its own and fails its revision check
+        try {
+            futures.get(3).join();
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof ConditionalCheckFailedException);
+        }
+        Assert.assertEquals(updateItems.get(), 2);
+        DummyDocBean updatedDoc = dynamap.getObject(new GetObjectParams<>(new GetObjectRequest<>(DummyDocBean.class).withHashKeyValue("coalesce")));
+        Assert.assertEquals(updatedDoc.getWeight().longValue(), 13L);
+        Assert.assertEquals(updatedDoc.getName(), "first");
+        Assert.assertEquals(updatedDoc.getRevision().intValue(), savedDoc.getRevision() + 1);
+
+        // an update that replaces a field another update increments cannot be combined, so it is sent after it
+        updateItems.set(0);
+        futures.clear();
+        try (CoalescingUpdater updater = new CoalescingUpdater(countingDynamap).withWindowMillis(60000)) {
+            futures.add(updater.update(new UpdateParams<>(updatedDoc.createUpdates().setDisableOptimisticLocking(true).incrementWeight(1L)).withReturnValue(DynamapReturnValue.ALL_NEW)));
+            futures.add(updater.update(new UpdateParams<>(updatedDoc.createUpdates().setDisableOptimisticLocking(true).setWeight(100L)).withReturnValue(DynamapReturnValue.ALL_NEW)));
+        }
+        Assert.assertEquals(futures.get(0).join().getWeight().longValue(), 14L);
+        Assert.assertEquals(futures.get(1).join().getWeight().longValue(), 100L);
+        Assert.assertEquals(updateItems.get(), 2);
+    }
+
     @Test
     public void testNullStringCondition() {
         final String DOC_ID = "1";
@@ -1437,6 +2082,499 @@ public class DynamapTest {
         Assert.assertTrue(savedTestDocsIds.containsAll(testDocsIds) && testDocsIds.containsAll(savedTestDocsIds));
     }
 
+    @Test
+    public void testParallelScanMergedIterator() {
+        int size = 300;
+        Set<String> ids = new HashSet<>(size);
+        List<DynamapRecordBean> docsToSave = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String docId = UUID.randomUUID().toString();
+            ids.add(docId);
+            docsToSave.add(new TestDocumentBean(docId, i).setNestedObject(createNestedTypeBean()));
+        }
+        dynamap.batchSave(new BatchSaveParams<>(docsToSave));
+
+        DynamoRateLimiter readLimiter = new DynamoRateLimiter(DynamoRateLimiter.RateLimitType.READ, 50);
+        List<Integer> progress = Collections.synchronizedList(new ArrayList<>());
+        List<String> scannedIds = new ArrayList<>();
+        dynamap.parallelScan(new ScanRequest<>(TestDocumentBean.class)
+                .withReadRateLimiter(readLimiter)
+                .withMaxPageSize(20)
+                .withProgressCallback(count -> progress.add(count)), 4, doc -> scannedIds.add(doc.getId()));
+        Assert.assertEquals(scannedIds.size(), size);
+        Assert.assertEquals(new HashSet<>(scannedIds), ids);
+        Assert.assertEquals(Collections.max(progress).intValue(), size);
+
+        // the exclusive start keys of the request are not applied to the segments
+        TableDefinition tableDefinition = schemaRegistry.getTableDefinition(TestDocumentBean.class);
+        TestDocumentBean first = (TestDocumentBean) docsToSave.get(0);
+        Set<String> idsFromStartKey = new HashSet<>();
+        dynamap.parallelScan(new ScanRequest<>(TestDocumentBean.class)
+                .withExclusiveStartKeys(new KeyAttribute(tableDefinition.getHashKeyDynamoName(), first.getId()),
+                        new KeyAttribute(tableDefinition.getRangeKeyDynamoName(), first.getSequence())), 4, doc -> idsFromStartKey.add(doc.getId()));
+        Assert.assertEquals(idsFromStartKey, ids);
+
+        // closing the iterator early stops the segments
+        ParallelScanIterator<TestDocumentBean> iterator = dynamap.parallelScan(new ScanRequest<>(TestDocumentBean.class).withMaxPageSize(10), 2);
+        Assert.assertTrue(ids.contains(iterator.next().getId()));
+        iterator.close();
+        Assert.assertFalse(iterator.hasNext());
+
+        // returning false from the progress callback stops the segments from reading further pages
+        List<TestDocumentBean> cancelled = new ArrayList<>();
+        dynamap.parallelScan(new ScanRequest<>(TestDocumentBean.class)
+                .withMaxPageSize(10)
+                .withProgressCallback(count -> count < 10), 1, cancelled::add);
+        Assert.assertEquals(cancelled.size(), 10);
+    }
+
+    @Test
+    public void testQueryAndScanWithPrefetch() {
+        int docCount = 25;
+        String hashKey = UUID.randomUUID().toString();
+        List<DynamapRecordBean> docsToSave = new ArrayList<>();
+        for (int i = 0; i < docCount; i++) {
+            docsToSave.add(createTestDocumentBean(hashKey, createNestedTypeBean()));
+        }
+        dynamap.batchSave(new BatchSaveParams<>(docsToSave));
+        List<Integer> sequences = docsToSave.stream().map(doc -> ((TestDocumentBean) doc).getSequence()).collect(Collectors.toList());
+
+        List<Integer> progress = Collections.synchronizedList(new ArrayList<>());
+        QueryRequest<TestDocumentBean> queryRequest = new QueryRequest<>(TestDocumentBean.class)
+                .withHashKeyValue(hashKey)
+                .withMaxPageSize(4)
+                .withPrefetchPages(2)
+                .withReadRateLimiter(new DynamoRateLimiter(DynamoRateLimiter.RateLimitType.READ, 50))
+                .withProgressCallback(count -> progress.add(count));
+        QueryResult<TestDocumentBean> queryResult = dynamap.queryResult(queryRequest);
+        Assert.assertEquals(queryResult.getResults().stream().map(TestDocumentBean::getSequence).collect(Collectors.toList()), sequences);
+        Assert.assertEquals(queryResult.getCount(), docCount);
+        Assert.assertEquals(progress.get(progress.size() - 1).intValue(), docCount);
+
+        // the last evaluated key is that of the page being read, not of the prefetched pages
+        queryRequest = new QueryRequest<>(TestDocumentBean.class)
+                .withHashKeyValue(hashKey)
+                .withMaxPageSize(3)
+                .withPrefetchPages(3);
+        queryResult = dynamap.queryResult(queryRequest);
+        Iterator<TestDocumentBean> iterator = queryResult.getResultIterator();
+        for (int i = 0; i < 6; i++) {
+            iterator.next();
+        }
+        Assert.assertEquals(queryResult.getCount(), 6);
+        queryResult = dynamap.queryResult(queryRequest.withExclusiveStartKeys(queryResult.getLastEvaluatedKeys()));
+        Assert.assertEquals(queryResult.getResults().stream().map(TestDocumentBean::getSequence).collect(Collectors.toList()), sequences.subList(6, docCount));
+
+        ScanResult<TestDocumentBean> scanResult = dynamap.scan(new ScanRequest<>(TestDocumentBean.class).withMaxPageSize(7).withPrefetchPages(1));
+        Assert.assertEquals(scanResult.getResults().size(), docCount);
+        Assert.assertEquals(scanResult.getScannedCount(), docCount);
+    }
+
+    @Test
+    public void testMultiQuery() {
+        List<String> hashKeys = Arrays.asList(UUID.randomUUID().toString(), UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        List<DynamapRecordBean> docsToSave = new ArrayList<>();
+        for (int i = 0; i < 18; i++) {
+            docsToSave.add(createTestDocumentBean(hashKeys.get(i % 3), createNestedTypeBean()));
+        }
+        dynamap.batchSave(new BatchSaveParams<>(docsToSave));
+        List<Integer> sequences = docsToSave.stream().map(doc -> ((TestDocumentBean) doc).getSequence()).collect(Collectors.toList());
+
+        List<Integer> progress = Collections.synchronizedList(new ArrayList<>());
+        Iterator<TestDocumentBean> iterator = dynamap.multiQuery(new QueryRequest<>(TestDocumentBean.class)
+                .withMaxPageSize(4)
+                .withProgressCallback(count -> progress.add(count)), hashKeys);
+        List<TestDocumentBean> results = new ArrayList<>();
+        iterator.forEachRemaining(results::add);
+        Assert.assertEquals(results.stream().map(TestDocumentBean::getSequence).collect(Collectors.toList()), sequences);
+        Assert.assertEquals(Collections.max(progress).intValue(), 18);
+
+        iterator = dynamap.multiQuery(new QueryRequest<>(TestDocumentBean.class).withScanIndexForward(false), hashKeys.subList(0, 2));
+        results.clear();
+        iterator.forEachRemaining(results::add);
+        List<Integer> expected = sequences.stream().filter(sequence -> sequences.indexOf(sequence) % 3 != 2).collect(Collectors.toList());
+        Collections.reverse(expected);
+        Assert.assertEquals(results.stream().map(TestDocumentBean::getSequence).collect(Collectors.toList()), expected);
+
+        // with a limit, each partition stops paging once its items can no longer be returned
+        AtomicInteger queries = new AtomicInteger();
+        Dynamap countingDynamap = new Dynamap(countingClient("query", queries), schemaRegistry).withPrefix("test").withObjectMapper(objectMapper);
+        iterator = countingDynamap.multiQuery(new QueryRequest<>(TestDocumentBean.class).withMaxPageSize(2).withMaxResultSize(3), hashKeys);
+        results.clear();
+        iterator.forEachRemaining(results::add);
+        Assert.assertEquals(results.stream().map(TestDocumentBean::getSequence).collect(Collectors.toList()), sequences.subList(0, 3));
+        Assert.assertTrue(queries.get() <= 6);
+    }
+
+    @Test
+    public void testCountAndAggregate() {
+        String hashKey = UUID.randomUUID().toString();
+        List<DynamapRecordBean> docsToSave = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            TestDocumentBean doc = createTestDocumentBean(hashKey, createNestedTypeBean());
+            if (i < 10) {
+                doc.setIntegerField(i);
+            }
+            docsToSave.add(doc);
+        }
+        dynamap.batchSave(new BatchSaveParams<>(docsToSave));
+
+        Assert.assertEquals(dynamap.count(new QueryRequest<>(TestDocumentBean.class).withHashKeyValue(hashKey).withMaxPageSize(3)), 10);
+        Assert.assertEquals(dynamap.count(new QueryRequest<>(TestDocumentBean.class).withHashKeyValue(hashKey).withMaxPageSize(3).withMaxResultSize(4)), 4);
+        Assert.assertEquals(dynamap.count(new QueryRequest<>(TestDocumentBean.class).withHashKeyValue(hashKey)
+                .withFilterExpression("#int > :min").withNames(ImmutableMap.of("#int", TestDocument.INTEGERFIELD_FIELD)).withValues(ImmutableMap.of(":min", 5))), 4);
+        // names used only by the projection, which is replaced, are not sent
+        Assert.assertEquals(dynamap.count(new QueryRequest<>(TestDocumentBean.class).withHashKeyValue(hashKey).withProjectionExpression("#str")
+                .withNames(ImmutableMap.of("#str", TestDocument.STRING_FIELD))), 10);
+
+        AggregateResult aggregate = dynamap.aggregate(new QueryRequest<>(TestDocumentBean.class).withHashKeyValue(hashKey).withMaxPageSize(4), "integerField");
+        Assert.assertEquals(aggregate.getCount(), 10);
+        Assert.assertEquals(aggregate.getValueCount(), 9);
+        Assert.assertEquals(aggregate.getSum().intValue(), 45);
+        Assert.assertEquals(aggregate.getMin().intValue(), 1);
+        Assert.assertEquals(aggregate.getMax().intValue(), 9);
+
+        List<Integer> progress = Collections.synchronizedList(new ArrayList<>());
+        Assert.assertEquals(dynamap.count(new ScanRequest<>(TestDocumentBean.class).withMaxPageSize(2)
+                .withProgressCallback(count -> progress.add(count)), 4), 10);
+        Assert.assertEquals(Collections.max(progress).intValue(), 10);
+        aggregate = dynamap.aggregate(new ScanRequest<>(TestDocumentBean.class).withMaxPageSize(2), TestDocument.INTEGERFIELD_FIELD, 3);
+        Assert.assertEquals(aggregate.getCount(), 10);
+        Assert.assertEquals(aggregate.getSum().intValue(), 45);
+        Assert.assertEquals(aggregate.getMax().intValue(), 9);
+        aggregate = dynamap.aggregate(new ScanRequest<>(TestDocumentBean.class).withProjectionExpression("#str,#id").withFilterExpression("#id = :id")
+                .withNames(ImmutableMap.of("#str", TestDocument.STRING_FIELD, "#id", TestDocument.ID_FIELD)).withValues(ImmutableMap.of(":id", hashKey)), TestDocument.INTEGERFIELD_FIELD, 1);
+        Assert.assertEquals(aggregate.getSum().intValue(), 45);
+    }
+
+    @Test
+    public void testDeleteWhere() {
+        String hashKey = UUID.randomUUID().toString();
+        List<DynamapRecordBean> docsToSave = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            docsToSave.add(createTestDocumentBean(hashKey, createNestedTypeBean()).setIntegerField(i));
+        }
+        dynamap.batchSave(new BatchSaveParams<>(docsToSave));
+
+        AtomicInteger batchWrites = new AtomicInteger();
+        Dynamap countingDynamap = new Dynamap(countingClient("batchWriteItem", batchWrites), schemaRegistry).withPrefix("test").withObjectMapper(objectMapper);
+        DeleteWhereResult result = countingDynamap.deleteWhere(new QueryRequest<>(TestDocumentBean.class).withHashKeyValue(hashKey).withMaxPageSize(20)
+                        .withFilterExpression("#int >= :min").withNames(ImmutableMap.of("#int", TestDocument.INTEGERFIELD_FIELD)).withValues(ImmutableMap.of(":min", 10)),
+                new DeleteWhereParams().withWriteLimiter(new DynamoRateLimiter(DynamoRateLimiter.RateLimitType.WRITE, 50)).withMaxConcurrency(3));
+        Assert.assertEquals(result.getDeletedCount(), 50);
+        Assert.assertEquals(result.getBatchCount(), 2);
+        Assert.assertEquals(batchWrites.get(), 2);
+        Assert.assertEquals(dynamap.count(new QueryRequest<>(TestDocumentBean.class).withHashKeyValue(hashKey)), 10);
+
+        // names used only by the projection, which is replaced, are not sent
+        result = dynamap.deleteWhere(new ScanRequest<>(TestDocumentBean.class).withMaxPageSize(3).withProjectionExpression("#str")
+                .withFilterExpression("#id = :id").withNames(ImmutableMap.of("#id", TestDocument.ID_FIELD, "#str", TestDocument.STRING_FIELD)).withValues(ImmutableMap.of(":id", hashKey)));
+        Assert.assertEquals(result.getDeletedCount(), 10);
+        Assert.assertEquals(dynamap.count(new QueryRequest<>(TestDocumentBean.class).withHashKeyValue(hashKey)), 0);
+    }
+
+    @Test
+    public void testGeneratedDecoder() {
+        CustomType customType = new CustomType("item1", "test", CustomType.CustomTypeEnum.VALUE_A);
+        NestedTypeBean nested = createNestedTypeBean().setMapOfLong(ImmutableMap.of("a", 1L)).setCustomType(customType)
+                .setSetOfLong(ImmutableSet.of(3L, 4L)).setListMapOfCustomType(ImmutableMap.of(customType.getName(), customType));
+        TestDocumentBean doc = createTestDocumentBean(UUID.randomUUID().toString(), nested)
+                .setString("decoded").setIntegerField(5).setMapOfLong(ImmutableMap.of("b", 2L))
+                .setListOfInteger(ImmutableList.of(1, 2)).setSetOfString(ImmutableSet.of("x", "y"))
+                .setMapOfCustomType(ImmutableMap.of(customType.getName(), customType))
+                .setGzipListMapOfCustomType(ImmutableMap.of(customType.getName(), customType))
+                .setGzipListOfCustomType(ImmutableList.of(customType))
+                .setBLOB(new byte[]{1, 2, 3});
+        dynamap.save(new SaveParams<>(doc));
+
+        Map<String, AttributeValue> attributes = ddb.getItem(new GetItemRequest("testTest", ImmutableMap.of(
+                TestDocument.ID_FIELD, new AttributeValue(doc.getId()),
+                TestDocument.SEQUENCE_FIELD, new AttributeValue().withN(doc.getSequence().toString())))).getItem();
+        TestDocumentBean decoded = TestDocumentDecoder.INSTANCE.decode(attributes, objectMapper);
+        TestDocumentBean loaded = dynamap.getObject(createGetObjectParams(doc));
+        for (TestDocumentBean bean : ImmutableList.of(decoded, loaded)) {
+            Assert.assertEquals(bean.getId(), doc.getId());
+            Assert.assertEquals(bean.getString(), "decoded");
+            Assert.assertEquals(bean.getIntegerField().intValue(), 5);
+            Assert.assertEquals(bean.getIntegerFieldNonZeroDefault().intValue(), 2);
+            Assert.assertEquals(bean.getMapOfLong(), ImmutableMap.of("b", 2L));
+            Assert.assertEquals(bean.getListOfInteger(), ImmutableList.of(1, 2));
+            Assert.assertEquals(bean.getSetOfString(), ImmutableSet.of("x", "y"));
+            Assert.assertEquals(bean.getMapOfCustomTypeItem(customType.getName()).getValue(), "test");
+            Assert.assertEquals(bean.getGzipListMapOfCustomTypeItem(customType.getName()).getCustomTypeEnum(), CustomType.CustomTypeEnum.VALUE_A);
+            Assert.assertEquals(bean.getGzipListOfCustomType(), ImmutableList.of(customType));
+            Assert.assertEquals(bean.getBLOB(), new byte[]{1, 2, 3});
+            Assert.assertEquals(bean.getNestedObject().getMapOfLongValue("a").longValue(), 1L);
+            Assert.assertEquals(bean.getNestedObject().getSetOfLong(), ImmutableSet.of(3L, 4L));
+            Assert.assertEquals(bean.getNestedObject().getCustomType(), customType);
+            Assert.assertEquals(bean.getNestedObject().getListMapOfCustomTypeItem(customType.getName()), customType);
+            Assert.assertEquals(bean.getDynamapSchemaVersion(), TestDocument.SCHEMA_VERSION);
+        }
+    }
+
+    @Test
+    public void testGeneratedEncoder() {
+        CustomType customType = new CustomType("item1", "test", CustomType.CustomTypeEnum.VALUE_A);
+        NestedTypeBean nested = createNestedTypeBean().setMapOfLong(ImmutableMap.of("a", 1L)).setCustomType(customType)
+                .setSetOfLong(ImmutableSet.of(3L, 4L)).setListMapOfCustomType(ImmutableMap.of(customType.getName(), customType));
+        TestDocumentBean doc = createTestDocumentBean(UUID.randomUUID().toString(), nested)
+                .setString("encoded").setIntegerField(5).setMapOfLong(ImmutableMap.of("b", 2L))
+                .setListOfInteger(ImmutableList.of(1, 2)).setSetOfString(ImmutableSet.of("x", "y"))
+                .setMapOfCustomType(ImmutableMap.of(customType.getName(), customType))
+                .setListMapOfCustomType(ImmutableMap.of(customType.getName(), customType))
+                .setGzipListMapOfCustomType(ImmutableMap.of(customType.getName(), customType))
+                .setGzipListOfCustomType(ImmutableList.of(customType))
+                .setBLOB(new byte[]{1, 2, 3});
+
+        // the encoder writes the same attributes as the conversion with the ObjectMapper
+        TableDefinition tableDefinition = schemaRegistry.getTableDefinition(TestDocumentBean.class);
+        Map<String, AttributeValue> encoded = TestDocumentEncoder.INSTANCE.encode(doc, true, objectMapper);
+        Map<String, AttributeValue> converted = ItemUtils.toAttributeValues(new DynamoItemFactory(objectMapper).convertBean(doc, tableDefinition));
+        Assert.assertEquals(encoded, converted);
+        Assert.assertEquals(new DynamoItemFactory(objectMapper).asAttributeValues(doc, tableDefinition), converted);
+
+        WriteTx writeTx = dynamap.newWriteTx();
+        writeTx.save(new SaveParams<>(doc));
+        writeTx.exec();
+        TestDocumentBean loaded = dynamap.getObject(createGetObjectParams(doc));
+        Assert.assertEquals(loaded.getString(), "encoded");
+        Assert.assertEquals(loaded.getSetOfString(), ImmutableSet.of("x", "y"));
+        Assert.assertEquals(loaded.getListMapOfCustomTypeItem(customType.getName()), customType);
+        Assert.assertEquals(loaded.getGzipListOfCustomType(), ImmutableList.of(customType));
+        Assert.assertEquals(loaded.getNestedObject().getSetOfLong(), ImmutableSet.of(3L, 4L));
+        Assert.assertEquals(loaded.getNestedObject().getCustomType(), customType);
+        Assert.assertEquals(loaded.getBLOB(), new byte[]{1, 2, 3});
+    }
+
+    @Test
+    public void testLowLevelApi() throws Exception {
+        AtomicInteger getItemCount = new AtomicInteger();
+        Dynamap lowLevelDynamap = new Dynamap(countingClient("getItem", getItemCount), schemaRegistry).withPrefix("test")
+                .withObjectMapper(objectMapper).withLowLevelApi(true);
+
+        final String DOC_ID = UUID.randomUUID().toString();
+        lowLevelDynamap.save(new SaveParams<>(new DummyDocBean(DOC_ID).setName("test").setWeight(6L)));
+        GetObjectParams<DummyDocBean> getDummyDocParams = new GetObjectParams<>(new GetObjectRequest<>(DummyDocBean.class).withHashKeyValue(DOC_ID));
+        DummyDocBean dummyDoc = lowLevelDynamap.getObject(getDummyDocParams);
+        Assert.assertEquals(getItemCount.get(), 1);
+        Assert.assertEquals(dummyDoc.getName(), "test");
+        Assert.assertEquals(dummyDoc.getRevision().intValue(), 1);
+
+        // optimistic locking
+        lowLevelDynamap.save(new SaveParams<>(dummyDoc.setWeight(7L)));
+        Assert.assertEquals(dynamap.getObject(getDummyDocParams).getRevision().intValue(), 2);
+        boolean conditionFailed = false;
+        try {
+            lowLevelDynamap.save(new SaveParams<>(dummyDoc.setWeight(8L)));
+        } catch (ConditionalCheckFailedException e) {
+            conditionFailed = true;
+        }
+        Assert.assertTrue(conditionFailed);
+
+        DummyDocUpdateResult updateResult = lowLevelDynamap.update(new UpdateParams<>(lowLevelDynamap.getObject(getDummyDocParams).createUpdates().incrementWeight(3L))
+                .withReturnValue(DynamapReturnValue.ALL_NEW));
+        Assert.assertEquals(updateResult.getWeight().longValue(), 10L);
+        Assert.assertEquals(updateResult.getRevision().intValue(), 3);
+
+        // query pages are requested as the results are read
+        String hashKey = UUID.randomUUID().toString();
+        for (int i = 0; i < 5; i++) {
+            lowLevelDynamap.save(new SaveParams<>(new TestDocumentBean(hashKey, i).setNestedObject(createNestedTypeBean()).setString("text" + i)));
+        }
+        QueryResult<TestDocumentBean> queryResult = lowLevelDynamap.queryResult(new QueryRequest<>(TestDocumentBean.class).withHashKeyValue(hashKey)
+                .withMaxPageSize(2).withMaxResultSize(3));
+        List<TestDocumentBean> results = queryResult.getResults();
+        Assert.assertEquals(results.stream().map(TestDocumentBean::getString).collect(Collectors.toList()), ImmutableList.of("text0", "text1", "text2"));
+        Assert.assertEquals(queryResult.getCount(), 3);
+        Assert.assertNotNull(queryResult.getLastEvaluatedKeys());
+        Assert.assertEquals(lowLevelDynamap.query(new QueryRequest<>(TestDocumentBean.class).withHashKeyValue(hashKey)
+                .withExclusiveStartKeys(queryResult.getLastEvaluatedKeys())).size(), 2);
+
+        lowLevelDynamap.delete(new DeleteRequest<>(TestDocumentBean.class).withHashKeyValue(hashKey).withRangeKeyValue(0));
+        Assert.assertNull(lowLevelDynamap.getObject(new GetObjectParams<>(new GetObjectRequest<>(TestDocumentBean.class).withHashKeyValue(hashKey).withRangeKeyValue(0))));
+        Assert.assertEquals(lowLevelDynamap.query(new QueryRequest<>(TestDocumentBean.class).withHashKeyValue(hashKey)).size(), 4);
+
+        // items of an earlier schema version are migrated as Items and written back
+        String jsonSchema = IOUtils.toString(getClass().getResourceAsStream("/DummySchema.json"));
+        jsonSchema = jsonSchema.replace("\"version\": 1,", "\"version\": 2,");
+        SchemaRegistry migrationSchemaRegistry = new SchemaRegistry(new ByteArrayInputStream(jsonSchema.getBytes()));
+        migrationSchemaRegistry.registerMigration(DummyDocBean.class, new Migration() {
+            @Override
+            public int getVersion() {
+                return 2;
+            }
+
+            @Override
+            public void migrate(Item item, int version, Object context) {
+                item.withString("pstRfId", "migrated");
+            }
+
+            @Override
+            public void postMigration(Item item, int version, Object context) {
+
+            }
+        });
+        Dynamap migratingDynamap = new Dynamap(ddb, migrationSchemaRegistry).withPrefix("test").withObjectMapper(objectMapper).withLowLevelApi(true);
+        DummyDocBean migrated = migratingDynamap.getObject(getDummyDocParams);
+        Assert.assertEquals(migrated.getName(), "migrated");
+        Assert.assertEquals(migrated.getRevision().intValue(), 4);
+        Assert.assertEquals(migratingDynamap.getObject(getDummyDocParams).getName(), "migrated");
+    }
+
+    @Test
+    public void testAsyncDynamap() throws Exception {
+        AtomicInteger cancelledTransactions = new AtomicInteger(1);
+        AsyncDynamap asyncDynamap = new AsyncDynamap(asyncClient(cancelledTransactions), schemaRegistry).withPrefix("test").withObjectMapper(objectMapper)
+                .withRetryPolicy(new RetryPolicy().withBaseDelayMillis(1));
+
+        String hashKey = UUID.randomUUID().toString();
+        List<TestDocumentBean> docs = new ArrayList<>();
+        List<CompletableFuture<Void>> saves = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            TestDocumentBean doc = createTestDocumentBean(hashKey, createNestedTypeBean()).setString("async" + i);
+            docs.add(doc);
+            saves.add(asyncDynamap.save(new SaveParams<>(doc)));
+        }
+        CompletableFuture.allOf(saves.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        TestDocumentBean doc = docs.get(0);
+        TestDocumentBean loaded = asyncDynamap.getObject(createGetObjectParams(doc)).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(loaded.getString(), "async0");
+        Assert.assertEquals(dynamap.getObject(createGetObjectParams(doc)).getNestedObject().getId(), doc.getNestedObject().getId());
+        Assert.assertNull(asyncDynamap.getObject(new GetObjectParams<>(new GetObjectRequest<>(TestDocumentBean.class).withHashKeyValue("blah").withRangeKeyValue(1))).get(10, TimeUnit.SECONDS));
+
+        TestDocumentUpdates testDocumentUpdates = loaded.createUpdates();
+        testDocumentUpdates.setString("updated");
+        TestDocumentUpdateResult updateResult = asyncDynamap.<TestDocument, TestDocumentUpdates, TestDocumentUpdateResult>update(new UpdateParams<>(testDocumentUpdates)).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(updateResult.getString(), "updated");
+        Assert.assertEquals(dynamap.getObject(createGetObjectParams(doc)).getString(), "updated");
+
+        List<Integer> progress = Collections.synchronizedList(new ArrayList<>());
+        QueryResult<TestDocumentBean> queryResult = asyncDynamap.queryResult(new QueryRequest<>(TestDocumentBean.class)
+                .withHashKeyValue(hashKey)
+                .withMaxPageSize(3)
+                .withMaxResultSize(7)
+                .withProgressCallback(count -> progress.add(count))).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(queryResult.getResults().stream().map(TestDocumentBean::getSequence).collect(Collectors.toList()),
+                docs.subList(0, 7).stream().map(TestDocumentBean::getSequence).collect(Collectors.toList()));
+        Assert.assertEquals(queryResult.getCount(), 7);
+        Assert.assertEquals(progress, Arrays.asList(3, 6, 7));
+        List<TestDocumentBean> remaining = asyncDynamap.query(new QueryRequest<>(TestDocumentBean.class)
+                .withHashKeyValue(hashKey)
+                .withExclusiveStartKeys(queryResult.getLastEvaluatedKeys())).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(remaining.size(), 3);
+
+        asyncDynamap.delete(new DeleteRequest<>(TestDocumentBean.class).withHashKeyValue(doc.getId()).withRangeKeyValue(doc.getSequence())).get(10, TimeUnit.SECONDS);
+        Assert.assertNull(dynamap.getObject(createGetObjectParams(doc)));
+
+        // the first transaction is cancelled because of throttling and retried
+        WriteTx writeTx = asyncDynamap.newWriteTx();
+        writeTx.save(new SaveParams<>(doc));
+        asyncDynamap.exec(writeTx).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(asyncDynamap.getRetryPolicy().getRetryCount(), 1);
+        Assert.assertEquals(dynamap.getObject(createGetObjectParams(doc)).getString(), "async0");
+
+        // a failed condition completes the future exceptionally
+        try {
+            asyncDynamap.save(new SaveParams<>(createTestDocumentBean(hashKey, createNestedTypeBean()).setString("x")).withDisableOverwrite(true)
+                    .withConditionExpressions(Collections.singletonList("attribute_exists(id)"))).get(10, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof ConditionalCheckFailedException);
+        }
+    }
+
+    /**
+     * @return an async client that runs the requests of the test client on another thread, and cancels the next
+     * transactions as if they had been throttled
+     */
+    private AmazonDynamoDBAsync asyncClient(AtomicInteger cancelledTransactions) {
+        return (AmazonDynamoDBAsync) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{AmazonDynamoDBAsync.class}, (proxy, method, args) -> {
+            if (!method.getName().endsWith("Async")) {
+                try {
+                    return method.invoke(ddb, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+            AmazonWebServiceRequest request = (AmazonWebServiceRequest) args[0];
+            AsyncHandler<AmazonWebServiceRequest, Object> asyncHandler = (AsyncHandler<AmazonWebServiceRequest, Object>) args[1];
+            Method syncMethod = AmazonDynamoDB.class.getMethod(method.getName().substring(0, method.getName().length() - "Async".length()), method.getParameterTypes()[0]);
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    if (request instanceof TransactWriteItemsRequest && cancelledTransactions.getAndDecrement() > 0) {
+                        TransactionCanceledException e = new TransactionCanceledException("Transaction cancelled");
+                        e.setCancellationReasons(Collections.singletonList(new CancellationReason().withCode("ThrottlingError")));
+                        throw e;
+                    }
+                    Object result = syncMethod.invoke(ddb, request);
+                    asyncHandler.onSuccess(request, result);
+                    return result;
+                } catch (InvocationTargetException e) {
+                    asyncHandler.onError((Exception) e.getCause());
+                    throw new CompletionException(e.getCause());
+                } catch (Exception e) {
+                    asyncHandler.onError(e);
+                    throw new CompletionException(e);
+                }
+            });
+        });
+    }
+
+    @Test
+    public void testResumableScan() throws Exception {
+        List<DynamapRecordBean> docsToSave = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            docsToSave.add(createTestDocumentBean(createNestedTypeBean()));
+        }
+        dynamap.batchSave(new BatchSaveParams<>(docsToSave));
+        Path checkpointFile = Files.createTempDirectory("dynamap").resolve("scan.checkpoint");
+        ScanRequest<TestDocumentBean> scanRequest = new ScanRequest<>(TestDocumentBean.class).withMaxPageSize(4);
+
+        // the first run stops part way through
+        Set<String> ids = Collections.synchronizedSet(new HashSet<>());
+        AtomicInteger processed = new AtomicInteger();
+        try {
+            new ResumableScan<>(dynamap, scanRequest, checkpointFile).withTotalSegments(2).run(doc -> {
+                if (processed.incrementAndGet() > 12) {
+                    throw new IllegalStateException("stopped");
+                }
+                ids.add(doc.getId());
+            });
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals(e.getMessage(), "stopped");
+        }
+        Assert.assertTrue(Files.exists(checkpointFile));
+
+        // resuming with a different number of segments is not allowed
+        try {
+            new ResumableScan<>(dynamap, scanRequest, checkpointFile).withTotalSegments(3).run(doc -> {
+            });
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        ResumableScan<TestDocumentBean> resumed = new ResumableScan<>(dynamap, scanRequest, checkpointFile).withTotalSegments(2).withCheckpointInterval(2);
+        List<String> resumedIds = Collections.synchronizedList(new ArrayList<>());
+        ScanCheckpoint checkpoint = resumed.run(doc -> resumedIds.add(doc.getId()));
+        ids.addAll(resumedIds);
+        Assert.assertEquals(ids.size(), 30);
+        Assert.assertTrue(resumedIds.size() < 30);
+        Assert.assertTrue(checkpoint.isDone());
+        Assert.assertEquals(checkpoint.getCount(), 30);
+        Assert.assertEquals(checkpoint.getSegments().stream().mapToLong(ScanCheckpoint.Segment::getScannedCount).sum(), 30);
+
+        // a finished scan does nothing until its checkpoint is deleted
+        AtomicInteger count = new AtomicInteger();
+        new ResumableScan<>(dynamap, scanRequest, checkpointFile).withTotalSegments(2).run(doc -> count.incrementAndGet());
+        Assert.assertEquals(count.get(), 0);
+        Files.delete(checkpointFile);
+        new ResumableScan<>(dynamap, scanRequest, checkpointFile).run(doc -> count.incrementAndGet());
+        Assert.assertEquals(count.get(), 30);
+    }
+
     @Test
     public void testScan() {
         final int TEST_DOCS_SIZE = 22;
@@ -0,0 +1,44 @@
+package com.n3twork.dynamap;
+
+import com.amazonaws.services.dynamodbv2.document.Item;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static com.n3twork.dynamap.ItemSizeEstimator.estimateSize;
+import static org.testng.Assert.assertEquals;
+
+public class ItemSizeEstimatorTest {
+
+    @Test
+    public void stringsCountUtf8Bytes() {
+        assertEquals(estimateSize(new Item().withString("id", "abc")), 5);
+        assertEquals(estimateSize(new Item().withString("id", "\u00e9\u20ac")), 7);
+    }
+
+    @Test
+    public void numbersCountSignificantDigits() {
+        assertEquals(estimateSize(new Item().withInt("n", 0)), 2);
+        assertEquals(estimateSize(new Item().withInt("n", 12)), 3);
+        assertEquals(estimateSize(new Item().withInt("n", 123000)), 4);
+        assertEquals(estimateSize(new Item().withNumber("n", new BigDecimal("1234.5"))), 5);
+    }
+
+    @Test
+    public void binariesAndBooleans() {
+        assertEquals(estimateSize(new Item().withBinary("b", new byte[100]).withBoolean("f", true).withNull("z")), 105);
+    }
+
+    @Test
+    public void collections() {
+        // name 1, list 3 + (1 + 1) + (1 + 2)
+        assertEquals(estimateSize(new Item().withList("l", Arrays.asList("a", 1))), 9);
+        // name 1, map 3 + (1 + 1 + 1)
+        assertEquals(estimateSize(new Item().withMap("m", ImmutableMap.of("k", "v"))), 7);
+        // name 1, set 1 + 2
+        assertEquals(estimateSize(new Item().withStringSet("s", ImmutableSet.of("a", "bc"))), 4);
+    }
+}